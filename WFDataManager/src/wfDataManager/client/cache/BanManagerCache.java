@@ -3,6 +3,8 @@ package wfDataManager.client.cache;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -388,18 +390,40 @@ public final class BanManagerCache {
 		}
 	}
 
-	public synchronized void updateBanData(String oldUID, String newUID) {
+	/**
+	 * Moves any ban references in the DB for the given old UID over to the given new UID as part of the given connection's transaction. <br>
+	 * The cached ban data and any firewall rules are only moved over once that transaction is committed, so the action to do that is 
+	 * added to the given list of actions to run after committing. If the transaction is rolled back instead, nothing has been changed
+	 * @param conn
+	 * @param oldUID
+	 * @param newUID
+	 * @param onCommit
+	 * @throws SQLException
+	 */
+	public synchronized void updateBanData(Connection conn, String oldUID, String newUID, List<Runnable> onCommit) throws SQLException {
 		if (bannedTracker.containsKey(oldUID)) {
-			BanData data = bannedTracker.get(oldUID);
+			BanDao.updateBanDataReferences(conn, oldUID, newUID);
+			onCommit.add(() -> moveBanData(oldUID, newUID));
+		}
+	}
+
+	/**
+	 * Moves the cached ban data for the given old UID over to the given new UID, removing any current bans and adding them back for the new UID
+	 * @param oldUID
+	 * @param newUID
+	 */
+	private synchronized void moveBanData(String oldUID, String newUID) {
+		BanData data = bannedTracker.get(oldUID);
+		if (data != null) {
 			List<BanSpec> bannedSpecs = null;
 			if (isCurrentlyBanned(oldUID)) {
-				Log.warn(LOG_ID + ".updateBanData() : Old UID ", oldUID, " is currently banned, will remove and reinsert for new UID ", newUID);
-				for (BanSpec spec : data.getBanSpecs()) {
+				Log.warn(LOG_ID + ".moveBanData() : Old UID ", oldUID, " is currently banned, will remove and reinsert for new UID ", newUID);
+				for (BanSpec spec : new ArrayList<BanSpec>(data.getBanSpecs())) {
 					if (!spec.isExpired(ClientSettingsUtil.getBanTime(spec.isPrimary(), spec.isKick()))) {
 						if (bannedSpecs == null) {
 							bannedSpecs = new ArrayList<BanSpec>();
-							bannedSpecs.add(spec);
 						}
+						bannedSpecs.add(spec);
 						manageBan(data, BanActionType.REMOVE, spec.getIP());
 					}
 				}
@@ -409,8 +433,6 @@ public final class BanManagerCache {
 			bannedTracker.put(newUID, data);
 			bannedTracker.remove(oldUID);
 
-			BanDao.updateBanDataReferences(oldUID, newUID);
-
 			if (!MiscUtil.isEmpty(bannedSpecs)) {
 				for (BanSpec spec : bannedSpecs) {
 					manageBan(data, BanActionType.ADD, spec.getIP());
@@ -0,0 +1,127 @@
+package wfDataManager.client.cache;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdtools.logging.Log;
+import jdtools.util.MiscUtil;
+import wfDataManager.client.db.GameDataDao;
+import wfDataManager.client.util.ClientSettingsUtil;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Cache to resolve items seen in the logs that are not known to the {@link WarframeItemCache}. <br>
+ * Unknown items are recorded as-is while parsing, and then looked up in the DB in batches off of the parse threads.
+ * Once resolved, an item either maps to the single DB item it is a shortened version of, or to itself if no single match was found.
+ * Any kills that were recorded under the unknown item's name are then moved over to the resolved name before the data is stored
+ * @author MatNova
+ *
+ */
+public final class ItemResolutionCache {
+
+	private static final String LOG_ID = ItemResolutionCache.class.getSimpleName();
+	private static ItemResolutionCache singleton = null;
+	private Map<String, String> resolvedItems = new ConcurrentHashMap<String, String>(); // Unknown item -> item it resolved to (or itself if there was no single match)
+	private Map<String, String> renamedItems = new ConcurrentHashMap<String, String>(); // Only the resolved items that resolved to a different item, since only these need to be reconciled
+	private Set<String> pendingItems = ConcurrentHashMap.newKeySet(); // Unknown items waiting to be resolved
+
+	public static synchronized ItemResolutionCache singleton() {
+		if (singleton == null) {
+			singleton = new ItemResolutionCache();
+		}
+		return singleton;
+	}
+
+	private ItemResolutionCache() {
+	}
+
+	/**
+	 * Returns the item that the given unknown item resolved to if known. <br>
+	 * Otherwise, this will return the item as-is and queue it to be resolved later
+	 * @param item
+	 * @return
+	 */
+	public String resolveItem(String item) {
+		String resolved = resolvedItems.get(item);
+		if (resolved == null) {
+			resolved = item;
+			if (!ClientSettingsUtil.persist()) {
+				// If not using DB, there is nothing to look it up in, so just let it continue
+				resolvedItems.put(item, item);
+				WarframeItemCache.singleton().addAllowedItem(item);
+			} else if (pendingItems.add(item)) {
+				Log.info(LOG_ID + ".resolveItem() : Encountered unknown item " + item + ", will record as-is until it is resolved");
+			}
+		}
+		return resolved;
+	}
+
+	public boolean hasPendingItems() {
+		return !pendingItems.isEmpty();
+	}
+
+	/**
+	 * Looks up all currently pending items in the DB and resolves them. <br>
+	 * If an item has one match, it is assumed to be that match. If it has multiple matches with an exact match, or no single match, it is let through as-is
+	 */
+	public synchronized void resolvePendingItems() {
+		if (pendingItems.isEmpty()) {
+			return;
+		}
+
+		List<String> toResolve = new ArrayList<String>(pendingItems);
+		Map<String, List<String>> matches = null;
+		try {
+			matches = GameDataDao.findMatchingItems(toResolve);
+		} catch (SQLException e) {
+			Log.warn(LOG_ID + ".resolvePendingItems() : Error occurred finding matches, will leave " + toResolve.size() + " items pending -> " + e);
+			return;
+		}
+		for (String item : toResolve) {
+			// Only resolve items that were actually looked up, anything else stays pending for the next attempt
+			if (!matches.containsKey(item)) {
+				continue;
+			}
+			List<String> possibleMatches = matches.get(item);
+			String resolved = item;
+			if (possibleMatches.size() == 1) {
+				Log.info(LOG_ID + ".resolvePendingItems() : Will assume unknown item " + item + " is " + possibleMatches.get(0));
+				resolved = possibleMatches.get(0);
+			} else if (possibleMatches.size() > 1 && possibleMatches.indexOf(item) > -1) {
+				Log.info(LOG_ID + ".resolvePendingItems() : Found multiple matches with an exact match, will assume unknown item " + item + " is as-is");
+			} else if (possibleMatches.size() > 1) {
+				Log.info(LOG_ID + ".resolvePendingItems() : Found multiple matches with no exact match for unknown item " + item + ": " + possibleMatches.toString() + ", will insert as-is");
+			} else {
+				Log.info(LOG_ID + ".resolvePendingItems() : Found no matches for unknown item " + item + ", will insert as-is");
+			}
+
+			if (!WarframeItemCache.singleton().hasItemName(resolved)) {
+				WarframeItemCache.singleton().addAllowedItem(resolved);
+			}
+			if (!resolved.equals(item)) {
+				renamedItems.put(item, resolved);
+			}
+			resolvedItems.put(item, resolved);
+			pendingItems.remove(item);
+		}
+	}
+
+	/**
+	 * Resolves any items still pending, and then moves any kills the given server recorded under an unknown item's name over to the item it resolved to
+	 * @param serverData
+	 */
+	public void reconcileItems(ServerData serverData) {
+		resolvePendingItems();
+		if (!MiscUtil.isEmpty(renamedItems)) {
+			Map<String, String> toRename = new HashMap<String, String>(renamedItems);
+			for (String item : toRename.keySet()) {
+				serverData.renameItem(item, toRename.get(item));
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package wfDataManager.client.cache;
+
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import wfDataManager.client.parser.logging.event.ParseJournal;
+import wfDataManager.client.type.ProcessModeType;
+import wfDataManager.client.util.ClientSettingsUtil;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Cache to hold the parse journal for each server. <br>
+ * Journals are only used in normal mode, and only if enabled via the enableParseJournal setting
+ * @author MatNova
+ *
+ */
+public final class ParseJournalCache {
+
+	private static ParseJournalCache singleton = null;
+	private Map<String, ParseJournal> journals = new ConcurrentHashMap<String, ParseJournal>(); // Server ID -> journal
+
+	public static synchronized ParseJournalCache singleton() {
+		if (singleton == null) {
+			singleton = new ParseJournalCache();
+		}
+		return singleton;
+	}
+
+	private ParseJournalCache() {
+	}
+
+	/**
+	 * Returns true if journals should be used for the current process mode
+	 * @return
+	 */
+	public boolean isEnabled() {
+		return ClientSettingsUtil.enableParseJournal() && ProcessModeType.NORMAL.equals(ClientSettingsUtil.getProcessMode());
+	}
+
+	/**
+	 * Returns the journal for the given server
+	 * @param serverData
+	 * @return
+	 */
+	public ParseJournal getJournal(ServerData serverData) {
+		return journals.computeIfAbsent(serverData.getId(), k -> new ParseJournal(Paths.get(ClientSettingsUtil.getJournalDir(), k + ".wfj")));
+	}
+
+	/**
+	 * Forces everything written to every journal since they were last synced to disk, 
+	 * so that the journals written to during a parse cycle are synced together rather than on every write
+	 */
+	public void syncAll() {
+		for (ParseJournal journal : journals.values()) {
+			journal.sync();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package wfDataManager.client.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import wfDataManager.client.data.ParserStats;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Cache to hold how often each log parser matches lines, per server and game mode. <br>
+ * These are used to try the parsers that match most often first for each server's logs
+ * @author MatNova
+ *
+ */
+public final class ParserStatsCache {
+
+	private static ParserStatsCache singleton = null;
+	private Map<String, Map<Integer, ParserStats>> parserStats = new ConcurrentHashMap<String, Map<Integer, ParserStats>>(); // Server ID -> game mode ID -> stats
+
+	public static synchronized ParserStatsCache singleton() {
+		if (singleton == null) {
+			singleton = new ParserStatsCache();
+		}
+		return singleton;
+	}
+
+	private ParserStatsCache() {
+	}
+
+	/**
+	 * Returns the stats for the given server's current game mode
+	 * @param serverData
+	 * @return
+	 */
+	public ParserStats getParserStats(ServerData serverData) {
+		return parserStats.computeIfAbsent(serverData.getId(), k -> new ConcurrentHashMap<Integer, ParserStats>()).computeIfAbsent(serverData.getGameModeId(), k -> new ParserStats());
+	}
+
+	public Map<String, Map<Integer, ParserStats>> getAllParserStats() {
+		return parserStats;
+	}
+
+	public void clearParserStats() {
+		parserStats.clear();
+	}
+}
@@ -1,7 +1,12 @@
 package wfDataManager.client.cache;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import wfDataManager.client.data.PlayerTracker;
 import wfDataManager.client.db.PlayerTrackerDao;
@@ -28,7 +33,7 @@ public final class PlayerTrackerCache {
 	}
 	
 	private void loadTrackers() {
-		trackedPlayers = PlayerTrackerDao.getTrackedPlayers();
+		trackedPlayers = new CopyOnWriteArrayList<PlayerTracker>(PlayerTrackerDao.getTrackedPlayers()); // Copy on write since trackers are checked from every parse thread
 	}
 	
 	public void addTracker(PlayerTracker tracker) {
@@ -67,15 +72,31 @@ public final class PlayerTrackerCache {
 		return tracked;
 	}
 	
-	public void updatePlayerTracker(String oldUID, String newUID) {
+	/**
+	 * Moves any tracker or known alt for the given old UID over to the given new UID, updating the DB as part of the given connection's transaction. <br>
+	 * The cached trackers are only updated once that transaction is committed, so the actions to do that are added to the given list of actions to run after committing
+	 * @param conn
+	 * @param oldUID
+	 * @param newUID
+	 * @param onCommit
+	 * @throws SQLException
+	 */
+	public void updatePlayerTracker(Connection conn, String oldUID, String newUID, List<Runnable> onCommit) throws SQLException {
 		for (PlayerTracker tracker : getPlayerTrackers()) {
 			if (tracker.getUID().equals(oldUID)) {
-				PlayerTrackerDao.updatePlayerTracker(tracker, newUID); // Pass in newUID to remap tracker's UID in DB
-				tracker.setUID(newUID); // Update in object after updating DB
+				PlayerTrackerDao.updatePlayerTracker(conn, tracker, newUID); // Pass in newUID to remap tracker's UID in DB
+				onCommit.add(() -> tracker.setUID(newUID)); // Update in object after the DB change is committed
 			} else if (tracker.getKnownAlts().containsKey(oldUID)) {
-				tracker.addKnownAlt(newUID, tracker.getKnownAlts().get(oldUID));
-				tracker.removeKnownAlt(oldUID);
-				PlayerTrackerDao.updatePlayerTracker(tracker); // Note don't pass newUID into method here since we're updating alt references, not tracker UID itself
+				// Store the moved alt from a copy of the tracker's alts, so the cached tracker keeps the old UID until the DB change is committed
+				String altName = tracker.getKnownAlts().get(oldUID);
+				Map<String, String> knownAlts = new HashMap<String, String>(tracker.getKnownAlts());
+				knownAlts.remove(oldUID);
+				knownAlts.put(newUID, altName);
+				PlayerTrackerDao.updatePlayerTracker(conn, new PlayerTracker(tracker.getUID(), tracker.getPlayerName(), tracker.getKnownIPs(), knownAlts), null); // Note don't pass newUID into method here since we're updating alt references, not tracker UID itself
+				onCommit.add(() -> {
+					tracker.addKnownAlt(newUID, altName);
+					tracker.removeKnownAlt(oldUID);
+				});
 			}
 		}
 		
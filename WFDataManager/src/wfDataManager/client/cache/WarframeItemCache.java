@@ -18,7 +18,7 @@ public final class WarframeItemCache extends WarframeItemCacheBase {
 	private WarframeItemCache() {
 	}
 
-	public static WarframeItemCache singleton() {
+	public static synchronized WarframeItemCache singleton() {
 		if (singleton == null) {
 			singleton = new WarframeItemCache();
 		} 
@@ -29,11 +29,20 @@ public final class WarframeItemCache extends WarframeItemCacheBase {
 		addWarframeItem(itemKey, itemKey + "_", WeaponType.UNKNOWN); // Append a '_' to the item name so we know in the DB that it is a candidate for being remapped later
 	}
 
-	public synchronized boolean updateCacheIfNeeded(long buildId) {
-		if (buildId > cacheID) {
-			cacheID = buildId;
-			init(true);
-			return true;
+	/**
+	 * Refreshes the cache in the background if the given build ID is newer than the one the cache was built for. <br>
+	 * This never waits on a refresh in progress, and only the first caller to see a newer build ID will start the refresh
+	 * @param buildId
+	 * @return
+	 */
+	public boolean updateCacheIfNeeded(long buildId) {
+		long curId = cacheID.get();
+		while (buildId > curId) {
+			if (cacheID.compareAndSet(curId, buildId)) {
+				refreshInBackground();
+				return true;
+			}
+			curId = cacheID.get();
 		}
 		return false;
 	}
@@ -64,7 +64,7 @@ public class ListCmd extends BaseCmd {
 					if (server.getGameModeId() == -1) {
 						resp.append(server.getId()).append(" - ").append("No info, maybe still loading").append("\n");
 					} else {
-						resp.append(server.getId() + " - " + server.getConnectedPlayers().size() + "/" + server.getMaxPlayers()).append(" ").append(GameMode.idToType(server.getGameModeId())).append(" ").append(EloType.codeToType(server.getEloRating())).append(" numRepeat=").append(server.getNumRepeats()).append(" numMiss=").append(server.getNumMiss()).append("\n");
+						resp.append(server.getId() + " - " + server.getNumConnectedPlayers() + "/" + server.getMaxPlayers()).append(" ").append(GameMode.idToType(server.getGameModeId())).append(" ").append(EloType.codeToType(server.getEloRating())).append(" numRepeat=").append(server.getNumRepeats()).append(" numMiss=").append(server.getNumMiss()).append("\n");
 					}
 				}
 			}
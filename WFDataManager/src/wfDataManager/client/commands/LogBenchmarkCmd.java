@@ -0,0 +1,146 @@
+package wfDataManager.client.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jdtools.logging.Log;
+import wfDataManager.client.parser.logging.BaseLogParser;
+import wfDataManager.client.parser.logging.LogParserDispatcher;
+import wfDataManager.client.processor.logging.BaseLogProcessor;
+import wfDataManager.client.processor.logging.reader.LogLineReader;
+import wfDataManager.client.processor.logging.reader.MappedLogLineReader;
+import wfDataModel.model.commands.BaseCmd;
+
+/**
+ * Command for benchmarking how quickly lines can be read from a log and matched to their parsers, and how much memory is allocated doing so. <br>
+ * Each line is read the same way the log processors read it, but nothing is actually parsed or stored
+ * @author MatNova
+ *
+ */
+public class LogBenchmarkCmd extends BaseCmd {
+
+	private static final int DEFAULT_LINES = 1000000;
+	private static final Pattern TIME_PATTERN = Pattern.compile("^(\\d+)\\..*"); // How the time used to be found on every line, to compare against
+
+	private long checksum = 0; // Just so the work done per line can't be optimized away
+
+	public LogBenchmarkCmd() {
+		super(2);
+	}
+
+	@Override
+	public String getDescription() {
+		StringBuilder desc = new StringBuilder("Benchmarks reading lines from a log file and finding the parser for each of them, without parsing or storing anything").append("\n");
+		desc.append("logbenchmark <file> <?lines> - Reads the uncompressed log file (repeatedly if needed) until the given number of lines have been read (default " + DEFAULT_LINES + "). ");
+		desc.append("This is done first with the byte prefilter, and then the way lines used to be handled, by decoding every line into a string and trying each parser's patterns against it in turn. The time taken and bytes allocated per 1M lines are reported for each");
+		return desc.toString();
+	}
+
+	@Override
+	public void runCmd(String... args) {
+		if (args == null || args.length < 1 || (args.length > 1 && !args[1].matches("\\d+"))) {
+			Log.warn("Invalid arguments supplied, usage: \n " + getDescription());
+		} else if (!new File(args[0]).isFile()) {
+			Log.warn("Log file not found -> " + args[0]);
+		} else {
+			File logFile = new File(args[0]);
+			long numLines = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_LINES;
+			List<BaseLogParser> parsers = BaseLogProcessor.createDefaultParsers();
+			LogParserDispatcher dispatcher = new LogParserDispatcher(parsers);
+			try {
+				// Each is run once first to let everything get loaded and compiled before actually measuring
+				runPass(logFile, Math.min(numLines, DEFAULT_LINES), parsers, dispatcher, true);
+				runPass(logFile, Math.min(numLines, DEFAULT_LINES), parsers, dispatcher, false);
+				report("Prefilter", runPass(logFile, numLines, parsers, dispatcher, true));
+				report("Decode and try every parser", runPass(logFile, numLines, parsers, dispatcher, false));
+			} catch (IOException e) {
+				Log.error("Error reading log file " + logFile.getName() + " -> ", e);
+			}
+		}
+	}
+
+	/**
+	 * Reads the given number of lines from the log, returning the number of lines read, number of candidate lines, number of lines with a parser,
+	 * nanoseconds taken, and bytes allocated (or -1 if unknown), in that order. <br>
+	 * If not using the prefilter, the dispatcher is not used and each parser is instead tried against every line, as was done before the dispatcher existed
+	 * @param logFile
+	 * @param numLines
+	 * @param parsers
+	 * @param dispatcher
+	 * @param usePrefilter
+	 * @return
+	 * @throws IOException
+	 */
+	private long[] runPass(File logFile, long numLines, List<BaseLogParser> parsers, LogParserDispatcher dispatcher, boolean usePrefilter) throws IOException {
+		long numRead = 0;
+		long numCandidates = 0;
+		long numMatched = 0;
+		Matcher timeMatcher = TIME_PATTERN.matcher("");
+		long startBytes = getAllocatedBytes();
+		long startNanos = System.nanoTime();
+
+		while (numRead < numLines) {
+			long readBefore = numRead;
+			try (FileChannel logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ); LogLineReader reader = new MappedLogLineReader(logChannel, 0)) {
+				while (numRead < numLines && reader.nextLine()) {
+					numRead++;
+					if (usePrefilter) {
+						checksum += reader.getLineTime();
+						long candidates = reader.getLineCandidates(dispatcher);
+						if (candidates != 0) {
+							numCandidates++;
+							if (dispatcher.findParser(reader.getLine(), candidates) != null) {
+								numMatched++;
+							}
+						}
+					} else {
+						String line = reader.getLine();
+						if (timeMatcher.reset(line).matches()) {
+							checksum += Long.valueOf(timeMatcher.group(1));
+						}
+						numCandidates++;
+						for (BaseLogParser parser : parsers) {
+							if (parser.canParse(line)) {
+								numMatched++;
+								break;
+							}
+						}
+					}
+				}
+			}
+			if (numRead == readBefore) {
+				break; // Log has no complete lines
+			}
+		}
+
+		long nanos = System.nanoTime() - startNanos;
+		long endBytes = getAllocatedBytes();
+		return new long[] { numRead, numCandidates, numMatched, nanos, startBytes == -1 || endBytes == -1 ? -1 : endBytes - startBytes };
+	}
+
+	private void report(String name, long[] results) {
+		long numRead = results[0];
+		double millis = results[3] / 1000000.0;
+		String allocated = results[4] == -1 || numRead == 0 ? "unknown" : String.valueOf((long) (results[4] * (1000000.0 / numRead)));
+		Log.info(name + ": Read " + numRead + " lines (" + results[1] + " decoded, " + results[2] + " with a parser) in " + String.format("%.1f", millis) + " ms -> "
+				+ String.format("%.0f", numRead / Math.max(millis / 1000.0, 0.001)) + " lines/sec, " + allocated + " bytes allocated per 1M lines");
+	}
+
+	/**
+	 * Returns the total bytes allocated by the current thread, or -1 if the JVM cannot report it
+	 * @return
+	 */
+	private long getAllocatedBytes() {
+		long allocated = -1;
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			allocated = ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return allocated;
+	}
+}
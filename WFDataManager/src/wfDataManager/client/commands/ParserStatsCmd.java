@@ -0,0 +1,59 @@
+package wfDataManager.client.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jdtools.logging.Log;
+import wfDataManager.client.cache.ParserStatsCache;
+import wfDataManager.client.data.ParserStats;
+import wfDataModel.model.commands.BaseCmd;
+import wfDataModel.service.type.GameMode;
+
+/**
+ * Command for viewing or clearing how often each log parser matches lines, per server and game mode
+ * @author MatNova
+ *
+ */
+public class ParserStatsCmd extends BaseCmd {
+
+	public ParserStatsCmd() {
+		super(1);
+	}
+
+	@Override
+	public String getDescription() {
+		StringBuilder desc = new StringBuilder("Lists or clears how often each log parser was tried and matched, per server and game mode").append("\n");
+		desc.append("parserstats - Lists the stats for every server and game mode, with the parsers that match most often first \n");
+		desc.append("parserstats clear - Clears all stats, which will reset the order that parsers are tried in");
+		return desc.toString();
+	}
+
+	@Override
+	public void runCmd(String... args) {
+		if (args != null && args.length > 0 && !args[0].equalsIgnoreCase("clear")) {
+			Log.warn("Invalid arguments supplied, usage: \n " + getDescription());
+		} else if (args != null && args.length > 0) {
+			ParserStatsCache.singleton().clearParserStats();
+			Log.info("Cleared parser stats");
+		} else {
+			StringBuilder resp = new StringBuilder("Parser Stats:").append("\n");
+			for (String serverId : ParserStatsCache.singleton().getAllParserStats().keySet()) {
+				Map<Integer, ParserStats> serverStats = ParserStatsCache.singleton().getAllParserStats().get(serverId);
+				for (Integer gameModeId : serverStats.keySet()) {
+					resp.append(serverId).append(" - ").append(gameModeId == -1 ? "No game mode" : GameMode.idToType(gameModeId)).append("\n");
+					Map<String, long[]> counts = serverStats.get(gameModeId).getCounts();
+					List<String> parserNames = new ArrayList<String>(counts.keySet());
+					parserNames.sort((p1, p2) -> Long.compare(counts.get(p2)[1], counts.get(p1)[1]));
+					for (String parserName : parserNames) {
+						long tries = counts.get(parserName)[0];
+						long hits = counts.get(parserName)[1];
+						resp.append("\t").append(parserName).append(": hits=").append(hits).append(", tries=").append(tries).append(", hitRate=").append(String.format("%.1f", (hits * 100.0) / tries)).append("%\n");
+					}
+				}
+			}
+			Log.info(resp.toString());
+		}
+	}
+
+}
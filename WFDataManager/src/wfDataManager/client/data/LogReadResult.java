@@ -0,0 +1,48 @@
+package wfDataManager.client.data;
+
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Class that holds the outcome of reading a single server's log during a parse cycle
+ * @author MatNova
+ *
+ */
+public class LogReadResult {
+
+	private ServerData serverData;
+	private boolean wasRead; // If the log was actually read (whether successfully or not)
+	private boolean isIncluded; // If the server's data should be included in this cycle's submission
+	private boolean reachedEnd; // If the end of the log was reached
+
+	public LogReadResult(ServerData serverData) {
+		this.serverData = serverData;
+	}
+
+	public ServerData getServerData() {
+		return serverData;
+	}
+
+	public boolean wasRead() {
+		return wasRead;
+	}
+
+	public void setRead(boolean wasRead) {
+		this.wasRead = wasRead;
+	}
+
+	public boolean isIncluded() {
+		return isIncluded;
+	}
+
+	public void setIncluded(boolean isIncluded) {
+		this.isIncluded = isIncluded;
+	}
+
+	public boolean reachedEnd() {
+		return reachedEnd;
+	}
+
+	public void setReachedEnd(boolean reachedEnd) {
+		this.reachedEnd = reachedEnd;
+	}
+}
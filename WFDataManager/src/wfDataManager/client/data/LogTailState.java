@@ -0,0 +1,93 @@
+package wfDataManager.client.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+import jdtools.util.MiscUtil;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Class that tracks the identity of a log file that has already had its header verified for a server. <br>
+ * As long as the file is still the same one (same file identity, has not shrunk below the last read position, and still starts with the same header) 
+ * and the server's start time has not changed, the log can be tailed directly from the server's last log position
+ * instead of re-reading the header to find the start time again. <br>
+ * The header is the bytes from the start of the log up to the end of the line with its start time, and is checked with a small read of the file each time, 
+ * since a log that was truncated and rewritten in place (or recreated within NTFS's tunneling window) keeps its identity.
+ * @author MatNova
+ *
+ */
+public class LogTailState {
+
+	private static final int MAX_HEADER_SIZE = 64 * 1024; // The start time is expected within the first few lines, but in case it isn't, only this much is kept
+
+	private String fileIdentity;
+	private String startTime;
+	private byte[] header;
+
+	public LogTailState(String fileIdentity, String startTime, byte[] header) {
+		this.fileIdentity = fileIdentity;
+		this.startTime = startTime;
+		this.header = header;
+	}
+
+	public String getFileIdentity() {
+		return fileIdentity;
+	}
+
+	public String getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Returns true if the given file can be tailed from the given server's current log position
+	 * @param fileIdentity
+	 * @param logChannel
+	 * @param serverData
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean canTail(String fileIdentity, FileChannel logChannel, ServerData serverData) throws IOException {
+		return !MiscUtil.isEmpty(fileIdentity) && fileIdentity.equals(this.fileIdentity) && startTime.equals(serverData.getTimeStats().getStartTime())
+				&& serverData.getLogPosition() > 0 && logChannel.size() >= serverData.getLogPosition() && Arrays.equals(header, readHeader(logChannel, header.length));
+	}
+
+	/**
+	 * Reads the header of the given log, which ends at the given byte offset (i.e. the end of the line with the log's start time). <br>
+	 * This does not change the channel's position. If the log is shorter than the header, whatever it has is returned
+	 * @param logChannel
+	 * @param headerEnd
+	 * @return
+	 * @throws IOException
+	 */
+	public static byte[] readHeader(FileChannel logChannel, long headerEnd) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(headerEnd, MAX_HEADER_SIZE));
+		while (buffer.hasRemaining() && logChannel.read(buffer, buffer.position()) != -1) {
+			// Keep reading until the header is full or the log ends
+		}
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * Returns an identity for the given file. <br>
+	 * If the file system has a file key (e.g. the device and inode on Unix-like systems), that is used, since it stays the same for as long as the file exists.
+	 * Otherwise the creation time is used, which is what Windows (NTFS) provides instead. Creation time is not used when there is a file key, 
+	 * since some file systems don't track it and will report the last modified time instead, which changes on every write. <br>
+	 * Either way, a log that is truncated and rewritten in place keeps its identity, so {@link #canTail(String, FileChannel, ServerData)} also requires that 
+	 * the file has not shrunk below the last read position, that it still has the same header, and that the server's start time has not changed
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static String getFileIdentity(Path path) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		if (attrs.fileKey() != null) {
+			return "key:" + attrs.fileKey();
+		}
+		return "created:" + attrs.creationTime().toMillis();
+	}
+}
@@ -0,0 +1,51 @@
+package wfDataManager.client.data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import wfDataManager.client.parser.logging.BaseLogParser;
+
+/**
+ * Class that tracks how often each log parser was tried against a line and how often it actually matched,
+ * for a single server and game mode. <br>
+ * Parsers are identified by their class name, so counts from different sets of the same parsers (e.g. from different parse threads) are combined
+ * @author MatNova
+ *
+ */
+public class ParserStats {
+
+	private Map<String, long[]> counts = new LinkedHashMap<String, long[]>(); // Parser name -> [tries, hits]
+
+	/**
+	 * Adds the given counts, where the tries and hits at each index are for the parser at that index in the given list of parsers
+	 * @param parsers
+	 * @param tries
+	 * @param hits
+	 */
+	public synchronized void addCounts(List<BaseLogParser> parsers, long[] tries, long[] hits) {
+		for (int i = 0; i < parsers.size(); i++) {
+			if (tries[i] > 0) {
+				long[] parserCounts = counts.computeIfAbsent(parsers.get(i).getClass().getSimpleName(), k -> new long[2]);
+				parserCounts[0] += tries[i];
+				parserCounts[1] += hits[i];
+			}
+		}
+	}
+
+	public synchronized long getTries(String parserName) {
+		return counts.containsKey(parserName) ? counts.get(parserName)[0] : 0;
+	}
+
+	public synchronized long getHits(String parserName) {
+		return counts.containsKey(parserName) ? counts.get(parserName)[1] : 0;
+	}
+
+	public synchronized Map<String, long[]> getCounts() {
+		Map<String, long[]> copy = new LinkedHashMap<String, long[]>();
+		for (String parserName : counts.keySet()) {
+			copy.put(parserName, counts.get(parserName).clone());
+		}
+		return copy;
+	}
+}
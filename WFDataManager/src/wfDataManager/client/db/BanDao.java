@@ -3,6 +3,7 @@ package wfDataManager.client.db;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.Map;
@@ -125,12 +126,17 @@ public final class BanDao {
 		return data;
 	}
 
-	public static void updateBanDataReferences(String oldUID, String newUID) {
-		Connection conn = null;
+	/**
+	 * Moves any ban references for the given old UID over to the given new UID, as part of the given connection's transaction
+	 * @param conn
+	 * @param oldUID
+	 * @param newUID
+	 * @throws SQLException
+	 */
+	public static void updateBanDataReferences(Connection conn, String oldUID, String newUID) throws SQLException {
 		PreparedStatement ps = null;
 
 		try {
-			conn = ResourceManager.getDBConnection();
 			ps = conn.prepareStatement("UPDATE CURRENT_BANS SET UID=? WHERE UID=?");
 			ps.setString(1, newUID);
 			ps.setString(2, oldUID);
@@ -144,11 +150,8 @@ public final class BanDao {
 			ps.setString(2, oldUID);
 			result = ps.executeUpdate();
 			Log.info(LOG_ID + ".updateBanDataReferences() : Updated " + result + " current marked player references for old UID " + oldUID);
-
-		} catch (Exception e) {
-			Log.error(LOG_ID + ".updateBanDataReferences() : Exception updating ban data -> " + e.getLocalizedMessage());
 		} finally {
-			ResourceManager.releaseResources(conn, ps);
+			ResourceManager.releaseResources(ps);
 		}
 
 	}
@@ -4,15 +4,18 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.regex.Pattern;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -44,8 +47,275 @@ import wfDataModel.service.type.WeaponType;
 public final class GameDataDao {
 
 	private static final String LOG_ID = GameDataDao.class.getSimpleName();
+	private static final int PROFILE_FETCH_SIZE = 400; // Max players to fetch profiles for per query, to stay well under SQLite's limit on query parameters
+	private static final int ITEM_FETCH_SIZE = 200; // Max items to find matches for per query
+
+	/**
+	 * Updates the stored data for the given players. <br>
+	 * All of their profiles are fetched up front, and any player who is new or whose profile still has the same UID is stored in batches,
+	 * with their stats added on via an upsert. Any player whose identity has changed (i.e. their UID changed, or they need to be merged with other profiles),
+	 * or who shares a UID or account ID with another player being stored, is stored afterwards one at a time via {@link #updatePlayerDataIndividually(Connection, Collection, GameDataType, List)}. <br>
+	 * Everything, including any ban and tracker references moved to a new UID, is done on the given connection, and any error is thrown so that it can all be rolled back together. 
+	 * Any cached ban and tracker data is only moved to a new UID by the actions added to the given list, which are to be run once the connection's transaction is committed
+	 * @param conn
+	 * @param players
+	 * @param dataType
+	 * @param onCommit
+	 * @throws SQLException
+	 * @throws ProcessingException
+	 */
+	public static void updatePlayerData(Connection conn, Collection<PlayerData> players, GameDataType dataType, List<Runnable> onCommit) throws SQLException, ProcessingException {
+		PreparedStatement psInsertProfile = null;
+		PreparedStatement psUpdateAID = null;
+		PreparedStatement psUpdateName = null;
+		PreparedStatement psUpdatePlatform = null;
+		PreparedStatement psUpsert = null;
+		List<PlayerData> newProfiles = new ArrayList<PlayerData>();
+		List<PlayerData> aidUpdates = new ArrayList<PlayerData>();
+		List<PlayerData> nameUpdates = new ArrayList<PlayerData>();
+		List<PlayerData> platformUpdates = new ArrayList<PlayerData>();
+		List<PlayerData> upserts = new ArrayList<PlayerData>();
+		List<PlayerData> identityChanges = new ArrayList<PlayerData>();
+
+		try {
+			List<PlayerData> toStore = new ArrayList<PlayerData>(players.size());
+			Map<String, Integer> uidCounts = new HashMap<String, Integer>(players.size());
+			Map<String, Integer> aidCounts = new HashMap<String, Integer>(players.size());
+			for (PlayerData data : players) {
+				if (MiscUtil.isEmpty(data.getPlayerName()) || MiscUtil.isEmpty(data.getUID())) {
+					Log.warn(LOG_ID + ".updatePlayerData() : Ignoring player with missing data -> name=" + data.getPlayerName() + ", uid=" + data.getUID());
+					continue;
+				}
+				toStore.add(data);
+				uidCounts.merge(data.getUID(), 1, Integer::sum);
+				if (!MiscUtil.isEmpty(data.getAccountID())) {
+					aidCounts.merge(data.getAccountID(), 1, Integer::sum);
+				}
+			}
+
+			Map<String, DBPlayerData> profilesByUID = new HashMap<String, DBPlayerData>(toStore.size());
+			Map<String, List<DBPlayerData>> profilesByAID = new HashMap<String, List<DBPlayerData>>(toStore.size());
+			getPlayerProfiles(conn, toStore, profilesByUID, profilesByAID);
+
+			for (PlayerData data : toStore) {
+				// Players that share a UID or account ID with another player here could end up changing each other's profiles, 
+				// so these are stored one at a time after everyone else so that each of them sees the profiles as they are by then
+				if (uidCounts.get(data.getUID()) > 1 || (!MiscUtil.isEmpty(data.getAccountID()) && aidCounts.get(data.getAccountID()) > 1)) {
+					identityChanges.add(data);
+					continue;
+				}
+
+				DBPlayerData dbPlayer = profilesByUID.get(data.getUID());
+				List<DBPlayerData> aidProfiles = MiscUtil.isEmpty(data.getAccountID()) ? null : profilesByAID.get(data.getAccountID());
+				int numProfiles = dbPlayer != null ? 1 : 0;
+				if (aidProfiles != null) {
+					for (DBPlayerData aidProfile : aidProfiles) {
+						if (aidProfile != dbPlayer) {
+							numProfiles++;
+						}
+					}
+				}
+
+				if (numProfiles > 1 || (numProfiles == 1 && dbPlayer == null)) {
+					// Either needs to be merged with other profiles, or was found by account ID under a different UID
+					identityChanges.add(data);
+				} else if (dbPlayer == null) {
+					newProfiles.add(data);
+					upserts.add(data);
+				} else {
+					String curDBAID = dbPlayer.getCurDBAID();
+					String curDBName = dbPlayer.getCurDBName();
+
+					// If no DB accountID is set, or DB one doesn't equal the current one,
+					// and it's either missing for historical mode or otherwise just empty / not matching for regular mode,
+					// then we'll update it
+					if (!MiscUtil.isEmpty(data.getAccountID()) && ((MiscUtil.isEmpty(curDBAID) || !curDBAID.equals(data.getAccountID())) && ((GameDataType.HISTORICAL_GAME_DATA.equals(dataType) && MiscUtil.isEmpty(curDBAID)) || GameDataType.GAME_DATA.equals(dataType)))) {
+						if (psUpdateAID == null) {
+							psUpdateAID = conn.prepareStatement("UPDATE PLAYER_PROFILE SET AID=? WHERE UID=?");
+						}
+						psUpdateAID.setString(1, data.getAccountID());
+						psUpdateAID.setString(2, data.getUID());
+						psUpdateAID.addBatch();
+						aidUpdates.add(data);
+						Log.info(LOG_ID + ".updatePlayerData() : Updating player data AcctID from " + curDBAID + " to " + data.getAccountID() + " for player " + data.getUID());
+					}
+
+					if (!curDBName.equals(data.getPlayerName()) && (GameDataType.HISTORICAL_GAME_DATA.equals(dataType) || GameDataType.GAME_DATA.equals(dataType))) {
+						if (psUpdateName == null) {
+							if (GameDataType.HISTORICAL_GAME_DATA.equals(dataType)) {
+								psUpdateName = conn.prepareStatement("UPDATE PLAYER_PROFILE SET PAST_NAMES = ? WHERE UID=?");
+							} else {
+								psUpdateName = conn.prepareStatement("UPDATE PLAYER_PROFILE SET NAME = ?, PAST_NAMES = ? WHERE UID=?");
+							}
+						}
+
+						Set<String> pastNamesArr = !MiscUtil.isEmpty(dbPlayer.getPastNames()) ? new Gson().fromJson(dbPlayer.getPastNames(), new TypeToken<HashSet<String>>(){}.getType()) : new HashSet<String>();
+
+						if (GameDataType.HISTORICAL_GAME_DATA.equals(dataType)) {
+							pastNamesArr.add(data.getPlayerName());
+							psUpdateName.setString(1, new Gson().toJson(pastNamesArr));
+							psUpdateName.setString(2, data.getUID());
+						} else {
+							pastNamesArr.add(curDBName);
+							psUpdateName.setString(1, data.getPlayerName());
+							psUpdateName.setString(2, new Gson().toJson(pastNamesArr));
+							psUpdateName.setString(3, data.getUID());
+						}
+						psUpdateName.addBatch();
+						nameUpdates.add(data);
+						Log.info(LOG_ID + ".updatePlayerData() : Updating player name from " + curDBName + " to " + data.getPlayerName() + " for ID " + data.getUID());
+					}
+
+					// Ignore if this is for Historical since we don't want to set their platform to an older one
+					if (dbPlayer.getCurPlatform() != data.getPlatform() && GameDataType.GAME_DATA.equals(dataType)) {
+						if (psUpdatePlatform == null) {
+							psUpdatePlatform = conn.prepareStatement("UPDATE PLAYER_PROFILE SET PLATFORM = ? WHERE UID = ?");
+						}
+						psUpdatePlatform.setInt(1, data.getPlatform());
+						psUpdatePlatform.setString(2, data.getUID());
+						psUpdatePlatform.addBatch();
+						platformUpdates.add(data);
+						Log.info(LOG_ID + ".updatePlayerData() : Updating player platform from " + dbPlayer.getCurPlatform() + " to " + data.getPlatform() + " for ID " + data.getUID());
+					}
+					upserts.add(data);
+				}
+			}
+
+			if (!newProfiles.isEmpty()) {
+				psInsertProfile = conn.prepareStatement("INSERT INTO PLAYER_PROFILE (NAME, UID, AID, PLATFORM) VALUES (?,?,?,?)");
+				for (PlayerData data : newProfiles) {
+					psInsertProfile.setString(1, data.getPlayerName());
+					psInsertProfile.setString(2, data.getUID());
+					psInsertProfile.setString(3, data.getAccountID());
+					psInsertProfile.setInt(4, data.getPlatform());
+					psInsertProfile.addBatch();
+				}
+				checkBatch(psInsertProfile.executeBatch(), newProfiles, "insert player profile");
+			}
+			if (psUpdateAID != null) {
+				checkBatch(psUpdateAID.executeBatch(), aidUpdates, "update player data AcctID");
+			}
+			if (psUpdateName != null) {
+				checkBatch(psUpdateName.executeBatch(), nameUpdates, "update player profile name");
+			}
+			if (psUpdatePlatform != null) {
+				checkBatch(psUpdatePlatform.executeBatch(), platformUpdates, "update player profile platform");
+			}
+
+			if (!upserts.isEmpty()) {
+				psUpsert = conn.prepareStatement("INSERT INTO PLAYER_DATA (UID,KILLS,DEATHS,MECHANICS,GOALS,PASSES,INTERCEPTIONS,CAPTURES,ROUNDS,LAST_SEEN) VALUES(?,?,?,?,?,?,?,?,?,CURRENT_DATE) "
+						+ "ON CONFLICT(UID) DO UPDATE SET KILLS = KILLS + excluded.KILLS, DEATHS = DEATHS + excluded.DEATHS, MECHANICS = MECHANICS + excluded.MECHANICS, GOALS = GOALS + excluded.GOALS, PASSES = PASSES + excluded.PASSES, "
+						+ "INTERCEPTIONS = INTERCEPTIONS + excluded.INTERCEPTIONS, CAPTURES = CAPTURES + excluded.CAPTURES, ROUNDS = ROUNDS + excluded.ROUNDS, LAST_SEEN = CURRENT_DATE");
+				for (PlayerData data : upserts) {
+					boolean isLunaro = data.isForLunaro();
+					psUpsert.setString(1, data.getUID());
+					psUpsert.setInt(2, isLunaro ? 0 : data.getKills());
+					psUpsert.setInt(3, isLunaro ? 0 : data.getDeaths());
+					psUpsert.setInt(4, isLunaro ? 0 : data.getMechanics());
+					psUpsert.setInt(5, isLunaro ? data.getMechanics() : 0);
+					psUpsert.setInt(6, isLunaro ? data.getKills() : 0);
+					psUpsert.setInt(7, isLunaro ? data.getDeaths() : 0 );
+					psUpsert.setInt(8, data.getCaptures());
+					psUpsert.setInt(9, data.getRounds());
+					psUpsert.addBatch();
+				}
+				checkBatch(psUpsert.executeBatch(), upserts, "update player data");
+			}
+		} finally {
+			ResourceManager.releaseResources(psInsertProfile, psUpdateAID, psUpdateName, psUpdatePlatform, psUpsert);
+		}
 
-	public static void updatePlayerData(Connection conn, Collection<PlayerData> players, GameDataType dataType) {
+		if (!identityChanges.isEmpty()) {
+			updatePlayerDataIndividually(conn, identityChanges, dataType, onCommit);
+		}
+	}
+
+	/**
+	 * Fetches the profiles of the given players, looking them up by both UID and account ID. 
+	 * The found profiles are put into the given maps, keyed by their UID and account ID respectively
+	 * @param conn
+	 * @param players
+	 * @param profilesByUID
+	 * @param profilesByAID
+	 * @throws SQLException
+	 */
+	private static void getPlayerProfiles(Connection conn, List<PlayerData> players, Map<String, DBPlayerData> profilesByUID, Map<String, List<DBPlayerData>> profilesByAID) throws SQLException {
+		for (int start = 0; start < players.size(); start += PROFILE_FETCH_SIZE) {
+			List<PlayerData> chunk = players.subList(start, Math.min(start + PROFILE_FETCH_SIZE, players.size()));
+			List<String> aids = new ArrayList<String>(chunk.size());
+			for (PlayerData data : chunk) {
+				if (!MiscUtil.isEmpty(data.getAccountID())) {
+					aids.add(data.getAccountID());
+				}
+			}
+
+			String sql = "SELECT NAME AS PLAYER, PAST_NAMES, PAST_UIDS, UID, AID, PLATFORM FROM PLAYER_PROFILE WHERE UID IN (" + DBUtil.createPlaceholders(chunk.size()) + ")";
+			if (!aids.isEmpty()) {
+				sql += " OR (AID IS NOT NULL AND AID IN (" + DBUtil.createPlaceholders(aids.size()) + "))";
+			}
+
+			PreparedStatement ps = null;
+			ResultSet rs = null;
+			try {
+				ps = conn.prepareStatement(sql);
+				int param = 1;
+				for (PlayerData data : chunk) {
+					ps.setString(param++, data.getUID());
+				}
+				for (String aid : aids) {
+					ps.setString(param++, aid);
+				}
+				rs = ps.executeQuery();
+				while (rs.next()) {
+					String uid = rs.getString("UID");
+					if (profilesByUID.containsKey(uid)) {
+						continue; // Already found via an earlier chunk
+					}
+					DBPlayerData dbPlayer = new DBPlayerData();
+					dbPlayer.setCurDBName(rs.getString("PLAYER"));
+					dbPlayer.setCurDBUID(uid);
+					dbPlayer.setCurDBAID(rs.getString("AID"));
+					dbPlayer.setCurPlatform(rs.getInt("PLATFORM"));
+					dbPlayer.setPastNames(rs.getString("PAST_NAMES"));
+					dbPlayer.setPastUIDs(rs.getString("PAST_UIDS"));
+					profilesByUID.put(uid, dbPlayer);
+					if (!MiscUtil.isEmpty(dbPlayer.getCurDBAID())) {
+						profilesByAID.computeIfAbsent(dbPlayer.getCurDBAID(), k -> new ArrayList<DBPlayerData>(1)).add(dbPlayer);
+					}
+				}
+			} finally {
+				ResourceManager.releaseResources(rs);
+				ResourceManager.releaseResources(ps);
+			}
+		}
+	}
+
+	/**
+	 * Logs a warning for any player whose row in the given batch results did not update exactly one row
+	 * @param results
+	 * @param players
+	 * @param action
+	 */
+	private static void checkBatch(int[] results, List<PlayerData> players, String action) {
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != 1 && results[i] != Statement.SUCCESS_NO_INFO) {
+				PlayerData data = players.get(i);
+				Log.warn(LOG_ID + ".updatePlayerData() : May not have managed to " + action + " for player=" + data.getPlayerName() + " (" + data.getUID() + "), result count = " + results[i]);
+			}
+		}
+	}
+
+	/**
+	 * Updates the stored data for the given players one at a time, fetching each one's profiles as they are at that point. 
+	 * This handles any change to a player's identity, such as their UID changing or merging them with other profiles
+	 * @param conn
+	 * @param players
+	 * @param dataType
+	 * @param onCommit
+	 * @throws SQLException
+	 * @throws ProcessingException
+	 */
+	private static void updatePlayerDataIndividually(Connection conn, Collection<PlayerData> players, GameDataType dataType, List<Runnable> onCommit) throws SQLException, ProcessingException {
 		PreparedStatement psSelect = null;
 		PreparedStatement psInsert = null;
 		PreparedStatement psInsertProfile = null;
@@ -168,10 +438,10 @@ public final class GameDataDao {
 								// Otherwise for game data, then update other tables to reflect new UID
 
 								// STEP 2: Update ban data
-								BanManagerCache.singleton().updateBanData(curDBUID, data.getUID());
+								BanManagerCache.singleton().updateBanData(conn, curDBUID, data.getUID(), onCommit);
 
 								// STEP 3: Update tracker data
-								PlayerTrackerCache.singleton().updatePlayerTracker(curDBUID, data.getUID());
+								PlayerTrackerCache.singleton().updatePlayerTracker(conn, curDBUID, data.getUID(), onCommit);
 
 								// STEP 4: Update player data
 								psUpdateData = conn.prepareStatement("UPDATE PLAYER_DATA SET UID=? WHERE UID=?");
@@ -309,8 +579,6 @@ public final class GameDataDao {
 				}
 
 			}
-		} catch (Exception e) {
-			Log.error(LOG_ID + ".updatePlayerData() : Error occurred -> " + e.getLocalizedMessage());
 		} finally {
 			ResourceManager.releaseResources(rs);
 			ResourceManager.releaseResources(psSelect, psInsert, psInsertProfile, psUpdate, psUpdateData);
@@ -453,89 +721,85 @@ public final class GameDataDao {
 		return numUpdated;
 	}
 
-	public static void updateWeaponData(Connection conn, Collection<PlayerData> players) throws SQLException {
-		for (PlayerData player : players) {
-			updateWeaponData(conn, player.getWeaponKills());
+	/**
+	 * Adds the given kills for each weapon to the stored weapon totals as one batch. Any weapon that does not have any info stored yet will have it added
+	 * @param conn
+	 * @param weaponKills
+	 * @throws SQLException
+	 */
+	public static void updateWeaponData(Connection conn, Map<String, Integer> weaponKills) throws SQLException {
+		if (MiscUtil.isEmpty(weaponKills)) {
+			return;
 		}
-	}
 
-	public static void updateWeaponData(Connection conn, Map<String, Integer> weaponKills) throws SQLException {
-		PreparedStatement psUpdate = null;
-		PreparedStatement psInsert = null;
+		PreparedStatement psUpsert = null;
 		PreparedStatement psInsertInfo = null;
 
 		try {
+			psUpsert = conn.prepareStatement("INSERT INTO WEAPON_DATA (WEAPON,KILLS) VALUES(?,?) ON CONFLICT(WEAPON) DO UPDATE SET KILLS = KILLS + excluded.KILLS");
+			psInsertInfo = conn.prepareStatement("INSERT INTO WEAPON_INFO (WEAPON, WEAPON_REAL, WEAPON_TYPE) VALUES (?,?,?) ON CONFLICT(WEAPON) DO NOTHING");
+			List<String> weapons = new ArrayList<String>(weaponKills.keySet());
+
+			for (String weapon : weapons) {
+				psUpsert.setString(1, weapon);
+				psUpsert.setInt(2, weaponKills.get(weapon));
+				psUpsert.addBatch();
+
+				WeaponData wepData = WarframeItemCache.singleton().getItemInfo(weapon);
+				psInsertInfo.setString(1, weapon);
+				psInsertInfo.setString(2, wepData == null ? null : wepData.getRealName());
+				psInsertInfo.setString(3, wepData == null || wepData.getType() == null ? WeaponType.UNKNOWN.name() : wepData.getType().name());
+				psInsertInfo.addBatch();
+			}
 
-			psUpdate = conn.prepareStatement("UPDATE WEAPON_DATA SET KILLS=KILLS + ? WHERE WEAPON=?");
-
-			for (String weapon : weaponKills.keySet()) {
-				psUpdate.setInt(1, weaponKills.get(weapon));
-				psUpdate.setString(2, weapon);
-				int result = psUpdate.executeUpdate();
-
-				// In this case, need to add them to DB
-				if (result != 1) {
-					if (psInsert == null) {
-						psInsert = conn.prepareStatement("INSERT INTO WEAPON_DATA (WEAPON,KILLS) VALUES(?,?)");
-						psInsertInfo = conn.prepareStatement("INSERT INTO WEAPON_INFO (WEAPON, WEAPON_REAL, WEAPON_TYPE) VALUES (?,?,?)");
-					}
-					psInsert.setString(1, weapon);
-					psInsert.setInt(2, weaponKills.get(weapon));
-					result = psInsert.executeUpdate();
-
-					WeaponData wepData = WarframeItemCache.singleton().getItemInfo(weapon);
-					psInsertInfo.setString(1, weapon);
-					psInsertInfo.setString(2, wepData == null ? null : wepData.getRealName());
-					psInsertInfo.setString(3, wepData == null || wepData.getType() == null ? WeaponType.UNKNOWN.name() : wepData.getType().name());
-					result = psInsertInfo.executeUpdate();
-				}
-
-				if (result != 1) {
-					Log.warn(LOG_ID + ".updateWeaponData() : Did not update weapon data for " + weapon);
+			int[] results = psUpsert.executeBatch();
+			for (int i = 0; i < results.length; i++) {
+				if (results[i] != 1 && results[i] != Statement.SUCCESS_NO_INFO) {
+					Log.warn(LOG_ID + ".updateWeaponData() : Did not update weapon data for " + weapons.get(i));
 				}
 			}
-
-
+			psInsertInfo.executeBatch(); // Most of these will already have info, so nothing to check here
 		} finally {
-			ResourceManager.releaseResources(psUpdate, psInsert, psInsertInfo);
+			ResourceManager.releaseResources(psUpsert, psInsertInfo);
 		}
 	}
 
-	public static void addDailyWeaponData(Connection conn, Collection<PlayerData> players, LocalDate dailyDate) throws SQLException {
-		for (PlayerData player : players) {
-			addDailyWeaponData(conn, player.getWeaponKills(), dailyDate);
+	/**
+	 * Adds the given kills for each date and weapon to the stored daily weapon totals as one batch
+	 * @param conn
+	 * @param dailyWeaponKills
+	 * @throws SQLException
+	 */
+	public static void addDailyWeaponData(Connection conn, Map<LocalDate, Map<String, Integer>> dailyWeaponKills) throws SQLException {
+		if (MiscUtil.isEmpty(dailyWeaponKills)) {
+			return;
 		}
-	}
 
-	public static void addDailyWeaponData(Connection conn, Map<String, Integer> weaponKills, LocalDate dailyDate) throws SQLException {
-		PreparedStatement psUpdate = null;
-		PreparedStatement psInsert = null;
+		PreparedStatement psUpsert = null;
 
 		try {
-			psUpdate = conn.prepareStatement("UPDATE DAILY_WEAPON_DATA SET KILLS = KILLS + ? WHERE WEAPON = ? AND DATE = ?");
-
-			for (String weapon : weaponKills.keySet()) {
-				psUpdate.setInt(1, weaponKills.get(weapon));
-				psUpdate.setString(2, weapon);
-				psUpdate.setObject(3, dailyDate);
-				int result = psUpdate.executeUpdate();
-
-				if (result != 1) {
-					if (psInsert == null) {
-						psInsert = conn.prepareStatement("INSERT INTO DAILY_WEAPON_DATA (DATE,WEAPON,KILLS) VALUES(?,?,?)");
-					}
-					psInsert.setObject(1, dailyDate);
-					psInsert.setString(2, weapon);
-					psInsert.setInt(3, weaponKills.get(weapon));
+			psUpsert = conn.prepareStatement("INSERT INTO DAILY_WEAPON_DATA (DATE,WEAPON,KILLS) VALUES(?,?,?) ON CONFLICT(DATE,WEAPON) DO UPDATE SET KILLS = KILLS + excluded.KILLS");
+			List<String> weapons = new ArrayList<String>();
+
+			for (LocalDate dailyDate : dailyWeaponKills.keySet()) {
+				Map<String, Integer> weaponKills = dailyWeaponKills.get(dailyDate);
+				for (String weapon : weaponKills.keySet()) {
+					psUpsert.setObject(1, dailyDate);
+					psUpsert.setString(2, weapon);
+					psUpsert.setInt(3, weaponKills.get(weapon));
+					psUpsert.addBatch();
+					weapons.add(weapon);
+				}
+			}
 
-					result = psInsert.executeUpdate();
-					if (result != 1) {
-						Log.warn(LOG_ID + ".addDailyWeaponData() : Did not add weapon data for " + weapon);
-					}
+			int[] results = psUpsert.executeBatch();
+			for (int i = 0; i < results.length; i++) {
+				if (results[i] != 1 && results[i] != Statement.SUCCESS_NO_INFO) {
+					Log.warn(LOG_ID + ".addDailyWeaponData() : Did not add weapon data for " + weapons.get(i));
 				}
 			}
 		} finally {
-			ResourceManager.releaseResources(psUpdate, psInsert);
+			ResourceManager.releaseResources(psUpsert);
 		}
 	}
 
@@ -561,6 +825,77 @@ public final class GameDataDao {
 		return matches;
 	}
 
+	/**
+	 * Finds the items in the DB whose name starts with each of the given item keys (case-insensitive, with the same wildcards as LIKE). 
+	 * Items are looked up with one query per batch of item keys, rather than one per item key. <br>
+	 * Returns a map of item key -> all matching item names, which will have an entry for every given item key
+	 * @param itemKeys
+	 * @return
+	 * @throws SQLException
+	 */
+	public static Map<String, List<String>> findMatchingItems(Collection<String> itemKeys) throws SQLException {
+		Connection conn = null;
+		Map<String, List<String>> matches = new HashMap<String, List<String>>();
+		List<String> keys = new ArrayList<String>(itemKeys);
+		try {
+			conn = ResourceManager.getDBConnection(); 
+			for (int start = 0; start < keys.size(); start += ITEM_FETCH_SIZE) {
+				List<String> chunk = keys.subList(start, Math.min(start + ITEM_FETCH_SIZE, keys.size()));
+				List<Pattern> patterns = new ArrayList<Pattern>(chunk.size());
+				StringBuilder sql = new StringBuilder("SELECT WEAPON FROM WEAPON_INFO WHERE ");
+				for (int i = 0; i < chunk.size(); i++) {
+					sql.append(i > 0 ? " OR " : "").append("LOWER(WEAPON) LIKE LOWER(?)");
+					patterns.add(toPrefixPattern(chunk.get(i)));
+					matches.put(chunk.get(i), new ArrayList<String>(1));
+				}
+
+				PreparedStatement ps = null;
+				ResultSet rs = null;
+				try {
+					ps = conn.prepareStatement(sql.toString());
+					for (int i = 0; i < chunk.size(); i++) {
+						ps.setString(i + 1, chunk.get(i) + "%");
+					}
+					rs = ps.executeQuery();
+					while (rs.next()) {
+						// Each row matched at least one of the keys, so find which ones
+						String weapon = rs.getString("WEAPON");
+						for (int i = 0; i < chunk.size(); i++) {
+							if (patterns.get(i).matcher(weapon).matches()) {
+								matches.get(chunk.get(i)).add(weapon);
+							}
+						}
+					}
+				} finally {
+					ResourceManager.releaseResources(rs);
+					ResourceManager.releaseResources(ps);
+				}
+			}
+		} finally {
+			ResourceManager.releaseResources(conn);
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns a pattern that matches the same values that LIKE would for the given item key followed by a '%' wildcard
+	 * @param itemKey
+	 * @return
+	 */
+	private static Pattern toPrefixPattern(String itemKey) {
+		StringBuilder regex = new StringBuilder(itemKey.length() + 8);
+		for (char c : itemKey.toCharArray()) {
+			if (c == '_') {
+				regex.append('.');
+			} else if (c == '%') {
+				regex.append(".*");
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.append(".*").toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	}
+
 	public static SortedMap<String, WeaponType> findUnmappedItems() {
 		Connection conn = null;
 		PreparedStatement ps = null;
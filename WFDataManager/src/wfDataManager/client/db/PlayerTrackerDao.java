@@ -3,6 +3,7 @@ package wfDataManager.client.db;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -99,12 +100,29 @@ public final class PlayerTrackerDao {
 	
 	public static void updatePlayerTracker(PlayerTracker tracker, String newUID) {
 		Connection conn = null;
+		try {
+			conn = ResourceManager.getDBConnection();
+			updatePlayerTracker(conn, tracker, newUID);
+		} catch (Exception e) {
+			Log.error(LOG_ID + ".updatePlayerTracker() : Exception trying to update tracked player -> ", e);
+		} finally {
+			ResourceManager.releaseResources(conn);
+		}
+	}
+
+	/**
+	 * Updates the given tracked player as part of the given connection's transaction. If a new UID is given, the tracker's UID is remapped to it
+	 * @param conn
+	 * @param tracker
+	 * @param newUID
+	 * @throws SQLException
+	 */
+	public static void updatePlayerTracker(Connection conn, PlayerTracker tracker, String newUID) throws SQLException {
 		PreparedStatement ps = null;
 		boolean remapUID = !MiscUtil.isEmpty(newUID);
 		String sql = !remapUID ? "UPDATE TRACKED_PLAYERS SET KNOWN_IPS=?, KNOWN_ALTS=? WHERE UID=?" : "UPDATE TRACKED_PLAYERS SET KNOWN_IPS=?, KNOWN_ALTS=?, UID=? WHERE UID=?";
 			
 		try {
-			conn = ResourceManager.getDBConnection();
 			ps = conn.prepareStatement(sql);
 			ps.setString(1, new Gson().toJson(tracker.getKnownIPs()));
 			ps.setString(2, new Gson().toJson(tracker.getKnownAlts()));
@@ -118,10 +136,8 @@ public final class PlayerTrackerDao {
 			if (updated != 1) {
 				Log.warn(LOG_ID + ".updatePlayerTracker() : Did not update tracked player in DB? uid=" + tracker.getUID());
 			}
-		} catch (Exception e) {
-			Log.error(LOG_ID + ".updatePlayerTracker() : Exception trying to update tracked player -> ", e);
 		} finally {
-			ResourceManager.releaseResources(conn, ps);
+			ResourceManager.releaseResources(ps);
 		}
 	}
 	
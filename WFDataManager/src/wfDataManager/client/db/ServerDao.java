@@ -1,5 +1,6 @@
 package wfDataManager.client.db;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -33,11 +34,17 @@ public final class ServerDao {
 			ps.setString(1, logId);
 			rs = ps.executeQuery();
 			if (rs.next()) {
-				JsonObject serverDataObj = JsonParser.parseString(rs.getString("DATA")).getAsJsonObject();
-				if (serverDataObj != null) {
-					serverData = new ServerData(logId, serverDataObj);
+				// Data is stored in the binary format, but may still be in the older JSON format if it hasn't been updated since
+				byte[] data = rs.getBytes("DATA");
+				if (ServerData.isBinaryDB(data)) {
+					serverData = new ServerData(logId, data);
 				} else {
-					Log.warn(LOG_ID + ".getServerData() : Server data could not be parsed for ID " + logId);
+					JsonObject serverDataObj = JsonParser.parseString(new String(data, StandardCharsets.UTF_8)).getAsJsonObject();
+					if (serverDataObj != null) {
+						serverData = new ServerData(logId, serverDataObj);
+					} else {
+						Log.warn(LOG_ID + ".getServerData() : Server data could not be parsed for ID " + logId);
+					}
 				}
 			}
 
@@ -63,21 +70,36 @@ public final class ServerDao {
 		return serverData;
 	}
 
+	/**
+	 * Updates the stored data for any of the given servers whose state has changed since they were last stored. <br>
+	 * Once the transaction is committed or rolled back, {@link ServerData#markPersisted(boolean)} should be called for each server
+	 * @param conn
+	 * @param serverDatas
+	 */
 	public static void updateServerData(Connection conn, List<ServerData> serverDatas) {
 		PreparedStatement ps = null;
 
 		try {
 			ps = conn.prepareStatement("UPDATE SERVER_DATA SET DATA=? WHERE ID=?");
 			for (ServerData serverData : serverDatas) {
-				ps.setString(1, serverData.getServerDataDB());
+				byte[] data = serverData.getChangedServerDataBinary();
+				if (data == null) {
+					continue; // Nothing changed since last stored
+				}
+				ps.setBytes(1, data);
 				ps.setString(2, serverData.getId());
 				int result = ps.executeUpdate();
 				if (result != 1) {
 					Log.warn(LOG_ID + ".updateServerData() : Did not update server data for id " + serverData.getId());
+					serverData.markPersisted(false);
 				}
 			}
 		} catch (Exception e) {
 			Log.error(LOG_ID + ".updateServerData() : Error occurred -> ", e);
+			// Not sure which were stored, so consider none of them stored so they'll all be stored again next time
+			for (ServerData serverData : serverDatas) {
+				serverData.markPersisted(false);
+			}
 		} finally {
 			ResourceManager.releaseResources(ps);
 		}
@@ -107,14 +129,20 @@ public final class ServerDao {
 		}
 	}
 	
-	public static boolean hasLogBeenProcessed(ServerData serverData) {
+	/**
+	 * Returns true if the given server's current log, launched from the given directory, has already been marked as processed. <br>
+	 * The directory is given separately since it is checked as soon as it is parsed, before the server itself has been updated with it
+	 * @param serverData
+	 * @param serverDir
+	 * @return
+	 */
+	public static boolean hasLogBeenProcessed(ServerData serverData, String serverDir) {
 		Connection conn = null;
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		boolean hasData = false;
 		int logId = serverData.getNumericId();
 		long logTime = serverData.getTimeStats().getStartTimeEpoch();
-		String serverDir = serverData.getCurrentLaunchDir();
 		String id = String.valueOf(serverDir.hashCode() + logId);
 
 		try {
@@ -12,6 +12,7 @@ import jdtools.exception.ProcessingException;
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
 import wfDataManager.client.cache.BanManagerCache;
+import wfDataManager.client.cache.WarframeItemCache;
 import wfDataManager.client.db.DBManagementDao;
 import wfDataManager.client.type.ProcessModeType;
 import wfDataManager.client.util.ClientSettingsUtil;
@@ -102,6 +103,11 @@ public class WFDataManager {
 				}
 			}
 
+			// Build the item cache before any parsing starts, so the parse threads never have to
+			WarframeItemCache.singleton().warmUp();
+			if (ClientSettingsUtil.persist()) {
+				ClientTaskUtil.addTask(ClientTaskUtil.TASK_ITEM_RESOLVER);
+			}
 			ClientTaskUtil.addTask(ClientTaskUtil.TASK_LOG_PROCESSOR);
 
 			CommandProcessor cmdProcessor = new CommandProcessor("wfDataManager.client.commands");
@@ -0,0 +1,50 @@
+package wfDataManager.client.parser.logging;
+
+import java.text.ParseException;
+import java.util.Arrays;
+
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.parser.logging.event.ParseEventSink;
+import wfDataManager.client.parser.logging.event.ServerDataEventSink;
+import wfDataManager.client.type.ParseResultType;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Base class for parsers that do not update the server directly, and instead emit events for what they parsed into a {@link ParseEventBuffer}. <br>
+ * The server is then updated from those events once the buffer is drained. Since the server may not be up to date with everything parsed 
+ * so far while these parse, they should only read from the server for things that parsing cannot change (e.g. the log position at the start of the read)
+ * @author MatNova
+ *
+ */
+public abstract class BaseEventLogParser extends BaseLogParser {
+
+	private ParseEventBuffer directEvents; // Used when not given a buffer, so that events are applied right away
+
+	@Override
+	public ParseResultType parse(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
+		return emit(serverData, events, offset, lastLogTime);
+	}
+
+	@Override
+	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+		if (directEvents == null) {
+			directEvents = new ParseEventBuffer(1, Arrays.<ParseEventSink>asList(new ServerDataEventSink()));
+		}
+		directEvents.start(serverData);
+		ParseResultType result = emit(serverData, directEvents, offset, lastLogTime);
+		directEvents.drain();
+		return result;
+	}
+
+	/**
+	 * Given a server, the current offset, and the last log time, will emit events into the given buffer for the last line provided 
+	 * via the {@link #canParse(String)} method, and will return what the result of that parse was.
+	 * @param serverData
+	 * @param events
+	 * @param offset
+	 * @param lastLogTime
+	 * @return
+	 * @throws ParseException
+	 */
+	protected abstract ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException;
+}
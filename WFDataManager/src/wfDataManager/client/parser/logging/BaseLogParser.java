@@ -4,6 +4,7 @@ import java.text.ParseException;
 import java.util.List;
 import java.util.regex.Matcher;
 
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
 
@@ -16,6 +17,7 @@ public abstract class BaseLogParser {
 	
 	protected String LOG_ID = getClass().getSimpleName();
 	protected final List<Matcher> matchers = initMatchers();
+	protected final List<String> keywords = initKeywords();
 
 	/**
 	 * Given a line, will return if this parser can do anything with it. <br>
@@ -24,24 +26,54 @@ public abstract class BaseLogParser {
 	 * @return
 	 */
 	public boolean canParse(String line) {
-		reset(); // Reset our matchers before checking
-		return matchers.stream().anyMatch(m -> m.reset(line).matches());
+		// Any matchers that aren't tried against this line are reset to avoid duplicates matching in different parses
+		// e.g. if the last matcher in our list matches on one line, and then the first one matches on the next,
+		// we'd want to ensure that when parsing the second match, the last matcher is not marked as matching to 
+		// avoid confusion on what actually matched for that parse
+		boolean matched = false;
+		for (int i = 0; i < matchers.size(); i++) {
+			Matcher m = matchers.get(i);
+			if (matched) {
+				m.reset("");
+			} else {
+				matched = m.reset(line).matches();
+			}
+		}
+		return matched;
 	}
 	
-	// We reset the matchers here to avoid duplicates matching in different parses
-	// e.g. if the last matcher in our list matches on one line, and then the first one matches on the next,
-	// we'd want to ensure that when parsing the second match, the last matcher is not marked as matching to 
-	// avoid confusion on what actually matched for that parse
-	private void reset() {
-		matchers.stream().forEach(m -> m.reset(""));
+	/**
+	 * Returns the literal keywords for this parser. Any line this parser can parse will contain at least one of these
+	 * @return
+	 */
+	public List<String> getKeywords() {
+		return keywords;
 	}
 	
+	/**
+	 * Returns true if this parser must be tried before any other candidate parsers for a line, regardless of how often they match. <br>
+	 * Parsers are otherwise reordered based on how often they match, so this should be true for any parser whose results 
+	 * control how the rest of the log is read (e.g. where to skip to, or when mission stats start and end)
+	 * @return
+	 */
+	public boolean isOrderSensitive() {
+		return false;
+	}
+
 	/**
 	 * Initializes the matchers that are relevant for this parser implementation and returns them
 	 * @return
 	 */
 	protected abstract List<Matcher> initMatchers();
 	
+	/**
+	 * Initializes the literal keywords that are required by the matchers for this parser and returns them. <br>
+	 * Every line that one of the matchers can match must contain at least one of these keywords as-is, 
+	 * since lines are only given to this parser if one of them is found in it. Keywords must be ASCII
+	 * @return
+	 */
+	protected abstract List<String> initKeywords();
+	
 	/**
 	 * Given a server, the current offset, and the last log time, will parse the last provided line via the {@link #canParse(String)} method,
 	 * and will return what the result of that parse was.
@@ -52,4 +84,21 @@ public abstract class BaseLogParser {
 	 * @throws ParseException
 	 */
 	public abstract ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException;
+
+	/**
+	 * Same as {@link #parse(ServerData, long, long)}, but is also given the buffer that the events parsed for this server are emitted into. <br>
+	 * By default, this will drain the buffer first so that the server is up to date with everything parsed before this line,
+	 * and then parse the line directly against the server. This is only meant for parsers that decide how the rest of the log is read (i.e. {@link CurrentTimeParser}),
+	 * since it breaks up the batches events are applied in. Any other parser should emit events instead by extending {@link BaseEventLogParser}
+	 * @param serverData
+	 * @param events
+	 * @param offset
+	 * @param lastLogTime
+	 * @return
+	 * @throws ParseException
+	 */
+	public ParseResultType parse(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
+		events.drain();
+		return parse(serverData, offset, lastLogTime);
+	}
 }
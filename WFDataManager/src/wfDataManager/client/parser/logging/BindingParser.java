@@ -1,10 +1,13 @@
 package wfDataManager.client.parser.logging;
 
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
 
@@ -13,7 +16,7 @@ import wfDataModel.model.data.ServerData;
  * 
  * @author MatNova
  */
-public class BindingParser extends BaseLogParser {
+public class BindingParser extends BaseEventLogParser {
 
 	private Matcher BINDING_PATTERN;
 	private Matcher LOCAL_BINDING_PATTERN;
@@ -26,11 +29,16 @@ public class BindingParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) {
+	protected List<String> initKeywords() {
+		return Arrays.asList("Binding server address: ", "Local binding: ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		if (BINDING_PATTERN.matches()) {
-			serverData.addProxyServer(BINDING_PATTERN.group(1));
+			events.emit(ParseEventType.PROXY_BINDING, offset, lastLogTime).setIPAndPort(BINDING_PATTERN.group(1));
 		} else {
-			serverData.setServerPort(Integer.valueOf(LOCAL_BINDING_PATTERN.group(1)));
+			events.emit(ParseEventType.SERVER_PORT, offset, lastLogTime).setNumber(Integer.valueOf(LOCAL_BINDING_PATTERN.group(1)));
 		}
 		return ParseResultType.OK;
 	}
@@ -6,19 +6,18 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import jdtools.logging.Log;
-import wfDataManager.client.cache.WarframeItemCache;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
-import wfDataManager.client.type.ProcessModeType;
-import wfDataManager.client.util.ClientSettingsUtil;
 import wfDataModel.model.data.ServerData;
 
 /**
- * Parser for getting and setting the current server build ID
+ * Parser for getting and setting the current server build ID. <br>
+ * Any item cache refresh for a build update is done once the build ID is applied to the server
  * 
  * @author MatNova
  */
-public class BuildIDParser extends BaseLogParser {
+public class BuildIDParser extends BaseEventLogParser {
 
 	private Matcher BUILD_ID_PATTERN;
 	
@@ -29,14 +28,14 @@ public class BuildIDParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+	protected List<String> initKeywords() {
+		return Arrays.asList("Build Label: ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		long buildId = Long.valueOf(BUILD_ID_PATTERN.group(1).replaceAll("\\.", "")); // We create our own build ID from the build label (comprised of date and time), since the actual build IDs in the log are not always sequential
-		
-		// Don't do this if historical. Not needed and will also repeatedly do it as time goes on and builds update
-		if (ProcessModeType.NORMAL.equals(ClientSettingsUtil.getProcessMode()) && serverData.getBuildId() > -1 && buildId > serverData.getBuildId() && WarframeItemCache.singleton().updateCacheIfNeeded(buildId)) {
-			Log.info(LOG_ID + ".parse() : Build update detected, attempted item cache refresh");
-		}
-		serverData.setBuildId(buildId);
+		events.emit(ParseEventType.BUILD_ID, offset, lastLogTime).setNumber(buildId);
 		
 		return ParseResultType.OK;
 	}
@@ -6,9 +6,10 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import jdtools.logging.Log;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
-import wfDataModel.model.data.PlayerData;
+import wfDataModel.model.data.PlayerNameData;
 import wfDataModel.model.data.ServerData;
 import wfDataModel.model.util.PlayerUtil;
 
@@ -17,7 +18,7 @@ import wfDataModel.model.util.PlayerUtil;
  * @author MatNova
  *
  */
-public class CephalonCaptureParser extends BaseLogParser {
+public class CephalonCaptureParser extends BaseEventLogParser {
 
 	private Matcher CAPTURE_CEPHALON_PATTERN;
 
@@ -28,16 +29,14 @@ public class CephalonCaptureParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
-		String playerName = PlayerUtil.cleanPlayerName(CAPTURE_CEPHALON_PATTERN.group(1));
-		int platform = PlayerUtil.getPlatform(CAPTURE_CEPHALON_PATTERN.group(1));
-		PlayerData player = serverData.getPlayerByNameAndPlatform(playerName, platform);
-		if (player != null) {
-			player.setCaptures(player.getCaptures() + 1);
-			player.setLastLogTime(lastLogTime);
-		} else {
-			Log.warn(LOG_ID + ".parse() : Could not match ID to player for Cephalon Capture log, player=" + player);
-		}
+	protected List<String> initKeywords() {
+		return Arrays.asList(" captured the Cephalon");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
+		PlayerNameData nameData = PlayerUtil.parsePlayerName(CAPTURE_CEPHALON_PATTERN.group(1));
+		events.emit(ParseEventType.CAPTURE, offset, lastLogTime).setPlayer(nameData.getName(), nameData.getPlatform());
 		return ParseResultType.OK;
 	}
 
@@ -8,6 +8,8 @@ import java.util.regex.Pattern;
 
 import jdtools.logging.Log;
 import wfDataManager.client.db.ServerDao;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataManager.client.type.ProcessModeType;
 import wfDataManager.client.util.ClientSettingsUtil;
@@ -16,11 +18,11 @@ import wfDataModel.model.data.ServerData;
 /**
  * Parser for getting and setting the current launch directory for the server. <br>
  * If the parsed log time, directory, and log ID has been marked as already processed, this will indicate the log processing should be ended and
- * the log file should be skipped.
+ * the log file should be skipped. The log time is the server's start time, which is only ever set directly by {@link CurrentTimeParser} and so is already up to date
  * @author MatNova
  *
  */
-public class CurrentDirectoryParser extends BaseLogParser {
+public class CurrentDirectoryParser extends BaseEventLogParser {
 
 	private Matcher CURRENT_DIRECTORY_PATTERN;
 
@@ -31,13 +33,18 @@ public class CurrentDirectoryParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+	protected List<String> initKeywords() {
+		return Arrays.asList("Current directory: ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		String curDir = CURRENT_DIRECTORY_PATTERN.group(1);
-		serverData.setCurrentLaunchDir(curDir);
+		events.emit(ParseEventType.LAUNCH_DIR, offset, lastLogTime).setValue(curDir);
 		// This is to properly track and check against logs that were already processed so that we don't process them again.
 		// This can happen if, e.g., a log was processed in normal mode first then in historical mode at a later time
 		// For Test mode, we don't care and ignore this
-		if (!ProcessModeType.TEST.equals(ClientSettingsUtil.getProcessMode()) && ServerDao.hasLogBeenProcessed(serverData)) {
+		if (!ProcessModeType.TEST.equals(ClientSettingsUtil.getProcessMode()) && ServerDao.hasLogBeenProcessed(serverData, curDir)) {
 			Log.info(LOG_ID + ".parse() : Server with timestamp (" + serverData.getTimeStats().getStartTime() + ") for logId " + serverData.getId() + " has already been marked as processed. Will skip this log file.");
 			return ParseResultType.FINISH_LOG;
 		}
@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
 
@@ -14,7 +16,7 @@ import wfDataModel.model.data.ServerData;
  * @author MatNova
  *
  */
-public class CurrentProfileParser extends BaseLogParser {
+public class CurrentProfileParser extends BaseEventLogParser {
 
 	private Matcher CURRENT_PROFILE_PATTERN;
 
@@ -25,9 +27,14 @@ public class CurrentProfileParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+	protected List<String> initKeywords() {
+		return Arrays.asList("Using profile dir ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		String curDir = CURRENT_PROFILE_PATTERN.group(1);
-		serverData.setCurrentProfileDir(curDir);
+		events.emit(ParseEventType.PROFILE_DIR, offset, lastLogTime).setValue(curDir);
 		return ParseResultType.OK;
 	}
 }
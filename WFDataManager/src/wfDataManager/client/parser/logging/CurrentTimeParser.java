@@ -20,7 +20,9 @@ import wfDataModel.model.data.ServerData;
  * If the parsed log time is different than the last parsed one for the given server, this will indicate that a new log 
  * file has started for the given server. This will then reset the server and let it start over from the beginning. <br>
  * Otherwise if the parsed log time is the same as the currently parsed one for the given server, this will indicate
- * that the log can skip ahead to the last parsed log time and continue where it left off.
+ * that the log can skip ahead to the last parsed log time and continue where it left off. <br>
+ * Since this decides how the rest of the log is read, it is the one parser that works off of the server directly instead of emitting events.
+ * Everything emitted before it is applied first, and it only ever parses the first line with a timestamp in the log
  * @author MatNova
  *
  */
@@ -34,6 +36,16 @@ public class CurrentTimeParser extends BaseLogParser {
 		return Arrays.asList(CURRENT_TIME_PATTERN);
 	}
 
+	@Override
+	public boolean isOrderSensitive() {
+		return true;
+	}
+
+	@Override
+	protected List<String> initKeywords() {
+		return Arrays.asList("Current time: ");
+	}
+
 	@Override
 	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
 		String curTime = CURRENT_TIME_PATTERN.group(1);
@@ -7,15 +7,17 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import jdtools.logging.Log;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
 
 /**
- * Parser class for detecting when a GPF has occurred on a server
+ * Parser class for detecting when a GPF has occurred on a server. <br>
+ * This does not update the server, it only ends the read of the log, so it emits no events
  * @author MatNova
  *
  */
-public class GPFParser extends BaseLogParser {
+public class GPFParser extends BaseEventLogParser {
 
 	private Matcher GPF_PARSER;
 	
@@ -26,7 +28,12 @@ public class GPFParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+	protected List<String> initKeywords() {
+		return Arrays.asList("Error [Info]: GPF at");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		Log.warn(LOG_ID + ".parse() : A GPF occurred on server " + serverData.getId() + "!");
 		return ParseResultType.FINISH_LOG;
 	}
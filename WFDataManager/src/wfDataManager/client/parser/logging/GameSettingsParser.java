@@ -1,10 +1,13 @@
 package wfDataManager.client.parser.logging;
 
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
 
@@ -13,7 +16,7 @@ import wfDataModel.model.data.ServerData;
  * @author MatNova
  *
  */
-public class GameSettingsParser extends BaseLogParser {
+public class GameSettingsParser extends BaseEventLogParser {
 
 	private Matcher GAME_SETTINGS_PATTERN;
 	
@@ -22,10 +25,15 @@ public class GameSettingsParser extends BaseLogParser {
 		GAME_SETTINGS_PATTERN = Pattern.compile(".*Session - settings: (.*)$").matcher("");
 		return Arrays.asList(GAME_SETTINGS_PATTERN);
 	}
+
+	@Override
+	protected List<String> initKeywords() {
+		return Arrays.asList("Session - settings: ");
+	}
 	
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) {
-		serverData.setGameSettings(GAME_SETTINGS_PATTERN.group(1));
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
+		events.emit(ParseEventType.GAME_SETTINGS, offset, lastLogTime).setValue(GAME_SETTINGS_PATTERN.group(1));
 		return ParseResultType.OK;
 	}
 }
@@ -6,16 +6,17 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
-import wfDataModel.service.type.LevelType;
 
 /**
  * Parser for getting and setting values about the current game state, such as current level and match start time.
  * @author MatNova
  *
  */
-public class GameStateParser extends BaseLogParser {
+public class GameStateParser extends BaseEventLogParser {
 
 	private Matcher CURRENT_LEVEL_PATTERN;
 	private Matcher MATCH_START_PATTERN;
@@ -31,13 +32,18 @@ public class GameStateParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+	protected List<String> initKeywords() {
+		return Arrays.asList("RegionMgrImpl::SetLevel ", "LotusPvpGameRules - changing pvp state from ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		if (CURRENT_LEVEL_PATTERN.matches()) {
-			serverData.setLevel(LevelType.internalToType(CURRENT_LEVEL_PATTERN.group(1)));
+			events.emit(ParseEventType.LEVEL, offset, lastLogTime).setValue(CURRENT_LEVEL_PATTERN.group(1));
 		} else if (MATCH_START_PATTERN.matches()) {
-			serverData.getTimeStats().setMatchStartTime(lastLogTime);
+			events.emit(ParseEventType.MATCH_START, offset, lastLogTime);
 		} else if (MATCH_END_PATTERN.matches()) {
-			serverData.getTimeStats().setMatchStartTime(0);
+			events.emit(ParseEventType.MATCH_END, offset, lastLogTime);
 		}
 		
 		return ParseResultType.OK;
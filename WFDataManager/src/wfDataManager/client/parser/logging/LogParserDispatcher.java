@@ -0,0 +1,251 @@
+package wfDataManager.client.parser.logging;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+
+import wfDataManager.client.data.ParserStats;
+
+/**
+ * Class for routing log lines to the parsers that could possibly parse them. <br>
+ * The keywords of every parser are combined into a single Aho-Corasick automaton, so a line is scanned once to find which
+ * parsers have a keyword in it, and only those parsers will have their matchers tried against the line.
+ * Most lines contain no keywords and so are never given to any parser. <br>
+ * Parsers that declare no keywords will always be tried. <br>
+ * Candidates are tried in the same order as the list of parsers given, until {@link #reorder(ParserStats)} is called to try the ones
+ * that match most often first instead. Parsers that are order sensitive are always tried before all others. 
+ * How often each parser is tried and matches is counted, to be added to stats via {@link #flushCounts(ParserStats)}.
+ * @author MatNova
+ *
+ */
+public class LogParserDispatcher {
+
+	private static final int MAX_PARSERS = Long.SIZE;
+	private static final int ASCII_SIZE = 128;
+
+	private final List<BaseLogParser> parsers;
+	private final byte[] charClasses = new byte[ASCII_SIZE]; // ASCII char -> class. Class 0 is for any char not in a keyword
+	private final int numClasses;
+	private final int[] transitions; // (State * numClasses + class) -> next state
+	private final long[] outputs; // State -> bitmask of parsers with a keyword ending at this state
+	private final long alwaysCandidates; // Bitmask of parsers that have no keywords
+	private final int[] order; // Indices of parsers in the order they should be tried
+	private final long[] tries; // Parser index -> number of times tried since last flush
+	private final long[] hits; // Parser index -> number of times matched since last flush
+
+	public LogParserDispatcher(List<BaseLogParser> parsers) {
+		if (parsers.size() > MAX_PARSERS) {
+			throw new IllegalArgumentException("Cannot dispatch to more than " + MAX_PARSERS + " parsers");
+		}
+		this.parsers = parsers;
+		this.tries = new long[parsers.size()];
+		this.hits = new long[parsers.size()];
+		this.order = new int[parsers.size()];
+		reorder(null);
+
+		int nextClass = 1;
+		long noKeywords = 0;
+		for (int i = 0; i < parsers.size(); i++) {
+			List<String> keywords = parsers.get(i).getKeywords();
+			if (keywords == null || keywords.isEmpty()) {
+				noKeywords |= 1L << i;
+				continue;
+			}
+			for (String keyword : keywords) {
+				for (int j = 0; j < keyword.length(); j++) {
+					char c = keyword.charAt(j);
+					if (c >= ASCII_SIZE) {
+						throw new IllegalArgumentException("Keyword '" + keyword + "' for " + parsers.get(i).getClass().getSimpleName() + " is not ASCII");
+					}
+					if (charClasses[c] == 0) {
+						charClasses[c] = (byte) nextClass++;
+					}
+				}
+			}
+		}
+		numClasses = nextClass;
+		alwaysCandidates = noKeywords;
+
+		// Build the keyword trie first
+		List<int[]> trie = new ArrayList<int[]>();
+		List<Long> trieOutputs = new ArrayList<Long>();
+		trie.add(newState());
+		trieOutputs.add(0L);
+		for (int i = 0; i < parsers.size(); i++) {
+			List<String> keywords = parsers.get(i).getKeywords();
+			if (keywords == null) {
+				continue;
+			}
+			for (String keyword : keywords) {
+				int state = 0;
+				for (int j = 0; j < keyword.length(); j++) {
+					int cls = charClasses[keyword.charAt(j)];
+					if (trie.get(state)[cls] == -1) {
+						trie.get(state)[cls] = trie.size();
+						trie.add(newState());
+						trieOutputs.add(0L);
+					}
+					state = trie.get(state)[cls];
+				}
+				trieOutputs.set(state, trieOutputs.get(state) | (1L << i));
+			}
+		}
+
+		// Then turn it into a full transition table, following failure links breadth-first
+		int numStates = trie.size();
+		transitions = new int[numStates * numClasses];
+		outputs = new long[numStates];
+		int[] failures = new int[numStates];
+		Queue<Integer> queue = new ArrayDeque<Integer>();
+		for (int cls = 0; cls < numClasses; cls++) {
+			int child = trie.get(0)[cls];
+			if (child == -1) {
+				transitions[cls] = 0;
+			} else {
+				transitions[cls] = child;
+				failures[child] = 0;
+				queue.add(child);
+			}
+		}
+		for (int state = 0; state < numStates; state++) {
+			outputs[state] = trieOutputs.get(state);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			outputs[state] |= outputs[failures[state]];
+			for (int cls = 0; cls < numClasses; cls++) {
+				int child = trie.get(state)[cls];
+				if (child == -1) {
+					transitions[state * numClasses + cls] = transitions[failures[state] * numClasses + cls];
+				} else {
+					transitions[state * numClasses + cls] = child;
+					failures[child] = transitions[failures[state] * numClasses + cls];
+					queue.add(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a bitmask of the indices of the parsers that have at least one keyword in the given line
+	 * @param line
+	 * @return
+	 */
+	public long getCandidates(CharSequence line) {
+		long candidates = alwaysCandidates;
+		int state = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			state = transitions[state * numClasses + (c < ASCII_SIZE ? charClasses[c] : 0)];
+			candidates |= outputs[state];
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns a bitmask of the indices of the parsers that have at least one keyword in the raw bytes of a line,
+	 * which are between the given start (inclusive) and end (exclusive) indices in the buffer. <br>
+	 * Since keywords are ASCII, any byte of a multi-byte UTF-8 char can never be part of a keyword match, so the line does not need to be decoded first
+	 * @param buffer
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public long getCandidates(ByteBuffer buffer, int start, int end) {
+		long candidates = alwaysCandidates;
+		int state = 0;
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			state = transitions[state * numClasses + (b >= 0 ? charClasses[b] : 0)];
+			candidates |= outputs[state];
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns the first parser that can parse the given line, or null if none can. <br>
+	 * If a parser is returned, then {@link BaseLogParser#parse(wfDataModel.model.data.ServerData, long, long)} can be called on it for this line
+	 * @param line
+	 * @return
+	 */
+	public BaseLogParser findParser(String line) {
+		return findParser(line, getCandidates(line));
+	}
+
+	/**
+	 * Same as {@link #findParser(String)}, but only tries the parsers in the given bitmask of candidates
+	 * @param line
+	 * @param candidates
+	 * @return
+	 */
+	public BaseLogParser findParser(String line, long candidates) {
+		BaseLogParser found = null;
+		if (Long.bitCount(candidates) == 1) {
+			// Most lines only have a single candidate, so no need to go through the order for these
+			int index = Long.numberOfTrailingZeros(candidates);
+			if (tryParser(index, line)) {
+				found = parsers.get(index);
+			}
+		} else if (candidates != 0) {
+			for (int i = 0; i < order.length; i++) {
+				int index = order[i];
+				if ((candidates & (1L << index)) != 0 && tryParser(index, line)) {
+					found = parsers.get(index);
+					break;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Changes the order that parsers are tried in so that the ones with the most hits in the given stats are tried first. <br>
+	 * Order sensitive parsers are always tried first, in the same order as the list of parsers given. 
+	 * If no stats are given, all parsers are tried in the same order as the list of parsers given
+	 * @param stats
+	 */
+	public void reorder(ParserStats stats) {
+		List<Integer> indices = new ArrayList<Integer>(parsers.size());
+		for (int i = 0; i < parsers.size(); i++) {
+			indices.add(i);
+		}
+		// Sorting is stable, so parsers that are tied keep their original order
+		Comparator<Integer> byOrderSensitive = Comparator.comparing(index -> !parsers.get(index).isOrderSensitive());
+		indices.sort(byOrderSensitive.thenComparing(index -> stats == null || parsers.get(index).isOrderSensitive() ? 0 : -stats.getHits(parsers.get(index).getClass().getSimpleName())));
+		for (int i = 0; i < indices.size(); i++) {
+			order[i] = indices.get(i);
+		}
+	}
+
+	/**
+	 * Adds the number of times each parser was tried and matched since the last flush to the given stats, and then clears them
+	 * @param stats
+	 */
+	public void flushCounts(ParserStats stats) {
+		stats.addCounts(parsers, tries, hits);
+		for (int i = 0; i < parsers.size(); i++) {
+			tries[i] = 0;
+			hits[i] = 0;
+		}
+	}
+
+	private boolean tryParser(int index, String line) {
+		tries[index]++;
+		boolean matched = parsers.get(index).canParse(line);
+		if (matched) {
+			hits[index]++;
+		}
+		return matched;
+	}
+
+	private int[] newState() {
+		int[] state = new int[numClasses];
+		for (int i = 0; i < state.length; i++) {
+			state[i] = -1;
+		}
+		return state;
+	}
+}
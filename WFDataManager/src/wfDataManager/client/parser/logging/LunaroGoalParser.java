@@ -6,9 +6,10 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import jdtools.logging.Log;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
-import wfDataModel.model.data.PlayerData;
+import wfDataModel.model.data.PlayerNameData;
 import wfDataModel.model.data.ServerData;
 import wfDataModel.model.util.PlayerUtil;
 
@@ -20,7 +21,7 @@ import wfDataModel.model.util.PlayerUtil;
  * @author MatNova
  *
  */
-public class LunaroGoalParser extends BaseLogParser {
+public class LunaroGoalParser extends BaseEventLogParser {
 
 	private Matcher LUNARO_GOAL_PATTERN;
 
@@ -31,17 +32,14 @@ public class LunaroGoalParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
-		String playerName = PlayerUtil.cleanPlayerName(LUNARO_GOAL_PATTERN.group(1));
-		int platform = PlayerUtil.getPlatform(LUNARO_GOAL_PATTERN.group(1));
-		PlayerData player = serverData.getPlayerByNameAndPlatform(playerName, platform);
-		if (player != null) {
-			// Note we store goals in the 'mechanics' field since this is where it comes from in the mission stats
-			player.setMechanics(player.getMechanics() + 1);
-			player.setLastLogTime(lastLogTime);
-		} else {
-			Log.warn(LOG_ID + ".parse() : Could not match ID to player for Lunaro goal score log, player=" + player);
-		}
+	protected List<String> initKeywords() {
+		return Arrays.asList(" scored a goal");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
+		PlayerNameData nameData = PlayerUtil.parsePlayerName(LUNARO_GOAL_PATTERN.group(1));
+		events.emit(ParseEventType.GOAL, offset, lastLogTime).setPlayer(nameData.getName(), nameData.getPlatform());
 		return ParseResultType.OK;
 	}
 
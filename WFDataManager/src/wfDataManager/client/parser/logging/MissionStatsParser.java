@@ -7,10 +7,12 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import jdtools.logging.Log;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataManager.client.type.ProcessModeType;
 import wfDataManager.client.util.ClientSettingsUtil;
-import wfDataModel.model.data.PlayerData;
+import wfDataModel.model.data.PlayerNameData;
 import wfDataModel.model.data.ServerData;
 import wfDataModel.model.util.PlayerUtil;
 
@@ -25,7 +27,7 @@ import wfDataModel.model.util.PlayerUtil;
  * If this detects the mission stats start and the current log position is equal to the log position for this server
  * at the start of the current parsing session, it will then go ahead and let it try to parse. <br>
  * 
- * If this detects mission stats data, it will parse it and apply it to the proper player.
+ * If this detects mission stats data, it will parse it and emit it as an event to be applied to the proper player.
  * For Lunaro, this will parse the kills and deaths stats since those are actually passes and interceptions, respectively.
  * For any other game mode, it does not parse kills and deaths because those are tracked via the death messages in the log.
  * For any game mode, it will track mechanics and will add 1 to the player's current round count. <br>
@@ -35,7 +37,7 @@ import wfDataModel.model.util.PlayerUtil;
  * @author MatNova
  *
  */
-public class MissionStatsParser extends BaseLogParser {
+public class MissionStatsParser extends BaseEventLogParser {
 
 	private Matcher MISSION_STATS_DATA_PATTERN;
 	private Matcher MISSION_STATS_START_PATTERN;
@@ -50,7 +52,17 @@ public class MissionStatsParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) throws ParseException {
+	public boolean isOrderSensitive() {
+		return true;
+	}
+
+	@Override
+	protected List<String> initKeywords() {
+		return Arrays.asList(" -- kills: ", "Mission stats");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		if (MISSION_STATS_START_PATTERN.matches()) {
 			// If this is historical, we just keep going once it finds start of mission stats under the assumption that the log is already finished
 			// Otherwise for normal, we only keep going if this is found as the first line of the read
@@ -70,27 +82,11 @@ public class MissionStatsParser extends BaseLogParser {
 			Log.debug(LOG_ID + ".parse() : Found mission stat end");
 			return ParseResultType.END_MISSION;
 		} else {
-			String player = PlayerUtil.cleanPlayerName(MISSION_STATS_DATA_PATTERN.group(1));
-			int platform = PlayerUtil.getPlatform(MISSION_STATS_DATA_PATTERN.group(1));
-			PlayerData p = serverData.getPlayerByNameAndPlatform(player, platform);
+			PlayerNameData nameData = PlayerUtil.parsePlayerName(MISSION_STATS_DATA_PATTERN.group(1));
 			int kills = Integer.parseInt(MISSION_STATS_DATA_PATTERN.group(2));
 			int deaths = Integer.parseInt(MISSION_STATS_DATA_PATTERN.group(3));
 			int mechanics = Integer.parseInt(MISSION_STATS_DATA_PATTERN.group(4));
-
-			// Don't expect this, but just in case
-			if (p == null) {
-				Log.warn(LOG_ID + ".parse() : Did not have player data for " + player + " at round end!?");
-			} else {
-				// For Lunaro, the round-end kills and deaths are passes and interceptions, respectively
-				// For other modes, we build actual k/d up over time, so don't add them here
-				if (p.isForLunaro()) {
-					p.setKills(p.getKills() + kills);
-					p.setDeaths(p.getDeaths() + deaths);	
-				}
-				p.setMechanics(p.getMechanics() + mechanics);
-				p.setRounds(p.getRounds() + 1);
-				p.setLastLogTime(lastLogTime);
-			}
+			events.emit(ParseEventType.MISSION_STAT, offset, lastLogTime).setPlayer(nameData.getName(), nameData.getPlatform()).setStats(kills, deaths, mechanics);
 		}
 		
 		return ParseResultType.OK;
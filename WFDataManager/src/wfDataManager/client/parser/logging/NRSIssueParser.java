@@ -1,10 +1,13 @@
 package wfDataManager.client.parser.logging;
 
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataModel.model.data.ServerData;
 
@@ -13,7 +16,7 @@ import wfDataModel.model.data.ServerData;
  * @author MatNova
  *
  */
-public class NRSIssueParser extends BaseLogParser {
+public class NRSIssueParser extends BaseEventLogParser {
 
 	private Matcher NRS_SERVER_ISSUE_PATTERN;
 	private Matcher NRS_SERVER_SELECTED_PATTERN;
@@ -26,11 +29,16 @@ public class NRSIssueParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) {
+	protected List<String> initKeywords() {
+		return Arrays.asList("Could not select an NRS server", " selected as home");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		if (NRS_SERVER_ISSUE_PATTERN.matches()) {
-			serverData.setHasNRSIssue(true); // If this message was found, we know we have an NRS issue
+			events.emit(ParseEventType.NRS_STATUS, offset, lastLogTime).setFlag(true); // If this message was found, we know we have an NRS issue
 		} else {
-			serverData.setHasNRSIssue(false); // If this message was found, we know we found an NRS server, so no issue
+			events.emit(ParseEventType.NRS_STATUS, offset, lastLogTime).setFlag(false); // If this message was found, we know we found an NRS server, so no issue
 		}
 		return ParseResultType.OK;
 	}
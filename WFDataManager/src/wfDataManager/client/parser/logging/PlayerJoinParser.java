@@ -1,5 +1,6 @@
 package wfDataManager.client.parser.logging;
 
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
@@ -9,8 +10,10 @@ import java.util.regex.Pattern;
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
 import jdtools.util.StringUtil;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
-import wfDataModel.model.data.PlayerData;
+import wfDataModel.model.data.PlayerNameData;
 import wfDataModel.model.data.ServerData;
 import wfDataModel.model.util.PlayerUtil;
 import wfDataModel.service.type.PlatformType;
@@ -21,7 +24,7 @@ import wfDataModel.service.type.PlatformType;
  * @author MatNova
  *
  */
-public class PlayerJoinParser extends BaseLogParser {
+public class PlayerJoinParser extends BaseEventLogParser {
 
 	private Matcher ADD_SQUAD_MEMBER_PATTERN;
 	private Matcher PLAYER_SPAWN_PATTERN; // Technically happens whenever a player (re)spawns
@@ -34,13 +37,19 @@ public class PlayerJoinParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) {
+	protected List<String> initKeywords() {
+		return Arrays.asList("AddSquadMember: ", "has new player: ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		if (ADD_SQUAD_MEMBER_PATTERN.matches()) {
-			String playerName = PlayerUtil.cleanPlayerName(ADD_SQUAD_MEMBER_PATTERN.group(1));
+			PlayerNameData nameData = PlayerUtil.parsePlayerName(ADD_SQUAD_MEMBER_PATTERN.group(1));
+			String playerName = nameData.getName();
 			if (MiscUtil.isEmpty(playerName)) {
 				Log.warn(LOG_ID + ".parse() : Player name was parsed as empty, will ignore!");
 			} else {
-				int platform = PlayerUtil.getPlatform(ADD_SQUAD_MEMBER_PATTERN.group(1));
+				int platform = nameData.getPlatform();
 				String uid = ADD_SQUAD_MEMBER_PATTERN.group(2);
 				// If any platforms provide a non-alphanumeric UID, we encode it as Base64
 				// Some of them have wild values with various characters and spaces that will cause issues otherwise
@@ -48,30 +57,11 @@ public class PlayerJoinParser extends BaseLogParser {
 				if (PlatformType.PSN.getCode() == platform || StringUtil.hasNonAlphaNumericCharacters(uid)) {
 					uid = Base64.getEncoder().encodeToString(uid.replaceAll(" ", "").getBytes());
 				}
-				PlayerData p = serverData.getPlayer(uid);
-				if (p == null) {
-					p = new PlayerData();
-					p.setUID(uid);
-					p.setLogID(serverData.getId());
-					p.setEloRating(serverData.getEloRating());
-					p.setGameMode(serverData.getGameModeId());
-					p.setPlatform(platform);
-					p.setLastLogTime(lastLogTime);
-					serverData.addPlayer(p);
-				} else {
-					p.setLeftServer(false, lastLogTime);
-				}
-				p.setPlayerName(playerName);
+				events.emit(ParseEventType.PLAYER_JOIN, offset, lastLogTime).setPlayer(playerName, platform).setUID(uid);
 			}
 		} else {
-			String name = PlayerUtil.cleanPlayerName(PLAYER_SPAWN_PATTERN.group(1));
-			int platform = PlayerUtil.getPlatform(PLAYER_SPAWN_PATTERN.group(1));
-			PlayerData player = serverData.getPlayerByNameAndPlatform(name, platform);
-			if (player != null) {
-				player.setLastLogTime(lastLogTime);
-			} else {
-				Log.warn(LOG_ID + ".parse() : Could not find player for joinMatcher parse -> " + name);
-			}
+			PlayerNameData nameData = PlayerUtil.parsePlayerName(PLAYER_SPAWN_PATTERN.group(1));
+			events.emit(ParseEventType.PLAYER_SPAWN, offset, lastLogTime).setPlayer(nameData.getName(), nameData.getPlatform());
 		}
 		return ParseResultType.OK;
 	}
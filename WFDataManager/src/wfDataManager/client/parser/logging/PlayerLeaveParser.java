@@ -1,14 +1,15 @@
 package wfDataManager.client.parser.logging;
 
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import jdtools.logging.Log;
-import jdtools.util.MiscUtil;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
-import wfDataModel.model.data.PlayerData;
+import wfDataModel.model.data.PlayerNameData;
 import wfDataModel.model.data.ServerData;
 import wfDataModel.model.util.PlayerUtil;
 
@@ -17,7 +18,7 @@ import wfDataModel.model.util.PlayerUtil;
  * @author MatNova
  *
  */
-public class PlayerLeaveParser extends BaseLogParser {
+public class PlayerLeaveParser extends BaseEventLogParser {
 	
 	private Matcher PLAYER_LEAVE_PATTERN;
 	private Matcher PLAYER_LEAVE_PATTERN_B;
@@ -33,52 +34,22 @@ public class PlayerLeaveParser extends BaseLogParser {
 	}
 
 	@Override
-	public ParseResultType parse(ServerData serverData, long offset, long lastLogTime) {
+	protected List<String> initKeywords() {
+		return Arrays.asList("\" disconnected with HConn=", "RemoveSquadMember: ", "Server::RemoveConnection ");
+	}
+
+	@Override
+	protected ParseResultType emit(ServerData serverData, ParseEventBuffer events, long offset, long lastLogTime) throws ParseException {
 		if (PLAYER_LEAVE_PATTERN.matches()) {
-			String name = PlayerUtil.cleanPlayerName(PLAYER_LEAVE_PATTERN.group(1));
-			int platform = PlayerUtil.getPlatform(PLAYER_LEAVE_PATTERN.group(1));
+			PlayerNameData nameData = PlayerUtil.parsePlayerName(PLAYER_LEAVE_PATTERN.group(1));
 			int connHandle = Integer.valueOf(PLAYER_LEAVE_PATTERN.group(2));
-			PlayerData player = serverData.getPlayerByNameAndPlatform(name, platform);
-			if (player != null) {
-				player.setLeftServer(true, lastLogTime);
-				// It's possible that a player joined but timed out at some point early on during loading
-				// If this happens, they may not ever get assigned the connHandle and IP,
-				// so we assign it here when they disconnect to try and handle any cleanup properly
-				if (player.getConnHandle() == -1 && !MiscUtil.isEmpty(serverData.getIPAndPort(connHandle))) {
-					player.setConnHandle(connHandle);
-					player.setIPAndPort(serverData.getIPAndPort(connHandle));
-					Log.warn(LOG_ID + ".parse() : Player did not have connHandle assigned on leave, will assign now -> player=" + player.getPlayerName() + ", hndl=" + player.getConnHandle() + ", ip=" + player.getIPAndPort());
-					if (!MiscUtil.isEmpty(serverData.getAcctIdForConn(connHandle))) {
-						player.setAccountID(serverData.getAcctIdForConn(connHandle));
-						Log.info("SETTING PLAYER ACCTID " + player.getPlayerName() + "(" + player.getUID() + ") TO " + player.getAccountID() + " ON LEAVE");
-						serverData.removeAccountIDCandidate(player.getAccountID());
-					}
-				}
-				if (!MiscUtil.isEmpty(player.getAccountID())) {
-					serverData.removeAccountIDMapping(player.getAccountID());
-				}
-			} else {
-				Log.warn(LOG_ID + ".parse() : Could not find player for leaveMatcher parse -> " + name);
-			}
-			serverData.removeAcctIdForConn(connHandle);
+			events.emit(ParseEventType.PLAYER_LEAVE, offset, lastLogTime).setPlayer(nameData.getName(), nameData.getPlatform()).setConnHandle(connHandle);
 		} else if (PLAYER_LEAVE_PATTERN_B.matches()) {
-			String name = PlayerUtil.cleanPlayerName(PLAYER_LEAVE_PATTERN_B.group(1));
-			int platform = PlayerUtil.getPlatform(PLAYER_LEAVE_PATTERN_B.group(1));
-			PlayerData player = serverData.getPlayerByNameAndPlatform(name, platform);
-			if (player != null) {
-				player.setLeftServer(true, lastLogTime);
-				if (!MiscUtil.isEmpty(player.getAccountID())) {
-					serverData.removeAccountIDMapping(player.getAccountID());
-				}
-			} else {
-				Log.warn(LOG_ID + ".processLogs() : Could not find player for leaveMatcherB parse -> " + name);
-			}
+			PlayerNameData nameData = PlayerUtil.parsePlayerName(PLAYER_LEAVE_PATTERN_B.group(1));
+			events.emit(ParseEventType.PLAYER_REMOVE, offset, lastLogTime).setPlayer(nameData.getName(), nameData.getPlatform());
 		} else {
-			// Do this here to make sure we don't leave any lingering connHandle : acctID mappings
-			// This can happen if a player times out and we never assign them their connHandle and therefore no acctId,
-			// so this is done as a safety cleanup 
 			int connHandle = Integer.valueOf(REMOVE_CONN_PATTERN.group(1));
-			serverData.removeAcctIdForConn(connHandle);
+			events.emit(ParseEventType.CONN_REMOVE, offset, lastLogTime).setConnHandle(connHandle);
 		}
 		
 		return ParseResultType.OK;
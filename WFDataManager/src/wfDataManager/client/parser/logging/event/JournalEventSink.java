@@ -0,0 +1,17 @@
+package wfDataManager.client.parser.logging.event;
+
+import wfDataManager.client.cache.ParseJournalCache;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Records each event to the server's parse journal, so that it can be replayed if the server's data is not stored
+ * @author MatNova
+ *
+ */
+public class JournalEventSink implements ParseEventSink {
+
+	@Override
+	public void onEvent(ServerData serverData, ParseEvent event) {
+		ParseJournalCache.singleton().getJournal(serverData).record(event);
+	}
+}
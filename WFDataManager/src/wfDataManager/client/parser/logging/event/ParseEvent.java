@@ -0,0 +1,275 @@
+package wfDataManager.client.parser.logging.event;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import wfDataManager.client.type.ParseEventType;
+import wfDataModel.model.util.data.TaggedDataReader;
+import wfDataModel.model.util.data.TaggedDataWriter;
+
+/**
+ * A single event emitted by a parser for a line it parsed. <br>
+ * Events are preallocated by the {@link ParseEventBuffer} and reused, so they should not be held onto after being handled.
+ * Which fields are set depends on the event's {@link ParseEventType}
+ * @author MatNova
+ *
+ */
+public class ParseEvent {
+
+	private ParseEventType type;
+	private long logTime;
+	private long offset;
+	private String name;
+	private int platform;
+	private String otherName;
+	private int otherPlatform;
+	private String uid;
+	private String item;
+	private String acctId;
+	private String ipAndPort;
+	private String otherIPAndPort;
+	private int connHandle;
+	private int kills;
+	private int deaths;
+	private int mechanics;
+	private String value;
+	private long number;
+	private boolean flag;
+	private boolean proxy;
+
+	/**
+	 * Clears this event and sets it to the given type, so it can be filled in for a new line
+	 * @param type
+	 * @param offset
+	 * @param logTime
+	 * @return
+	 */
+	public ParseEvent reset(ParseEventType type, long offset, long logTime) {
+		this.type = type;
+		this.offset = offset;
+		this.logTime = logTime;
+		name = null;
+		platform = -1;
+		otherName = null;
+		otherPlatform = -1;
+		uid = null;
+		item = null;
+		acctId = null;
+		ipAndPort = null;
+		otherIPAndPort = null;
+		connHandle = -1;
+		kills = 0;
+		deaths = 0;
+		mechanics = 0;
+		value = null;
+		number = 0;
+		flag = false;
+		proxy = false;
+		return this;
+	}
+
+	public ParseEventType getType() {
+		return type;
+	}
+
+	public long getLogTime() {
+		return logTime;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPlatform() {
+		return platform;
+	}
+
+	public ParseEvent setPlayer(String name, int platform) {
+		this.name = name;
+		this.platform = platform;
+		return this;
+	}
+
+	public String getOtherName() {
+		return otherName;
+	}
+
+	public int getOtherPlatform() {
+		return otherPlatform;
+	}
+
+	public ParseEvent setOtherPlayer(String otherName, int otherPlatform) {
+		this.otherName = otherName;
+		this.otherPlatform = otherPlatform;
+		return this;
+	}
+
+	public String getUID() {
+		return uid;
+	}
+
+	public ParseEvent setUID(String uid) {
+		this.uid = uid;
+		return this;
+	}
+
+	public String getItem() {
+		return item;
+	}
+
+	public ParseEvent setItem(String item) {
+		this.item = item;
+		return this;
+	}
+
+	public String getAccountID() {
+		return acctId;
+	}
+
+	public ParseEvent setAccountID(String acctId) {
+		this.acctId = acctId;
+		return this;
+	}
+
+	public String getIPAndPort() {
+		return ipAndPort;
+	}
+
+	public ParseEvent setIPAndPort(String ipAndPort) {
+		this.ipAndPort = ipAndPort;
+		return this;
+	}
+
+	public String getOtherIPAndPort() {
+		return otherIPAndPort;
+	}
+
+	public ParseEvent setOtherIPAndPort(String otherIPAndPort) {
+		this.otherIPAndPort = otherIPAndPort;
+		return this;
+	}
+
+	public int getConnHandle() {
+		return connHandle;
+	}
+
+	public ParseEvent setConnHandle(int connHandle) {
+		this.connHandle = connHandle;
+		return this;
+	}
+
+	public int getKills() {
+		return kills;
+	}
+
+	public int getDeaths() {
+		return deaths;
+	}
+
+	public int getMechanics() {
+		return mechanics;
+	}
+
+	public ParseEvent setStats(int kills, int deaths, int mechanics) {
+		this.kills = kills;
+		this.deaths = deaths;
+		this.mechanics = mechanics;
+		return this;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public ParseEvent setValue(String value) {
+		this.value = value;
+		return this;
+	}
+
+	public long getNumber() {
+		return number;
+	}
+
+	public ParseEvent setNumber(long number) {
+		this.number = number;
+		return this;
+	}
+
+	public boolean getFlag() {
+		return flag;
+	}
+
+	public ParseEvent setFlag(boolean flag) {
+		this.flag = flag;
+		return this;
+	}
+
+	public boolean isProxy() {
+		return proxy;
+	}
+
+	public ParseEvent setProxy(boolean proxy) {
+		this.proxy = proxy;
+		return this;
+	}
+
+	/**
+	 * Writes this event in binary form to the given output, so that it can be read back via {@link #read(ByteBuffer)}
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeByte(type.ordinal());
+		out.writeLong(offset);
+		out.writeLong(logTime);
+		TaggedDataWriter.writeString(out, name);
+		out.writeInt(platform);
+		TaggedDataWriter.writeString(out, otherName);
+		out.writeInt(otherPlatform);
+		TaggedDataWriter.writeString(out, uid);
+		TaggedDataWriter.writeString(out, item);
+		TaggedDataWriter.writeString(out, acctId);
+		TaggedDataWriter.writeString(out, ipAndPort);
+		TaggedDataWriter.writeString(out, otherIPAndPort);
+		out.writeInt(connHandle);
+		out.writeInt(kills);
+		out.writeInt(deaths);
+		out.writeInt(mechanics);
+		TaggedDataWriter.writeString(out, value);
+		out.writeLong(number);
+		out.writeBoolean(flag);
+		out.writeBoolean(proxy);
+	}
+
+	/**
+	 * Sets this event to the one written at the current position of the given buffer by {@link #write(DataOutput)}
+	 * @param buffer
+	 * @return
+	 */
+	public ParseEvent read(ByteBuffer buffer) {
+		reset(ParseEventType.values()[buffer.get()], buffer.getLong(), buffer.getLong());
+		name = TaggedDataReader.readString(buffer);
+		platform = buffer.getInt();
+		otherName = TaggedDataReader.readString(buffer);
+		otherPlatform = buffer.getInt();
+		uid = TaggedDataReader.readString(buffer);
+		item = TaggedDataReader.readString(buffer);
+		acctId = TaggedDataReader.readString(buffer);
+		ipAndPort = TaggedDataReader.readString(buffer);
+		otherIPAndPort = TaggedDataReader.readString(buffer);
+		connHandle = buffer.getInt();
+		kills = buffer.getInt();
+		deaths = buffer.getInt();
+		mechanics = buffer.getInt();
+		value = TaggedDataReader.readString(buffer);
+		number = buffer.getLong();
+		flag = buffer.get() != 0;
+		proxy = buffer.get() != 0;
+		return this;
+	}
+}
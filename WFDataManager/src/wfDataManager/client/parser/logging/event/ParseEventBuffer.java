@@ -0,0 +1,95 @@
+package wfDataManager.client.parser.logging.event;
+
+import java.text.ParseException;
+import java.util.List;
+
+import wfDataManager.client.type.ParseEventType;
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Preallocated ring buffer of events emitted by parsers while reading a server's log. <br>
+ * Parsers emit events into this as they parse lines, and the events are then handed to each sink in order when the buffer is drained.
+ * The buffer is drained whenever it fills up, or whenever {@link #drain()} is called, which must be done before anything that needs
+ * the server to be up to date with everything parsed so far (i.e. {@link wfDataManager.client.parser.logging.CurrentTimeParser} at the start of a log, sampling the server's activity, or the end of a read).
+ * So events are applied in batches, rather than as each line is parsed. <br>
+ * A buffer is meant to be confined to a single thread, and is bound to one server at a time via {@link #start(ServerData)}.
+ * Events are applied on the same thread they were parsed on, since servers are already parsed in parallel with each other, 
+ * and the reader needs the server to be up to date at the points above before it can carry on
+ * @author MatNova
+ *
+ */
+public class ParseEventBuffer {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+	private final ParseEvent[] events;
+	private final int mask;
+	private final List<ParseEventSink> sinks;
+	private ServerData serverData;
+	private long head; // Index of the next event to be handled
+	private long tail; // Index of the next event to be emitted
+
+	/**
+	 * Creates a new buffer that holds the given number of events, rounded up to a power of 2, and hands them to the given sinks
+	 * @param capacity
+	 * @param sinks
+	 */
+	public ParseEventBuffer(int capacity, List<ParseEventSink> sinks) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		this.events = new ParseEvent[size];
+		this.mask = size - 1;
+		this.sinks = sinks;
+		for (int i = 0; i < size; i++) {
+			events[i] = new ParseEvent();
+		}
+	}
+
+	/**
+	 * Binds this buffer to the given server, clearing any events that were not handled for the previous one
+	 * @param serverData
+	 */
+	public void start(ServerData serverData) {
+		clear();
+		this.serverData = serverData;
+	}
+
+	/**
+	 * Returns the next event in the buffer, reset to the given type. This event must be filled in before emitting any other event. <br>
+	 * If the buffer is full, it will be drained first
+	 * @param type
+	 * @param offset
+	 * @param logTime
+	 * @return
+	 * @throws ParseException
+	 */
+	public ParseEvent emit(ParseEventType type, long offset, long logTime) throws ParseException {
+		if (tail - head == events.length) {
+			drain();
+		}
+		return events[(int) (tail++ & mask)].reset(type, offset, logTime);
+	}
+
+	/**
+	 * Hands all events emitted so far to each sink in order, so the server is up to date with everything parsed so far
+	 * @throws ParseException
+	 */
+	public void drain() throws ParseException {
+		while (head < tail) {
+			ParseEvent event = events[(int) (head++ & mask)];
+			for (int i = 0; i < sinks.size(); i++) {
+				sinks.get(i).onEvent(serverData, event);
+			}
+		}
+	}
+
+	/**
+	 * Discards any events that have not been handled yet
+	 */
+	public void clear() {
+		head = 0;
+		tail = 0;
+	}
+
+	public boolean isEmpty() {
+		return head == tail;
+	}
+}
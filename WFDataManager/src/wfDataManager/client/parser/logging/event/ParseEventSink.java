@@ -0,0 +1,22 @@
+package wfDataManager.client.parser.logging.event;
+
+import java.text.ParseException;
+
+import wfDataModel.model.data.ServerData;
+
+/**
+ * Handles events that were emitted by parsers for a server. <br>
+ * Events are handed to each sink in the same order they were emitted
+ * @author MatNova
+ *
+ */
+public interface ParseEventSink {
+
+	/**
+	 * Handles the given event that was parsed for the given server
+	 * @param serverData
+	 * @param event
+	 * @throws ParseException
+	 */
+	public void onEvent(ServerData serverData, ParseEvent event) throws ParseException;
+}
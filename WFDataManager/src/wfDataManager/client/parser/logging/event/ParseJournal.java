@@ -0,0 +1,358 @@
+package wfDataManager.client.parser.logging.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdtools.logging.Log;
+import wfDataModel.model.data.ServerData;
+import wfDataModel.model.util.data.TaggedDataReader;
+import wfDataModel.model.util.data.TaggedDataWriter;
+
+/**
+ * Append-only binary journal of the events parsed for a single server since its data was last stored. <br>
+ * Each read of the server's log is written as one segment, holding the events parsed during that read along with the log positions it covers.
+ * A segment is only written once its part of the read has finished successfully, so a failed read never ends up in the journal. <br>
+ * Whenever the server's data is stored, a checkpoint is made, which clears the journal and records the log position that was stored.
+ * If the server is later back at that position without anything having been stored since (i.e. after a crash, or after storing the data was rolled back),
+ * the journal can be replayed to get back to where parsing left off, instead of reading and parsing that part of the log again. <br>
+ * Segments must follow on from each other. If a read starts anywhere other than where the journal left off (e.g. part of the previous read
+ * could not be journaled), nothing more is recorded until the next checkpoint. The segments before that can still be replayed,
+ * and anything after them will just be read from the log again if needed. <br>
+ * Segments are not forced to disk as they are written. Instead {@link #sync()} is called for every journal once per parse cycle, 
+ * and a checkpoint is always forced. Any segment lost or cut short by a crash before then is dropped on load and just read from the log again
+ * @author MatNova
+ *
+ */
+public class ParseJournal {
+
+	private static final String LOG_ID = ParseJournal.class.getSimpleName();
+	private static final int MAGIC = 0x5746504A; // WFPJ
+	private static final int VERSION = 2; // Bumped whenever the binary form of ParseEvent changes
+	private static final int SEGMENT_HEADER_SIZE = Long.BYTES * 4 + Integer.BYTES; // Start, end, log time, log time millis, num events
+
+	private final Path path;
+	private boolean isLoaded = false;
+	private long checkpointPosition = -1; // Log position of the last checkpoint, or -1 if there is no valid checkpoint
+	private String checkpointStartTime; // Start time of the log at the last checkpoint, to make sure it's for the same log
+	private List<Segment> segments = new ArrayList<Segment>();
+	private ByteArrayOutputStream segmentBytes = new ByteArrayOutputStream(4096);
+	private DataOutputStream segmentOut = new DataOutputStream(segmentBytes);
+	private boolean isRecording = false;
+	private boolean isSynced = true; // If everything written to the journal file has been forced to disk
+	private long segmentStart;
+	private int segmentEvents;
+
+	public ParseJournal(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Starts recording a new segment at the given log position. <br>
+	 * If there is no checkpoint yet, or the position is not where the journal left off, nothing will be recorded
+	 * @param position
+	 */
+	public synchronized void startSegment(long position) {
+		load();
+		isRecording = false;
+		if (checkpointPosition == -1) {
+			return;
+		} else if (position != getEndPosition()) {
+			Log.debug(LOG_ID + ".startSegment() : Read for " + path.getFileName() + " starts at " + position + " instead of " + getEndPosition() + ", will not record until next checkpoint");
+			return;
+		}
+		segmentBytes.reset();
+		segmentStart = position;
+		segmentEvents = 0;
+		isRecording = true;
+	}
+
+	/**
+	 * Records the given event to the current segment, if one is being recorded
+	 * @param event
+	 */
+	public synchronized void record(ParseEvent event) {
+		if (isRecording) {
+			try {
+				event.write(segmentOut);
+				segmentEvents++;
+			} catch (IOException e) {
+				Log.error(LOG_ID + ".record() : Error recording event for " + path.getFileName() + " -> ", e);
+				isRecording = false;
+			}
+		}
+	}
+
+	/**
+	 * Ends the current segment at the given log position, and appends it to the journal
+	 * @param position
+	 * @param logTime
+	 * @param logTimeMillis
+	 */
+	public synchronized void endSegment(long position, long logTime, long logTimeMillis) {
+		if (!isRecording) {
+			return;
+		}
+		isRecording = false;
+		if (position == segmentStart) {
+			return; // Nothing was read, so nothing to add
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			long fileOffset = channel.size();
+			ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + SEGMENT_HEADER_SIZE);
+			header.putInt(SEGMENT_HEADER_SIZE + segmentBytes.size());
+			header.putLong(segmentStart).putLong(position).putLong(logTime).putLong(logTimeMillis).putInt(segmentEvents);
+			header.flip();
+			channel.position(fileOffset);
+			ByteBuffer[] data = new ByteBuffer[] { header, ByteBuffer.wrap(segmentBytes.toByteArray()) };
+			while (data[1].hasRemaining()) {
+				channel.write(data);
+			}
+			isSynced = false;
+			segments.add(new Segment(segmentStart, position, logTime, logTimeMillis, fileOffset));
+		} catch (IOException e) {
+			Log.error(LOG_ID + ".endSegment() : Error writing segment for " + path.getFileName() + ", will clear journal until next checkpoint -> ", e);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Forces anything written to the journal since it was last synced to disk
+	 */
+	public synchronized void sync() {
+		if (isSynced || !Files.exists(path)) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.force(false);
+			isSynced = true;
+		} catch (IOException e) {
+			Log.error(LOG_ID + ".sync() : Error syncing " + path.getFileName() + ", will clear journal until next checkpoint -> ", e);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Stops recording the current segment without adding it to the journal
+	 */
+	public synchronized void abortSegment() {
+		isRecording = false;
+	}
+
+	/**
+	 * Clears the journal and records the given server's current log position as the new checkpoint. This should be called once the server's data has been stored
+	 * @param serverData
+	 */
+	public synchronized void checkpoint(ServerData serverData) {
+		isLoaded = true;
+		isRecording = false;
+		segments.clear();
+		try {
+			ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(64);
+			DataOutputStream header = new DataOutputStream(headerBytes);
+			header.writeInt(MAGIC);
+			header.writeShort(VERSION);
+			header.writeLong(serverData.getLogPosition());
+			TaggedDataWriter.writeString(header, serverData.getTimeStats().getStartTime());
+			Files.createDirectories(path.getParent());
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer data = ByteBuffer.wrap(headerBytes.toByteArray());
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+				channel.force(false);
+			}
+			isSynced = true;
+			checkpointPosition = serverData.getLogPosition();
+			checkpointStartTime = serverData.getTimeStats().getStartTime();
+		} catch (IOException e) {
+			Log.error(LOG_ID + ".checkpoint() : Error writing checkpoint for " + path.getFileName() + " -> ", e);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Removes any segments starting at or after the given log position, since the server has gone back to it and will record them again. <br>
+	 * If the position is the checkpoint itself, the segments are kept, since they can then be replayed via {@link #replay(ServerData, ParseEventSink)}
+	 * @param position
+	 */
+	public synchronized void rewind(long position) {
+		load();
+		isRecording = false;
+		if (checkpointPosition == -1 || position == checkpointPosition) {
+			return;
+		}
+		for (int i = 0; i < segments.size(); i++) {
+			if (segments.get(i).getStartPosition() >= position) {
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+					channel.truncate(segments.get(i).fileOffset);
+					segments.subList(i, segments.size()).clear();
+					isSynced = false;
+				} catch (IOException e) {
+					Log.error(LOG_ID + ".rewind() : Error rewinding " + path.getFileName() + ", will clear journal until next checkpoint -> ", e);
+					invalidate();
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * If the given server is currently at this journal's checkpoint, this will hand every event in the journal to the given sink in order,
+	 * and return the last segment that was replayed. The server's log position should then be moved to the end of that segment. <br>
+	 * Otherwise, this does nothing and returns null
+	 * @param serverData
+	 * @param sink
+	 * @return
+	 * @throws ParseException
+	 */
+	public synchronized Segment replay(ServerData serverData, ParseEventSink sink) throws ParseException {
+		load();
+		if (checkpointPosition == -1 || segments.isEmpty() || serverData.getLogPosition() != checkpointPosition || checkpointStartTime == null || !checkpointStartTime.equals(serverData.getTimeStats().getStartTime())) {
+			return null;
+		}
+
+		ByteBuffer buffer;
+		try {
+			buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		} catch (IOException e) {
+			Log.error(LOG_ID + ".replay() : Error reading " + path.getFileName() + ", will not replay -> ", e);
+			invalidate();
+			return null;
+		}
+
+		ParseEvent event = new ParseEvent();
+		int numEvents = 0;
+		for (Segment segment : segments) {
+			buffer.position((int) segment.fileOffset + Integer.BYTES + Long.BYTES * 4); // Skip to the number of events
+			for (int i = buffer.getInt(); i > 0; i--) {
+				sink.onEvent(serverData, event.read(buffer));
+				numEvents++;
+			}
+		}
+		Segment last = segments.get(segments.size() - 1);
+		Log.info(LOG_ID + ".replay() : Replayed " + numEvents + " events for " + path.getFileName() + " from " + checkpointPosition + " to " + last.getEndPosition());
+		return last;
+	}
+
+	/**
+	 * Returns the log position where the journal currently leaves off
+	 * @return
+	 */
+	private long getEndPosition() {
+		return segments.isEmpty() ? checkpointPosition : segments.get(segments.size() - 1).getEndPosition();
+	}
+
+	/**
+	 * Loads the checkpoint and segments from the journal file if not already loaded. <br>
+	 * Any segment that is incomplete (e.g. from a crash while writing it) or that does not follow on from the one before it is dropped, along with everything after it
+	 */
+	private void load() {
+		if (isLoaded) {
+			return;
+		}
+		isLoaded = true;
+		if (!Files.exists(path)) {
+			return;
+		}
+
+		try {
+			byte[] data = Files.readAllBytes(path);
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			if (!TaggedDataReader.hasMagic(data, MAGIC) || buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+				invalidate();
+				return;
+			}
+			long position = buffer.getLong();
+			checkpointStartTime = TaggedDataReader.readString(buffer);
+			checkpointPosition = position;
+
+			long validEnd = buffer.position();
+			while (buffer.remaining() >= Integer.BYTES + SEGMENT_HEADER_SIZE) {
+				int fileOffset = buffer.position();
+				int length = buffer.getInt();
+				if (length < SEGMENT_HEADER_SIZE || buffer.remaining() < length) {
+					break;
+				}
+				Segment segment = new Segment(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(), fileOffset);
+				if (segment.getStartPosition() != getEndPosition()) {
+					break;
+				}
+				segments.add(segment);
+				buffer.position(fileOffset + Integer.BYTES + length);
+				validEnd = buffer.position();
+			}
+			if (validEnd < data.length) {
+				Log.warn(LOG_ID + ".load() : Dropping " + (data.length - validEnd) + " bytes of incomplete segments from " + path.getFileName());
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+					channel.truncate(validEnd);
+				}
+			}
+		} catch (Exception e) {
+			Log.error(LOG_ID + ".load() : Error loading " + path.getFileName() + ", will clear journal until next checkpoint -> ", e);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Clears the journal so that nothing is recorded or replayed until the next checkpoint
+	 */
+	private void invalidate() {
+		checkpointPosition = -1;
+		checkpointStartTime = null;
+		segments.clear();
+		isRecording = false;
+		isSynced = true;
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			Log.error(LOG_ID + ".invalidate() : Error deleting " + path.getFileName() + " -> ", e);
+		}
+	}
+
+	/**
+	 * A segment of the journal, covering everything parsed between two log positions
+	 * @author MatNova
+	 *
+	 */
+	public static class Segment {
+		private final long startPosition;
+		private final long endPosition;
+		private final long logTime;
+		private final long logTimeMillis;
+		private final long fileOffset;
+
+		private Segment(long startPosition, long endPosition, long logTime, long logTimeMillis, long fileOffset) {
+			this.startPosition = startPosition;
+			this.endPosition = endPosition;
+			this.logTime = logTime;
+			this.logTimeMillis = logTimeMillis;
+			this.fileOffset = fileOffset;
+		}
+
+		public long getStartPosition() {
+			return startPosition;
+		}
+
+		public long getEndPosition() {
+			return endPosition;
+		}
+
+		public long getLogTime() {
+			return logTime;
+		}
+
+		public long getLogTimeMillis() {
+			return logTimeMillis;
+		}
+	}
+}
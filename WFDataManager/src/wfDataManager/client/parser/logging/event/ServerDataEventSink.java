@@ -0,0 +1,443 @@
+package wfDataManager.client.parser.logging.event;
+
+import java.util.List;
+
+import jdtools.logging.Log;
+import jdtools.util.MiscUtil;
+import wfDataManager.client.cache.BanManagerCache;
+import wfDataManager.client.cache.PlayerTrackerCache;
+import wfDataManager.client.cache.WarframeItemCache;
+import wfDataManager.client.data.PlayerTracker;
+import wfDataManager.client.db.PlayerTrackerDao;
+import wfDataManager.client.type.ParseEventType;
+import wfDataManager.client.type.ProcessModeType;
+import wfDataManager.client.util.ClientSettingsUtil;
+import wfDataModel.model.data.PlayerData;
+import wfDataModel.model.data.ServerData;
+import wfDataModel.model.util.NetworkUtil;
+import wfDataModel.service.type.BanActionType;
+import wfDataModel.service.type.LevelType;
+
+/**
+ * Sink that applies parsed events to the server they were parsed for, i.e. updates the server and its players with what was parsed. <br>
+ * This holds no state of its own, so the same sink can be used for any number of servers.
+ * @author MatNova
+ *
+ */
+public class ServerDataEventSink implements ParseEventSink {
+
+	private static final String LOG_ID = ServerDataEventSink.class.getSimpleName();
+
+	@Override
+	public void onEvent(ServerData serverData, ParseEvent event) {
+		ParseEventType type = event.getType();
+		if (ParseEventType.KILL.equals(type)) {
+			applyKill(serverData, event);
+		} else if (ParseEventType.PLAYER_JOIN.equals(type)) {
+			applyPlayerJoin(serverData, event);
+		} else if (ParseEventType.PLAYER_SPAWN.equals(type)) {
+			applyPlayerSpawn(serverData, event);
+		} else if (ParseEventType.PLAYER_LEAVE.equals(type)) {
+			applyPlayerLeave(serverData, event);
+		} else if (ParseEventType.PLAYER_REMOVE.equals(type)) {
+			applyPlayerRemove(serverData, event);
+		} else if (ParseEventType.CONN_REMOVE.equals(type)) {
+			// Do this here to make sure we don't leave any lingering connHandle : acctID mappings
+			// This can happen if a player times out and we never assign them their connHandle and therefore no acctId,
+			// so this is done as a safety cleanup
+			serverData.removeAcctIdForConn(event.getConnHandle());
+		} else if (ParseEventType.CONN_HANDLE.equals(type)) {
+			applyConnHandle(serverData, event);
+		} else if (ParseEventType.CONN_PLAYER.equals(type)) {
+			mapPlayerIP(serverData, event.getConnHandle(), event.getName(), event.getPlatform());
+		} else if (ParseEventType.CONN_LOADOUT.equals(type)) {
+			applyConnLoadout(serverData, event);
+		} else if (ParseEventType.CONN_TIMEOUT.equals(type)) {
+			serverData.setLastConnHandle(event.getConnHandle());
+		} else if (ParseEventType.CONN_CONTACT.equals(type)) {
+			applyConnContact(serverData, event);
+		} else if (ParseEventType.ACCT_REQUEST.equals(type)) {
+			applyAccountRequest(serverData, event);
+		} else if (ParseEventType.ACCT_INTRO.equals(type)) {
+			applyAccountIntro(serverData, event);
+		} else if (ParseEventType.ACCT_PEER.equals(type)) {
+			applyAccountPeer(serverData, event);
+		} else if (ParseEventType.ACCT_RELAY.equals(type)) {
+			applyAccountRelay(serverData, event);
+		} else if (ParseEventType.MISSION_STAT.equals(type)) {
+			applyMissionStat(serverData, event);
+		} else if (ParseEventType.CAPTURE.equals(type)) {
+			applyCapture(serverData, event);
+		} else if (ParseEventType.GOAL.equals(type)) {
+			applyGoal(serverData, event);
+		} else if (ParseEventType.SERVER_PORT.equals(type)) {
+			serverData.setServerPort((int) event.getNumber());
+		} else if (ParseEventType.PROXY_BINDING.equals(type)) {
+			serverData.addProxyServer(event.getIPAndPort());
+		} else if (ParseEventType.BUILD_ID.equals(type)) {
+			applyBuildId(serverData, event);
+		} else if (ParseEventType.LAUNCH_DIR.equals(type)) {
+			serverData.setCurrentLaunchDir(event.getValue());
+		} else if (ParseEventType.PROFILE_DIR.equals(type)) {
+			serverData.setCurrentProfileDir(event.getValue());
+		} else if (ParseEventType.NRS_STATUS.equals(type)) {
+			serverData.setHasNRSIssue(event.getFlag());
+		} else if (ParseEventType.GAME_SETTINGS.equals(type)) {
+			serverData.setGameSettings(event.getValue());
+		} else if (ParseEventType.LEVEL.equals(type)) {
+			serverData.setLevel(LevelType.internalToType(event.getValue()));
+		} else if (ParseEventType.MATCH_START.equals(type)) {
+			serverData.getTimeStats().setMatchStartTime(event.getLogTime());
+		} else if (ParseEventType.MATCH_END.equals(type)) {
+			serverData.getTimeStats().setMatchStartTime(0);
+		} else if (ParseEventType.ACTIVITY.equals(type)) {
+			serverData.markServerActivity();
+		} else {
+			Log.warn(LOG_ID + ".onEvent() : Unknown event type " + type + ", will ignore");
+		}
+	}
+
+	private void applyBuildId(ServerData serverData, ParseEvent event) {
+		long buildId = event.getNumber();
+		// Don't do this if historical. Not needed and will also repeatedly do it as time goes on and builds update
+		if (ProcessModeType.NORMAL.equals(ClientSettingsUtil.getProcessMode()) && serverData.getBuildId() > -1 && buildId > serverData.getBuildId() && WarframeItemCache.singleton().updateCacheIfNeeded(buildId)) {
+			Log.info(LOG_ID + ".applyBuildId() : Build update detected, attempted item cache refresh");
+		}
+		serverData.setBuildId(buildId);
+	}
+
+	private void applyKill(ServerData serverData, ParseEvent event) {
+		PlayerData vp = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+		PlayerData kp = serverData.getPlayerByNameAndPlatform(event.getOtherName(), event.getOtherPlatform());
+		String weapon = event.getItem();
+
+		if (weapon != null) {
+			if (kp != null) {
+				kp.addWeaponKill(weapon);
+				serverData.addPlayerItemKill(kp.getUID(), weapon);
+			} else {
+				serverData.addMiscKill(weapon); // A player didn't kill someone, but we still have a "weapon" that killed the person. e.g. DamageTrigger
+			}
+		}
+
+		if (vp != null) {
+			vp.setDeaths(vp.getDeaths() + 1);
+			vp.setLastLogTime(event.getLogTime());
+
+			vp.addKilledBy(kp != null ? kp.getUID() : event.getOtherName(), weapon);
+		} else {
+			Log.warn(LOG_ID + ".applyKill() : Unknown victim player found! victim=" + event.getName() + ", logTime=" + event.getLogTime());
+		}
+
+		// Certain nonsense things can be listed as killer (e.g. "/Layer2/DamageTrigger0", or "a level 30 RUMBLER")
+		// So don't count as an actual player kill if so
+		if (kp != null) {
+			kp.setKills(kp.getKills() + 1);
+			kp.setLastLogTime(event.getLogTime());
+		}
+	}
+
+	private void applyPlayerJoin(ServerData serverData, ParseEvent event) {
+		PlayerData p = serverData.getPlayer(event.getUID());
+		if (p == null) {
+			p = new PlayerData();
+			p.setUID(event.getUID());
+			p.setLogID(serverData.getId());
+			p.setEloRating(serverData.getEloRating());
+			p.setGameMode(serverData.getGameModeId());
+			p.setPlatform(event.getPlatform());
+			p.setLastLogTime(event.getLogTime());
+			serverData.addPlayer(p);
+		} else {
+			serverData.setPlayerLeftServer(p, false, event.getLogTime());
+		}
+		serverData.renamePlayer(p, event.getName());
+	}
+
+	private void applyPlayerSpawn(ServerData serverData, ParseEvent event) {
+		PlayerData player = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+		if (player != null) {
+			player.setLastLogTime(event.getLogTime());
+		} else {
+			Log.warn(LOG_ID + ".applyPlayerSpawn() : Could not find player for joinMatcher parse -> " + event.getName());
+		}
+	}
+
+	private void applyPlayerLeave(ServerData serverData, ParseEvent event) {
+		int connHandle = event.getConnHandle();
+		PlayerData player = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+		if (player != null) {
+			serverData.setPlayerLeftServer(player, true, event.getLogTime());
+			// It's possible that a player joined but timed out at some point early on during loading
+			// If this happens, they may not ever get assigned the connHandle and IP,
+			// so we assign it here when they disconnect to try and handle any cleanup properly
+			if (player.getConnHandle() == -1 && !MiscUtil.isEmpty(serverData.getIPAndPort(connHandle))) {
+				player.setConnHandle(connHandle);
+				player.setIPAndPort(serverData.getIPAndPort(connHandle));
+				Log.warn(LOG_ID + ".applyPlayerLeave() : Player did not have connHandle assigned on leave, will assign now -> player=" + player.getPlayerName() + ", hndl=" + player.getConnHandle() + ", ip=" + player.getIPAndPort());
+				if (!MiscUtil.isEmpty(serverData.getAcctIdForConn(connHandle))) {
+					player.setAccountID(serverData.getAcctIdForConn(connHandle));
+					Log.info("SETTING PLAYER ACCTID " + player.getPlayerName() + "(" + player.getUID() + ") TO " + player.getAccountID() + " ON LEAVE");
+					serverData.removeAccountIDCandidate(player.getAccountID());
+				}
+			}
+			if (!MiscUtil.isEmpty(player.getAccountID())) {
+				serverData.removeAccountIDMapping(player.getAccountID());
+			}
+		} else {
+			Log.warn(LOG_ID + ".applyPlayerLeave() : Could not find player for leaveMatcher parse -> " + event.getName());
+		}
+		serverData.removeAcctIdForConn(connHandle);
+	}
+
+	private void applyPlayerRemove(ServerData serverData, ParseEvent event) {
+		PlayerData player = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+		if (player != null) {
+			serverData.setPlayerLeftServer(player, true, event.getLogTime());
+			if (!MiscUtil.isEmpty(player.getAccountID())) {
+				serverData.removeAccountIDMapping(player.getAccountID());
+			}
+		} else {
+			Log.warn(LOG_ID + ".applyPlayerRemove() : Could not find player for leaveMatcherB parse -> " + event.getName());
+		}
+	}
+
+	private void applyConnHandle(ServerData serverData, ParseEvent event) {
+		String ipPort = event.getIPAndPort();
+		int connId = event.getConnHandle();
+		String acctId = serverData.getAccountIDMapping(ipPort);
+
+		if (!MiscUtil.isEmpty(acctId)) {
+			Log.info("MAPPING " + connId + " TO " + acctId + " SID=" + serverData.getNumericId() + ", IP=" + ipPort + ", REUSE=" + event.getFlag());
+			serverData.setAcctIdForConn(connId, acctId, ipPort);
+		} else {
+			Log.warn(LOG_ID + ".applyConnHandle() : No associated acctId found for " + ipPort);
+		}
+
+		String ip = ipPort.substring(0, ipPort.indexOf(":"));
+		// This isn't a proxy, so just count as a constant port of 0
+		if (!serverData.isProxyIP(ip)) {
+			ipPort = ip + ":0";
+		}
+
+		serverData.addConnHandle(connId, ipPort);
+	}
+
+	private void applyConnLoadout(ServerData serverData, ParseEvent event) {
+		String playerName = event.getName();
+		PlayerData player = serverData.getPlayerByNameAndPlatform(playerName, event.getPlatform());
+		if (player != null && (MiscUtil.isEmpty(player.getIPAndPort()) || player.getConnHandle() < 0)) {
+			Integer connId = serverData.getGuessConnMapping(playerName);
+			if (connId != null) {
+				mapPlayerIP(serverData, connId, playerName, event.getPlatform());
+			} else {
+				Log.warn(LOG_ID + ".applyConnLoadout() : No best-guess conn handle mapping found for player " + playerName);
+			}
+		}
+	}
+
+	private void applyConnContact(ServerData serverData, ParseEvent event) {
+		if (serverData.getLastConnHandle() != -1) {
+			serverData.addGuessConnMapping(serverData.getLastConnHandle(), event.getName());
+			serverData.setLastConnHandle(-1);
+		} else {
+			Log.warn(LOG_ID + ".applyConnContact() : No last parsed conn handle found, cannot map for player " + event.getName());
+		}
+	}
+
+	private void mapPlayerIP(ServerData serverData, int connId, String playerName, int platform) {
+		String ipPort = serverData.getIPAndPort(connId);
+		if (!MiscUtil.isEmpty(ipPort)) {
+			PlayerData player = serverData.getPlayerByNameAndPlatform(playerName, platform);
+			if (player != null && (!ipPort.equals(player.getIPAndPort()) || player.getConnHandle() != connId)) {
+				player.setIPAndPort(ipPort);
+				player.setConnHandle(connId);
+				if (!MiscUtil.isEmpty(serverData.getAcctIdForConn(connId))) {
+					player.setAccountID(serverData.getAcctIdForConn(connId));
+					Log.info("SETTING PLAYER ACCTID " + playerName + "(" + player.getUID() + ") TO " + player.getAccountID());
+					serverData.markAccountIDFullyMapped(connId);
+				}
+
+				// If this player is marked as being currently banned, then submit another ban request for them now
+				if (ClientSettingsUtil.enableBanning() && BanManagerCache.singleton().isCurrentlyBanned(player.getUID())) {
+					BanManagerCache.singleton().manageBan(BanManagerCache.singleton().getBanData(player.getUID()), BanActionType.ADD, player.getIPAndPort(), BanManagerCache.singleton().isPermaBanned(player.getUID()) ? "Permaban" : "Ban evasion");
+				}
+
+				String ip = ipPort.split(":")[0];
+				// If this isn't a proxyIP and we just mapped it to a player, check if this player has any relation to any tracked players
+				if (!serverData.isProxyIP(ip)) {
+					List<PlayerTracker> trackers = PlayerTrackerCache.singleton().getPlayerTrackers(player.getUID(), ip);
+					if (!MiscUtil.isEmpty(trackers)) {
+						for (PlayerTracker tracker : trackers) {
+							// Trackers are shared between servers, which may be parsed at the same time
+							synchronized (tracker) {
+								if ((tracker.getUID().equals(player.getUID()) || tracker.getKnownIPs().contains(ip) || tracker.getKnownAlts().containsKey(player.getUID())) && tracker.updateTracker(player.getUID(), player.getPlayerName(), ip)) {
+									PlayerTrackerDao.updatePlayerTracker(tracker);
+									Log.info(LOG_ID + ".mapPlayerIP() : Found new match for player tracker: trackerUID=" + tracker.getUID() + ", playerUID=" + player.getUID() + ", playerName=" + playerName + ", playerIP=" + ip);
+								}
+							}
+						}
+					}
+				}
+			} else if (player == null) {
+				Log.warn(LOG_ID + ".mapPlayerIP() : Could not find player for connHandle " + connId + ", player=" + playerName);
+			}
+			serverData.removeGuessConnMapping(playerName);
+		} else {
+			Log.warn(LOG_ID + ".mapPlayerIP() : Could not find IP mapping for connHandle " + connId);
+		}
+	}
+
+	private void applyAccountRequest(ServerData serverData, ParseEvent event) {
+		// Requests of this type are treated as "primary" connections,
+		// since they provide more information about the connection and tend to not overlap with other connections
+		// i.e. we don't typically see the same accountID shared across different IPs for these messages, unless it's from DE's proxy
+		String acctId = event.getAccountID();
+		String ipAndPort = event.getIPAndPort();
+		long lastLogTime = event.getLogTime();
+		String relayIPPort = serverData.getRelayIPMapping(ipAndPort);
+		boolean isDirectIntro = event.getFlag();
+		boolean isRealDirect = !event.isProxy() && isDirectIntro;
+
+		// If this acctId is already mapped, then it's no longer a candidate
+		if (!serverData.hasAccountIDMapping(ipAndPort, lastLogTime)) {
+			serverData.addAccountIDCandidate(ipAndPort, acctId, lastLogTime, true, isRealDirect);
+		}
+		if (!isDirectIntro && !MiscUtil.isEmpty(relayIPPort) && !serverData.hasAccountIDMapping(relayIPPort, lastLogTime)) {
+			serverData.addAccountIDCandidate(relayIPPort, acctId, lastLogTime, true, isRealDirect);
+		}
+	}
+
+	private void applyAccountIntro(ServerData serverData, ParseEvent event) {
+		// Requests of this type are treated as "secondary" connections, which are weighted the lowest in terms of acctId mapping candidates
+		// These tend to be all over the place and can have the same acctId mapped to multiple IPs frequently
+		// They also can be interconnected with relay requests, in which case we attempt to reverse map it based on the relay
+		String acctId = event.getAccountID();
+		String ipAndPort = event.getIPAndPort();
+		long lastLogTime = event.getLogTime();
+
+		// If this acctId is already mapped, then it's no longer a candidate
+		if (!serverData.hasAccountIDMapping(ipAndPort, lastLogTime)) {
+			serverData.addAccountIDCandidate(ipAndPort, acctId, lastLogTime, false, false);
+			// If this IP is the mapped value of a relay IP, then we'll check what acctId is mapped to the relayed IP
+			// If there is an acct and it matches the acct provided here, then we will consider
+			// this IP as a primary candidate for the acct because this IP was the last one referenced by the relay IP,
+			// meaning there's less chance of multiple IPs getting mixed across eachother in the log messages
+			String relayIPAndPort = serverData.getRelayReverseIPMapping(ipAndPort);
+			if (!MiscUtil.isEmpty(relayIPAndPort)) {
+				String relayAcct = serverData.getAccountIDCandidate(relayIPAndPort, lastLogTime);
+				if (!MiscUtil.isEmpty(relayAcct) && relayAcct.equals(acctId)) {
+					serverData.addAccountIDCandidate(ipAndPort, acctId, lastLogTime, true, false);
+				}
+			}
+		}
+	}
+
+	private void applyAccountPeer(ServerData serverData, ParseEvent event) {
+		String ipAndPort = event.getIPAndPort();
+		long lastLogTime = event.getLogTime();
+		// At this point, this is when a player has joined the squad officially, and so we have their IP that they've been logged as
+		// We'll check for the best candidate for that IP at this point and assign the acctId to this IP officially, which will be assigned
+		// to the player later on (during connection parsing)
+
+		// If this acctId is already mapped, nothing to do here
+		if (!serverData.hasAccountIDMapping(ipAndPort, lastLogTime)) {
+			String acctId = serverData.getAccountIDCandidate(ipAndPort, lastLogTime);
+			if (MiscUtil.isEmpty(acctId)) {
+				Log.warn(LOG_ID + ".applyAccountPeer() : Could not find acctId candidate for " + ipAndPort);
+			} else {
+				serverData.addAccountIDMapping(ipAndPort, acctId, lastLogTime, true);
+				serverData.removeAccountIDCandidate(acctId);
+			}
+		}
+	}
+
+	private void applyAccountRelay(ServerData serverData, ParseEvent event) {
+		// Requests of this type are when the server is receiving requests from DE's proxies in response to a request from a person's IP
+		// Essentially DE's proxy is sending the introduction request to us on behalf of a person
+		// When this happens, we map the relay IP to the IP it was sent on behalf of
+		String relayIP = event.getOtherIPAndPort();
+		String ipAndPort = event.getIPAndPort();
+		long lastLogTime = event.getLogTime();
+
+		// If the relay IP is currently mapped to an IP, and the relay IP has an acctId candidate mapped to it,
+		// then we check all of the IP and port combos for the acctId that the relayIP is mapped to.
+		// If any of the mappings have the same IP as this one but a different port, we consider that a conflict of interest and do not want to remap it
+		// This is the case when multiple people from the same household start to join at once, which can lead to a flurry of log messages that make it even more annoying
+		// to accurately map IPs to accts
+		// If the relayIP is not currently mapped to anything, then we just map it to this IP
+		String currentRelayedIPPort = serverData.getRelayIPMapping(relayIP);
+		if (!MiscUtil.isEmpty(currentRelayedIPPort)) {
+			String[] ipParts = ipAndPort.split(":");
+			boolean hasConflict = false;
+
+			String acctId = serverData.getAccountIDCandidate(relayIP, lastLogTime);
+			if (!MiscUtil.isEmpty(acctId)) {
+				List<String> ipAndPorts = serverData.getIPAndPortsForAccountIDCandidates(acctId, lastLogTime);
+				for (String acctIPPort : ipAndPorts) {
+					String[] acctIPPortParts = acctIPPort.split(":");
+					if (acctIPPortParts[0].equals(ipParts[0]) && !acctIPPortParts[1].equals(ipParts[1])) {
+						hasConflict = true;
+						break;
+					}
+				}
+			}
+
+			// Remove any currently mapped candidates that fall under this relayIP to avoid any mismatches with previously mapped ones
+			serverData.removeAccountIDCandidates(relayIP);
+
+			// If there is no conflict in mapping, then we'll just map this relay to its associated IP
+			// Otherwise if there is a conflict and the current mapping is a private IP, we'll just remap it
+			// to this IP since we can consider a private IP to essentially be an invalid mapping. Otherwise
+			// we'll remove the mapping for this relay IP so the next one gets mapped to it
+			if (!hasConflict) {
+				serverData.setRelayIPMapping(relayIP, ipAndPort);
+			} else {
+				Log.info("CONFLICT , relay=" + relayIP + ", ipAndPort=" + ipAndPort + ", current=" + currentRelayedIPPort);
+				serverData.setRelayIPMapping(relayIP, NetworkUtil.isPrivateIP(currentRelayedIPPort) ? ipAndPort : null);
+			}
+		} else {
+			serverData.setRelayIPMapping(relayIP, ipAndPort);
+		}
+	}
+
+	private void applyCapture(ServerData serverData, ParseEvent event) {
+		PlayerData player = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+		if (player != null) {
+			player.setCaptures(player.getCaptures() + 1);
+			player.setLastLogTime(event.getLogTime());
+		} else {
+			Log.warn(LOG_ID + ".applyCapture() : Could not match ID to player for Cephalon Capture log, player=" + event.getName());
+		}
+	}
+
+	private void applyGoal(ServerData serverData, ParseEvent event) {
+		PlayerData player = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+		if (player != null) {
+			// Note we store goals in the 'mechanics' field since this is where it comes from in the mission stats
+			player.setMechanics(player.getMechanics() + 1);
+			player.setLastLogTime(event.getLogTime());
+		} else {
+			Log.warn(LOG_ID + ".applyGoal() : Could not match ID to player for Lunaro goal score log, player=" + event.getName());
+		}
+	}
+
+	private void applyMissionStat(ServerData serverData, ParseEvent event) {
+		PlayerData p = serverData.getPlayerByNameAndPlatform(event.getName(), event.getPlatform());
+
+		// Don't expect this, but just in case
+		if (p == null) {
+			Log.warn(LOG_ID + ".applyMissionStat() : Did not have player data for " + event.getName() + " at round end!?");
+		} else {
+			// For Lunaro, the round-end kills and deaths are passes and interceptions, respectively
+			// For other modes, we build actual k/d up over time, so don't add them here
+			if (p.isForLunaro()) {
+				p.setKills(p.getKills() + event.getKills());
+				p.setDeaths(p.getDeaths() + event.getDeaths());
+			}
+			p.setMechanics(p.getMechanics() + event.getMechanics());
+			p.setRounds(p.getRounds() + 1);
+			p.setLastLogTime(event.getLogTime());
+		}
+	}
+}
@@ -1,40 +1,57 @@
 package wfDataManager.client.processor.logging;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.text.ParseException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+import jdtools.exception.ProcessingException;
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
+import wfDataManager.client.cache.ItemResolutionCache;
+import wfDataManager.client.cache.ParseJournalCache;
+import wfDataManager.client.cache.ParserStatsCache;
 import wfDataManager.client.cache.ServerDataCache;
+import wfDataManager.client.data.LogReadResult;
+import wfDataManager.client.data.LogTailState;
 import wfDataManager.client.db.ActivityDao;
 import wfDataManager.client.db.GameDataDao;
 import wfDataManager.client.db.ProcessorVarDao;
 import wfDataManager.client.db.ServerDao;
 import wfDataManager.client.db.manager.ResourceManager;
+import wfDataManager.client.parser.logging.BaseEventLogParser;
 import wfDataManager.client.parser.logging.BaseLogParser;
 import wfDataManager.client.parser.logging.BindingParser;
 import wfDataManager.client.parser.logging.BuildIDParser;
@@ -46,6 +63,7 @@ import wfDataManager.client.parser.logging.GPFParser;
 import wfDataManager.client.parser.logging.GameSettingsParser;
 import wfDataManager.client.parser.logging.GameStateParser;
 import wfDataManager.client.parser.logging.IntroductionRequestParser;
+import wfDataManager.client.parser.logging.LogParserDispatcher;
 import wfDataManager.client.parser.logging.LunaroGoalParser;
 import wfDataManager.client.parser.logging.MissionStatsParser;
 import wfDataManager.client.parser.logging.NRSIssueParser;
@@ -53,6 +71,14 @@ import wfDataManager.client.parser.logging.PlayerConnectionParser;
 import wfDataManager.client.parser.logging.PlayerJoinParser;
 import wfDataManager.client.parser.logging.PlayerKillParser;
 import wfDataManager.client.parser.logging.PlayerLeaveParser;
+import wfDataManager.client.parser.logging.event.JournalEventSink;
+import wfDataManager.client.parser.logging.event.ParseEventBuffer;
+import wfDataManager.client.parser.logging.event.ParseEventSink;
+import wfDataManager.client.parser.logging.event.ParseJournal;
+import wfDataManager.client.parser.logging.event.ServerDataEventSink;
+import wfDataManager.client.processor.logging.reader.LogLineReader;
+import wfDataManager.client.type.CompressionType;
+import wfDataManager.client.type.ParseEventType;
 import wfDataManager.client.type.ParseResultType;
 import wfDataManager.client.util.ClientSettingsUtil;
 import wfDataManager.client.util.RequestUtil;
@@ -68,23 +94,51 @@ import wfDataModel.service.type.GameDataType;
  */
 public abstract class BaseLogProcessor {
 	
-	protected static final Matcher TIME_PATTERN = Pattern.compile("^(\\d+)\\..*").matcher("");
 	protected static final String DEFAULT_SERVER_LOG_ID = "99";
 	protected String LOG_ID = getClass().getSimpleName();
 
 	protected long numRuns = 0;
+	private boolean isFullRun = true; // If the current run is for all logs, rather than only some of them (e.g. ones seen to have changed)
 	protected Map<String, File> logFiles = new ConcurrentHashMap<String, File>(8); // LogID -> data. Start at 8, will increase on its own as needed
 	protected List<ServerData> serverInfos = new ArrayList<ServerData>();  // Servers that were included in current parse
-	protected List<BaseLogParser> parsers = Arrays.asList(new BindingParser(), new BuildIDParser(), new CephalonCaptureParser(), new CurrentDirectoryParser(), new CurrentProfileParser(), new CurrentTimeParser(), new GameSettingsParser(), new GameStateParser(), new GPFParser(), 
-			new IntroductionRequestParser(), new LunaroGoalParser(), new MissionStatsParser(), new NRSIssueParser(), new PlayerConnectionParser(), new PlayerJoinParser(), new PlayerKillParser(), new PlayerLeaveParser());
+	protected Map<String, LogTailState> tailStates = new ConcurrentHashMap<String, LogTailState>(8); // LogID -> tail state for logs whose header was already verified
+	private AtomicInteger numParseThreads = new AtomicInteger();
+	protected ExecutorService parsePool = Executors.newFixedThreadPool(ClientSettingsUtil.getParseThreads(), r -> {
+		Thread t = new Thread(r, LOG_ID + "-" + numParseThreads.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	});
+	private ThreadLocal<LogParserDispatcher> dispatchers = ThreadLocal.withInitial(() -> new LogParserDispatcher(createParsers())); // Parsers are confined to the thread using them
+	private ThreadLocal<ParseEventBuffer> eventBuffers = ThreadLocal.withInitial(() -> new ParseEventBuffer(ParseEventBuffer.DEFAULT_CAPACITY, createEventSinks())); // As are the events they emit
 	private int jamThreshold = ClientSettingsUtil.getJamThreshold();
 	private boolean enableAlerts = ClientSettingsUtil.enableAlerts();
 	private boolean shouldPersist = ClientSettingsUtil.persist();
 	private boolean printServerData = ClientSettingsUtil.printServerData();
 	private boolean shareData = ClientSettingsUtil.enableDataSharing();
+	private boolean enableJournal = ParseJournalCache.singleton().isEnabled();
+	private ServerDataEventSink replaySink = new ServerDataEventSink(); // Used to apply journaled events, which should not be journaled again
+
+	/**
+	 * Starts anything this processor runs in the background, if it has not been started already. This should be called before logs are first processed
+	 */
+	public void start() {
+		// Nothing by default
+	}
 
 	public void processLogs() throws SQLException {
-		findLogFiles();
+		processLogs(null);
+	}
+
+	/**
+	 * Processes the logs for the given log IDs only, or if null, will find any log files and process all of them. <br>
+	 * Only one set of logs will be processed at a time
+	 * @param logIds
+	 * @throws SQLException
+	 */
+	public synchronized void processLogs(Collection<String> logIds) throws SQLException {
+		if (logIds == null) {
+			findLogFiles();
+		}
 
 		if (logFiles.isEmpty()) {
 			Log.warn(LOG_ID + ".processLogs() : No log files found to read! Will do nothing...");
@@ -92,68 +146,177 @@ public abstract class BaseLogProcessor {
 		}
 
 		serverInfos.clear();
+		isFullRun = logIds == null;
 		
-		for (String logId : logFiles.keySet()) {
+		// Each log is read on its own thread from the parse pool
+		// Results are then handled here in the same order as the logs, and only once every log is done,
+		// so that post processing and submitting the data all see one consistent cycle
+		Map<String, Future<LogReadResult>> logReads = new LinkedHashMap<String, Future<LogReadResult>>(logFiles.size());
+		for (String logId : logIds == null ? logFiles.keySet() : logIds) {
 			File f = logFiles.get(logId);
+			if (f == null) {
+				continue;
+			}
 			ServerData serverData = ServerDataCache.singleton().getServerData(logId);
+			logReads.put(logId, parsePool.submit(() -> readLog(logId, f, serverData)));
+		}
 
-			if (!f.exists()) {
-				serverData.addNumMiss();
-				Log.warn(LOG_ID + ".processLogs() : File for logId " + logId + " no longer present, skipping...");
+		for (String logId : logReads.keySet()) {
+			LogReadResult readResult = null;
+			try {
+				readResult = logReads.get(logId).get();
+			} catch (InterruptedException e) {
+				Log.warn(LOG_ID + ".processLogs() : Interrupted while waiting on parse for logId " + logId);
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				Log.error(LOG_ID + ".processLogs() : Error parsing logId " + logId + " -> ", e.getCause());
 				continue;
 			}
 
-			boolean isReadingMissionStats = false;
-			boolean logReachedEnd = false;
-			long lastPosition = serverData.getLogPosition();
-
-			if (serverData.isParsing()) {
-				Log.warn(LOG_ID + ".processLogs() : Server is already marked as currently parsing for " + f.getName() + ". Is another thread stuck on it? Skipping");
-			} else if (lastPosition == -1) {
-				Log.warn(LOG_ID + ".processLogs() : Could not establish last line for " + f.getName() + ", skipping");
-			} else {
-				Log.info(LOG_ID + ".processLogs() : Processing for " + f.getName());
-				try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(f.getAbsolutePath()), StandardOpenOption.READ), StandardCharsets.UTF_8))) {
-					long offset = 0;
-					String line = null;
-					
-					long lastLogTime = -1;
-					int lineLen = 0;
-					serverData.setIsParsing(true);
-
-					while ((line = fileReader.readLine()) != null) {
-						lineLen = line.length() + System.lineSeparator().length();
-						fileReader.mark(2);
-						// If this is the last line of the file, then break here and stop processing
-						// This is because the last line might not be fully written at this point (i.e. names or values could be cut off)
-						// Value of offset variable will be set to the end of the previous line here
-						// On the next read, it'll pick up from there and get this line fully
-						// NOTE: This technically means for a historical read, it would never parse the last line. But this should be okay
-						if (fileReader.read() == -1) {
+			if (readResult.isIncluded()) {
+				serverInfos.add(readResult.getServerData());
+			}
+			if (readResult.wasRead()) {
+				// Perform any post-processing tasks that may be specific to a given processor
+				postProcessing(readResult.getServerData());
+				
+				// Notify if the end of the log was reached, in case anything needs to happen
+				if (readResult.reachedEnd()) {
+					logEnded(readResult.getServerData());
+				}
+			}
+		}
+		if (enableJournal) {
+			ParseJournalCache.singleton().syncAll(); // Once for everything journaled this cycle, before it is stored
+		}
+		
+		submitData();
+		// Only full runs are counted, since these are what determine when to check for new log files
+		if (logIds == null) {
+			numRuns++;
+		}
+	}
+
+	/**
+	 * Reads and parses any new data from the given log file for the given server. <br>
+	 * This is run from the parse pool, and so should only touch the given server and this thread's own parsers
+	 * @param logId
+	 * @param f
+	 * @param serverData
+	 * @return
+	 */
+	protected LogReadResult readLog(String logId, File f, ServerData serverData) {
+		LogReadResult readResult = new LogReadResult(serverData);
+
+		if (!f.exists()) {
+			tailStates.remove(logId);
+			serverData.addNumMiss();
+			Log.warn(LOG_ID + ".readLog() : File for logId " + logId + " no longer present, skipping...");
+			return readResult;
+		}
+
+		boolean isReadingMissionStats = false;
+		boolean logReachedEnd = false;
+		boolean isReplayed = false;
+		long lastPosition = serverData.getLogPosition();
+
+		if (serverData.isParsing()) {
+			Log.warn(LOG_ID + ".readLog() : Server is already marked as currently parsing for " + f.getName() + ". Is another thread stuck on it? Skipping");
+		} else if (lastPosition == -1) {
+			Log.warn(LOG_ID + ".readLog() : Could not establish last line for " + f.getName() + ", skipping");
+		} else {
+			Log.info(LOG_ID + ".readLog() : Processing for " + f.getName());
+			LogParserDispatcher dispatcher = dispatchers.get();
+			dispatcher.reorder(ParserStatsCache.singleton().getParserStats(serverData)); // Try the parsers that match most often for this server first
+			ParseEventBuffer events = eventBuffers.get();
+			events.start(serverData);
+			ParseJournal journal = enableJournal ? ParseJournalCache.singleton().getJournal(serverData) : null;
+			Path logPath = Paths.get(f.getAbsolutePath());
+			try (FileChannel logChannel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+				long offset = 0;
+				if (serverData.isCharLogPosition()) {
+					lastPosition = toByteOffset(f, lastPosition);
+					serverData.setLogPosition(lastPosition);
+				}
+				
+				long lastLogTime = -1;
+				long lastLogTimeMillis = -1;
+				serverData.setIsParsing(true);
+
+				// If this log's header was already verified on a previous read and it's still the same file, 
+				// then skip reading the header again and start directly from where we left off. This does the same as CurrentTimeParser would on a SKIP
+				String fileIdentity = LogTailState.getFileIdentity(logPath);
+				LogTailState tailState = tailStates.get(logId);
+				if (tailState != null && tailState.canTail(fileIdentity, logChannel, serverData)) {
+					serverData.startNewParse(false);
+					offset = lastPosition;
+					// The lines with timestamps before this point won't be read again, so carry on from the last log time read
+					// This way if nothing new is read, the server keeps its current log time instead of having it unset
+					lastLogTime = serverData.getTimeStats().getLogTime();
+					lastLogTimeMillis = serverData.getTimeStats().getLogTimeMillis();
+					// If anything parsed since the last checkpoint was not stored, replay it from the journal and continue from where it left off
+					ParseJournal.Segment replayed = replayJournal(journal, serverData, offset);
+					if (replayed != null) {
+						offset = replayed.getEndPosition();
+						lastLogTime = replayed.getLogTime();
+						lastLogTimeMillis = replayed.getLogTimeMillis();
+						isReplayed = true;
+					}
+				} else {
+					tailStates.remove(logId);
+				}
+				// Compressed logs are read through a decompressing reader, so their positions don't match the bytes on disk and they are always read in full
+				boolean canTailLog = CompressionType.NONE.equals(CompressionType.fileToType(f.getName()));
+				byte[] header = null; // Bytes of the log up to and including the line with the log's start time
+				try (LogLineReader fileReader = openReader(f, logChannel, offset)) {
+					// Only complete lines are returned by the reader. If the last line in the file is still being written, it will be picked up 
+					// on the next read since the offset will still be at the end of the previous line
+					while (true) {
+						if (!fileReader.nextLine()) {
 							logReachedEnd = true;
 							break;
 						}
-						fileReader.reset();
 
 						// Just for getting current seconds timestamp from line
-						if (TIME_PATTERN.reset(line).matches()) {
-							lastLogTime = Long.valueOf(TIME_PATTERN.group(1));
+						long prevLogTime = lastLogTime;
+						long prevLogTimeMillis = lastLogTimeMillis;
+						long lineTime = fileReader.getLineTime();
+						if (lineTime != -1) {
+							lastLogTime = lineTime;
+							lastLogTimeMillis = fileReader.getLineTimeMillis();
 							if (serverData.getTimeStats().getRolloverTime() > 0 && lastLogTime >= serverData.getTimeStats().getRolloverTime()) {
-								Log.info(LOG_ID + ".processLogs() : Stopping parsing for " + logId + " due to date-rollover detection");
+								Log.info(LOG_ID + ".readLog() : Stopping parsing for " + logId + " due to date-rollover detection");
 								break;
 							}
 						}
 
+						// Only lines that have a keyword for at least one parser are decoded and given to the parsers, which most lines won't
 						ParseResultType result = null;
-						for (BaseLogParser parser : parsers) {
-							if (parser.canParse(line)) {
-								result = parser.parse(serverData, offset, lastLogTime);
-								break;
+						long candidates = fileReader.getLineCandidates(dispatcher);
+						BaseLogParser parser = candidates == 0 ? null : dispatcher.findParser(fileReader.getLine(), candidates);
+						if (parser != null) {
+							// Parsers that update the server directly can't be journaled, so the journal for this read ends before them
+							// This is only CurrentTimeParser, which is at the start of the log, so otherwise events are only applied in batches
+							if (journal != null && !(parser instanceof BaseEventLogParser)) {
+								events.drain();
+								journal.endSegment(offset, prevLogTime, prevLogTimeMillis);
+							}
+							result = parser.parse(serverData, events, offset, lastLogTime);
+							if (canTailLog && header == null && parser instanceof CurrentTimeParser) {
+								header = LogTailState.readHeader(logChannel, fileReader.getPosition());
 							}
 						}
 						if (ParseResultType.SKIP.equals(result)) {
-							fileReader.skip(lastPosition - (offset + lineLen));
-							offset = lastPosition - lineLen;
+							ParseJournal.Segment replayed = replayJournal(journal, serverData, lastPosition);
+							if (replayed != null) {
+								fileReader.seek(replayed.getEndPosition());
+								lastLogTime = replayed.getLogTime();
+								lastLogTimeMillis = replayed.getLogTimeMillis();
+								isReplayed = true;
+							} else {
+								fileReader.seek(lastPosition);
+							}
 						} else if (ParseResultType.START_MISSION.equals(result)) {
 							isReadingMissionStats = true;
 						} else if (ParseResultType.END_MISSION.equals(result)) {
@@ -166,61 +329,182 @@ public abstract class BaseLogProcessor {
 						}
 						// Else, assumed OK or not something we cared about parsing, and continue reading
 						
-						offset += lineLen;
+						offset = fileReader.getPosition();
 
 						// If the log time is >= our next determined server activity time, mark the activity at this time after this line has been parsed
+						// The next activity time is only moved once this is applied, so the batch of events up to here is applied now
 						if (lastLogTime >= serverData.getTimeStats().getActivityTime()) {
-							serverData.markServerActivity();
+							events.emit(ParseEventType.ACTIVITY, offset, lastLogTime);
+							events.drain();
 						}
 					}
+				}
+				// Make sure everything that was parsed has been applied before finishing up the read
+				events.drain();
+
+				// If we get to this point and isReadingMissionStats is true, this means we never found the end of the mission stats
+				// This could happen if we read the log while it was in the middle of printing the stats
+				// In this case, reset the parsing as if an error occurred
+				// This most likely will never occur, but should handle it just in case
+				if (isReadingMissionStats) {
+					isReadingMissionStats = false;
+					Log.warn(LOG_ID + ".readLog() : Reached end of log while in middle of reading mission stats for server " + logId + ", will reset parse");
+					serverData.resetParse(true);
+					return readResult;
+				}
+				if (journal != null) {
+					journal.endSegment(offset, lastLogTime, lastLogTimeMillis);
+				}
 
-					// If we get to this point and isReadingMissionStats is true, this means we never found the end of the mission stats
-					// This could happen if we read the log while it was in the middle of printing the stats
-					// In this case, reset the parsing as if an error occurred
-					// This most likely will never occur, but should handle it just in case
-					if (isReadingMissionStats) {
-						isReadingMissionStats = false;
-						Log.warn(LOG_ID + ".processLogs() : Reached end of log while in middle of reading mission stats for server " + logId + ", will reset parse");
-						serverData.resetParse(true);
-						continue;
-					}
-
-					// If we ended up not reading anything at all, consider it a repeat read (i.e. nothing new was read)
-					if (offset == serverData.getLogPosition()) {
-						serverData.addNumRepeat();
-					} else {
-						serverData.clearNumRepeats();
-					}
-
-					serverData.getTimeStats().setLogTime(lastLogTime);
-					serverData.setLogPosition(offset);
-					serverInfos.add(serverData);
-				} catch (Exception e) {
-					Log.error(LOG_ID + ".processLogs() : Error parsing file " + f.getName() + " -> ", e);
-					serverData.resetParse(true); // Reset all currently parsed data if error occurred
-				} finally {
-					serverData.setIsParsing(false); // Done parsing for this server
+				// If we ended up not reading anything at all, consider it a repeat read (i.e. nothing new was read)
+				if (offset == serverData.getLogPosition() && !isReplayed) {
+					serverData.addNumRepeat();
+				} else {
+					serverData.clearNumRepeats();
 				}
+
+				serverData.getTimeStats().setLogTime(lastLogTime);
+				serverData.getTimeStats().setLogTimeMillis(lastLogTimeMillis);
+				serverData.setLogPosition(offset);
+				readResult.setIncluded(true);
 				
-				// Perform any post-processing tasks that may be specific to a given processor
-				postProcessing(serverData);
-				
-				// Notify if the end of the log was reached, in case anything needs to happen
-				if (logReachedEnd) {
-					logEnded(serverData);
+				// Now that the header for this log has been read, can tail it from here on as long as it remains the same file
+				// If the log was tailed, the state from when its header was read is kept
+				if (header != null && !MiscUtil.isEmpty(serverData.getTimeStats().getStartTime())) {
+					tailStates.put(logId, new LogTailState(fileIdentity, serverData.getTimeStats().getStartTime(), header));
 				}
-				
+			} catch (Exception e) {
+				Log.error(LOG_ID + ".readLog() : Error parsing file " + f.getName() + " -> ", e);
+				serverData.resetParse(true); // Reset all currently parsed data if error occurred
+			} finally {
+				events.clear(); // Anything not applied by this point was from a failed read, so it is discarded along with the rest of the parse
+				if (journal != null) {
+					journal.abortSegment(); // As is anything not yet journaled
+				}
+				dispatcher.flushCounts(ParserStatsCache.singleton().getParserStats(serverData));
+				serverData.setIsParsing(false); // Done parsing for this server
 			}
+			
+			readResult.setRead(true);
+			readResult.setReachedEnd(logReachedEnd);
 		}
-		
-		submitData();
-		numRuns++;
+		return readResult;
+	}
+
+	/**
+	 * If the given journal has anything recorded since the server's last checkpoint and the server is back at that checkpoint,
+	 * this will apply everything recorded to the server and move its log position to where the journal left off, returning the last segment that was replayed. <br>
+	 * Either way, the journal will then start recording this read from wherever the server is now at
+	 * @param journal
+	 * @param serverData
+	 * @param position
+	 * @return
+	 * @throws ParseException
+	 */
+	private ParseJournal.Segment replayJournal(ParseJournal journal, ServerData serverData, long position) throws ParseException {
+		ParseJournal.Segment replayed = null;
+		if (journal != null) {
+			replayed = journal.replay(serverData, replaySink);
+			if (replayed != null) {
+				serverData.setLogPosition(replayed.getEndPosition());
+			}
+			journal.startSegment(replayed != null ? replayed.getEndPosition() : position);
+		}
+		return replayed;
+	}
+
+	/**
+	 * Converts a log position stored in the older format, which counted the characters of each line read plus a line separator, 
+	 * into the byte offset of the same point in the given log. <br>
+	 * If the count does not land exactly at the end of a line (e.g. the log has changed since), the end of the line it lands in is used instead, 
+	 * so that nothing that may have already been stored is read again
+	 * @param f
+	 * @param charPosition
+	 * @return
+	 * @throws IOException
+	 */
+	private long toByteOffset(File f, long charPosition) throws IOException {
+		long numChars = 0;
+		long byteOffset = 0;
+		int separatorLen = System.lineSeparator().length(); // What the older format counted for each line's terminator
+		try (FileChannel logChannel = FileChannel.open(Paths.get(f.getAbsolutePath()), StandardOpenOption.READ); LogLineReader reader = openReader(f, logChannel, 0)) {
+			while (numChars < charPosition && reader.nextLine()) {
+				numChars += reader.getLine().length() + separatorLen;
+				byteOffset = reader.getPosition();
+			}
+		}
+		if (numChars != charPosition) {
+			Log.warn(LOG_ID + ".toByteOffset() : Stored position " + charPosition + " for " + f.getName() + " is not at the end of a line, will continue from byte " + byteOffset);
+		} else {
+			Log.info(LOG_ID + ".toByteOffset() : Converted stored position " + charPosition + " for " + f.getName() + " to byte " + byteOffset);
+		}
+		return byteOffset;
+	}
+
+	/**
+	 * Creates the reader used to read lines from the given log file's channel, starting at the given byte offset in the log
+	 * @param f
+	 * @param logChannel
+	 * @param offset
+	 * @return
+	 * @throws IOException
+	 */
+	protected LogLineReader openReader(File f, FileChannel logChannel, long offset) throws IOException {
+		logChannel.position(offset);
+		return new LogLineReader(logChannel, offset);
+	}
+
+	/**
+	 * Creates the sinks that events emitted by the parsers are handed to, in the order they should be handed to them. 
+	 * Each parse thread gets its own set, along with its own buffer of events
+	 * @return
+	 */
+	protected List<ParseEventSink> createEventSinks() {
+		if (enableJournal) {
+			return Arrays.<ParseEventSink>asList(new ServerDataEventSink(), new JournalEventSink());
+		}
+		return Arrays.<ParseEventSink>asList(new ServerDataEventSink());
+	}
+
+	/**
+	 * Creates a new set of parsers. Each parse thread gets its own set, since parsers hold state for the line they last matched
+	 * @return
+	 */
+	protected List<BaseLogParser> createParsers() {
+		return createDefaultParsers();
 	}
 
-	private void submitData() throws SQLException {
+	/**
+	 * Creates a new set of all parsers that logs are normally parsed with
+	 * @return
+	 */
+	public static List<BaseLogParser> createDefaultParsers() {
+		return Arrays.asList(new BindingParser(), new BuildIDParser(), new CephalonCaptureParser(), new CurrentDirectoryParser(), new CurrentProfileParser(), new CurrentTimeParser(), new GameSettingsParser(), new GameStateParser(), new GPFParser(), 
+				new IntroductionRequestParser(), new LunaroGoalParser(), new MissionStatsParser(), new NRSIssueParser(), new PlayerConnectionParser(), new PlayerJoinParser(), new PlayerKillParser(), new PlayerLeaveParser());
+	}
+
+	/**
+	 * Stores and shares the data for all servers included in the current parse. <br>
+	 * Each server's data is stored under its own savepoint, so if storing one server's data fails, only that server is rolled back
+	 * and marked as having an error, and the rest are still stored. <br>
+	 * Returns true if the data was successfully stored, or false if it was rolled back for all servers
+	 * @return
+	 * @throws SQLException
+	 */
+	protected boolean submitData() throws SQLException {
 		Connection conn = null;
 		boolean hasServerData = false;
 		boolean hasNonErrorServer = false;
+		boolean isStored = false;
+		Set<ServerData> rolledBackServers = new HashSet<ServerData>();
+		List<Runnable> commitActions = new ArrayList<Runnable>(); // Changes to cached data that are only applied once the data they go with is committed
+		Map<String, Integer> weaponKills = new HashMap<String, Integer>(); // Weapon -> kills across all servers stored this cycle
+		Map<LocalDate, Map<String, Integer>> dailyWeaponKills = new HashMap<LocalDate, Map<String, Integer>>(); // Date -> weapon -> kills across all servers stored this cycle
+
+		// Any kills recorded under unknown items are moved over to what they resolved to before being stored
+		for (ServerData server : serverInfos) {
+			ItemResolutionCache.singleton().reconcileItems(server);
+		}
 
 		try {
 			conn = ResourceManager.getDBConnection(false);
@@ -231,6 +515,7 @@ public abstract class BaseLogProcessor {
 
 			for (ServerData server : serverInfos) {
 				if (jamThreshold > 0 && enableAlerts && server.getNumRepeats() == jamThreshold) {
+					server.markStateChanged(); // So that the repeat count is stored and the alert isn't sent again for this server after a restart
 					if (MiscUtil.isEmpty(jammedServers)) {
 						jammedServers = server.getId();
 					} else {
@@ -264,34 +549,26 @@ public abstract class BaseLogProcessor {
 					continue;
 				}
 
-				hasNonErrorServer = true; // At this point we know we have at least one server that isn't in an error state
-				
 				Collection<PlayerData> parsedPlayers = server.getParsedPlayers();
+				Savepoint savepoint = conn.setSavepoint();
+				List<Runnable> serverCommitActions = new ArrayList<Runnable>();
+				try {
+					storeServerData(conn, server, parsedPlayers, serverCommitActions);
+					conn.releaseSavepoint(savepoint);
+					commitActions.addAll(serverCommitActions); // If this server is rolled back, so is anything it would have changed in the caches
+				} catch (Exception e) {
+					Log.error(LOG_ID + ".submitData() : Error while storing data for server " + server.getId() + ", will roll back this server -> ", e);
+					conn.rollback(savepoint);
+					rolledBackServers.add(server);
+					rollBackServer(server);
+					continue;
+				}
+
+				hasNonErrorServer = true; // At this point we know we have at least one server that isn't in an error state
 				if (!MiscUtil.isEmpty(parsedPlayers)) {
 					hasServerData = true;
-
 					if (shouldPersist) {
-						GameDataDao.updatePlayerData(conn, parsedPlayers, getDataType());
-						GameDataDao.updateWeeklyPlayerData(conn, parsedPlayers, server.getTimeStats().getWeeklyDate().toLocalDate());
-						GameDataDao.updateWeaponData(conn, parsedPlayers);
-						GameDataDao.addDailyWeaponData(conn, parsedPlayers, server.getTimeStats().getDailyDate().toLocalDate());
-
-						if (!MiscUtil.isEmpty(server.getMiscKills())) {
-							GameDataDao.updateWeaponData(conn, server.getMiscKills());
-							GameDataDao.addDailyWeaponData(conn, server.getMiscKills(), server.getTimeStats().getDailyDate().toLocalDate());
-						}
-						
-						if (!MiscUtil.isEmpty(server.getServerActivity())) {
-							ActivityDao.addActivityData(conn, server.getServerActivity(), server.getGameModeId(), server.getEloRating());
-						}
-					}
-					if (Log.isDebugMode()) {
-						for (PlayerData data : parsedPlayers) {
-							Log.debug(data.toString());
-							for (String weapon : data.getWeaponKills().keySet()) {
-								Log.debug(weapon + " -> " +  data.getWeaponKills().get(weapon));
-							}
-						}
+						addWeaponKills(server, parsedPlayers, weaponKills, dailyWeaponKills);
 					}
 				}
 
@@ -299,24 +576,19 @@ public abstract class BaseLogProcessor {
 				if (printServerData) {
 					allServerDataArr.add(server.getServerInfo());
 				}
-				
-				if (server.hasNRSIssue() && enableAlerts) {
-					String latestDBBuild = ProcessorVarDao.getVar(ProcessorVarDao.VAR_NRS_BUILD);
-
-					// TODO: Alerts
-					if (MiscUtil.isEmpty(latestDBBuild) || Integer.parseInt(latestDBBuild) != server.getBuildId()) {
-						//new Emailer("Warframe NRS Issue", "There's an NRS server issue happening").sendEmail();
-						if (server.getBuildId() != -1) {
-							ProcessorVarDao.updateVar(conn, ProcessorVarDao.VAR_NRS_BUILD, String.valueOf(server.getBuildId()));
-						}
-					}
-				}
+			}
+
+			// Weapon kills are stored for all servers together, now that it's known which servers were stored
+			if (shouldPersist) {
+				GameDataDao.updateWeaponData(conn, weaponKills);
+				GameDataDao.addDailyWeaponData(conn, dailyWeaponKills);
 			}
 
 			if (shouldPersist || shareData) {
 				ServerDao.updateServerData(conn, serverInfos);
 			}
 
+
 			if (printServerData) {
 				allServerData.add("servers", allServerDataArr);
 				allServerData.addProperty("lastUpdated", System.currentTimeMillis());
@@ -332,17 +604,27 @@ public abstract class BaseLogProcessor {
 			}
 
 			conn.commit();
+			isStored = true;
+			runCommitActions(commitActions);
+			for (ServerData server : serverInfos) {
+				server.markPersisted(true);
+				if (enableJournal && !rolledBackServers.contains(server)) {
+					ParseJournalCache.singleton().getJournal(server).checkpoint(server);
+				}
+			}
 			
 		} catch (Exception e) { 
 			Log.error(LOG_ID + ".submitData() : Error while storing data, will roll back -> ", e);
 			conn.rollback();
 			hasServerData = false; // Set this false here so we don't send anything to service
 			hasNonErrorServer = false; // Set this false here so we don't send anything to service
-			// If an error occurred, we roll back all server data
-			// The DB transaction is atomic across all servers, so we just roll them all back
-			// TODO: Can this be improved?
+			// If an error occurred outside of storing any one server's data, we roll back all server data
+			// Any servers that were already rolled back on their own don't need to be again
 			for (ServerData server : serverInfos) {
-				server.resetParse(true);
+				server.markPersisted(false);
+				if (!rolledBackServers.contains(server)) {
+					rollBackServer(server);
+				}
 			}
 		} finally {
 			ResourceManager.releaseResources(conn);
@@ -352,7 +634,8 @@ public abstract class BaseLogProcessor {
 		// The interval of 5 is to let server statuses be updated as needed on the service side if there's a longer period of no data
 		// Note we only send server data for any servers that are marked as not having any issues (errors, repeats, etc)
 		// If every server has an issue, we will not send any data
-		if (shareData && hasNonErrorServer && (hasServerData || numRuns%5 == 0)) {
+		// Only full runs count towards the interval, otherwise runs for changed logs in between would also send whenever the count is on an interval
+		if (shareData && hasNonErrorServer && (hasServerData || (isFullRun && numRuns%5 == 0))) {
 			GameDataType dataType = getDataType();
 			JsonObject requestObj = new JsonObject();
 			requestObj.add(JSONField.DATA, new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create().toJsonTree(serverInfos.stream().filter(server -> server.isDataValid()).collect(Collectors.toList())));
@@ -363,8 +646,101 @@ public abstract class BaseLogProcessor {
 			}
 			RequestUtil.sendAddDataRequest(requestObj, dataType);
 		}
+		return isStored;
 	}
 	
+	/**
+	 * Stores the given server's parsed data using the given connection
+	 * @param conn
+	 * @param server
+	 * @param parsedPlayers
+	 * @param onCommit Any changes to cached data that go with the stored data are added to this, to be applied once it is committed
+	 * @throws SQLException
+	 * @throws ProcessingException
+	 */
+	private void storeServerData(Connection conn, ServerData server, Collection<PlayerData> parsedPlayers, List<Runnable> onCommit) throws SQLException, ProcessingException {
+		if (!MiscUtil.isEmpty(parsedPlayers)) {
+			if (shouldPersist) {
+				GameDataDao.updatePlayerData(conn, parsedPlayers, getDataType(), onCommit);
+				GameDataDao.updateWeeklyPlayerData(conn, parsedPlayers, server.getTimeStats().getWeeklyDate().toLocalDate());
+
+				if (!MiscUtil.isEmpty(server.getServerActivity())) {
+					ActivityDao.addActivityData(conn, server.getServerActivity(), server.getGameModeId(), server.getEloRating());
+				}
+			}
+			if (Log.isDebugMode()) {
+				for (PlayerData data : parsedPlayers) {
+					Log.debug(data.toString());
+					for (String weapon : data.getWeaponKills().keySet()) {
+						Log.debug(weapon + " -> " +  data.getWeaponKills().get(weapon));
+					}
+				}
+			}
+		}
+
+		if (server.hasNRSIssue() && enableAlerts) {
+			String latestDBBuild = ProcessorVarDao.getVar(ProcessorVarDao.VAR_NRS_BUILD);
+
+			// TODO: Alerts
+			if (MiscUtil.isEmpty(latestDBBuild) || Integer.parseInt(latestDBBuild) != server.getBuildId()) {
+				//new Emailer("Warframe NRS Issue", "There's an NRS server issue happening").sendEmail();
+				if (server.getBuildId() != -1) {
+					ProcessorVarDao.updateVar(conn, ProcessorVarDao.VAR_NRS_BUILD, String.valueOf(server.getBuildId()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies the given changes to cached data now that the data they go with has been committed. 
+	 * Since the data is already stored at this point, an error in one is logged and the rest are still applied
+	 * @param commitActions
+	 */
+	private void runCommitActions(List<Runnable> commitActions) {
+		for (Runnable action : commitActions) {
+			try {
+				action.run();
+			} catch (Exception e) {
+				Log.error(LOG_ID + ".runCommitActions() : Error while updating cached data after storing -> ", e);
+			}
+		}
+	}
+
+	/**
+	 * Adds the kills for each weapon from the given server's players, along with its misc kills, to the given totals for the cycle
+	 * @param server
+	 * @param parsedPlayers
+	 * @param weaponKills
+	 * @param dailyWeaponKills
+	 */
+	private void addWeaponKills(ServerData server, Collection<PlayerData> parsedPlayers, Map<String, Integer> weaponKills, Map<LocalDate, Map<String, Integer>> dailyWeaponKills) {
+		Map<String, Integer> dailyKills = dailyWeaponKills.computeIfAbsent(server.getTimeStats().getDailyDate().toLocalDate(), k -> new HashMap<String, Integer>());
+		for (PlayerData player : parsedPlayers) {
+			for (Map.Entry<String, Integer> kills : player.getWeaponKills().entrySet()) {
+				weaponKills.merge(kills.getKey(), kills.getValue(), Integer::sum);
+				dailyKills.merge(kills.getKey(), kills.getValue(), Integer::sum);
+			}
+		}
+		if (!MiscUtil.isEmpty(server.getMiscKills())) {
+			for (Map.Entry<String, Integer> kills : server.getMiscKills().entrySet()) {
+				weaponKills.merge(kills.getKey(), kills.getValue(), Integer::sum);
+				dailyKills.merge(kills.getKey(), kills.getValue(), Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Resets everything parsed for the given server in the current parsing session, since its data was not stored. 
+	 * It will be parsed again on the next read
+	 * @param server
+	 */
+	private void rollBackServer(ServerData server) {
+		server.resetParse(true);
+		if (enableJournal) {
+			ParseJournalCache.singleton().getJournal(server).rewind(server.getLogPosition()); // If reset back to the checkpoint, the journal is kept to be replayed on the next read
+		}
+	}
+
 	protected abstract void findLogFiles();
 	protected abstract GameDataType getDataType();
 	protected abstract void postProcessing(ServerData serverData);
@@ -1,29 +1,56 @@
 package wfDataManager.client.processor.logging;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import jdtools.collection.Pair;
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
+import wfDataManager.client.cache.ServerDataCache;
+import wfDataManager.client.data.LogReadResult;
+import wfDataManager.client.processor.logging.reader.LogLineReader;
+import wfDataManager.client.processor.logging.reader.MappedLogLineReader;
+import wfDataManager.client.type.CompressionType;
 import wfDataManager.client.util.ClientSettingsUtil;
 import wfDataManager.client.util.ClientTaskUtil;
 import wfDataModel.model.data.ServerData;
 import wfDataModel.service.type.GameDataType;
 
 /**
- * Log parser for handling historic log files
+ * Log parser for handling historic log files. <br>
+ * By default, all historic logs are parsed in one go (see {@link #bulkParseLogs()}). Otherwise one log per server is parsed on each poll
  * @author MatNova
  *
  */
 public class HistoricalLogProcessor extends BaseLogProcessor {
+	private static final int REPORT_INTERVAL = 30000; // Time in ms between progress reports when bulk parsing
+	private static final int MAX_FAILURES = 3; // Number of times in a row a log can fail to be read, parsed, or stored when bulk parsing before it is skipped
+	private static final int RETRY_DELAY = 1000; // Time in ms to wait before trying to read a log again if it could not be read when bulk parsing
+	
 	private final Matcher LOG_PATTERN = Pattern.compile(ClientSettingsUtil.getHistoricalLogPattern()).matcher("");
 	private Map<String, Queue<String>> foundFiles = null; // key = log ID, value = queue of files to be parsed for that ID
 	private String[] logDirectories = ClientSettingsUtil.getHistoricalLogsDirs();
+	private boolean bulkParse = ClientSettingsUtil.bulkHistorical();
 
 	@Override
 	protected void findLogFiles() {
@@ -37,7 +64,7 @@ public class HistoricalLogProcessor extends BaseLogProcessor {
 				}
 				
 				for (String f : new File(logDir).list()) {
-					if (LOG_PATTERN.reset(f).matches()) {
+					if (LOG_PATTERN.reset(CompressionType.fileToType(f).stripExtension(f)).matches()) { // Archived logs may be compressed
 						String logId = LOG_PATTERN.groupCount() == 0 ? null : LOG_PATTERN.group(1);
 						String fullFile = logDir + File.separator + f;
 						if (MiscUtil.isEmpty(logId)) {
@@ -61,19 +88,194 @@ public class HistoricalLogProcessor extends BaseLogProcessor {
 					}
 				}
 			}
-			int estimatedSeconds = (int) (((numFound * ClientSettingsUtil.HISTORICAL_POLLING_INTERVAL) / logFiles.size()) * 1.5);
-			int estDays = estimatedSeconds / (3600 * 24);
-			int estHours = (estimatedSeconds / 3600) % 24;
-			int estMinutes = (estimatedSeconds % 3600) / 60;
-			int estSeconds = (estimatedSeconds % 60);
-			
-			Log.info(LOG_ID + ".findLogFiles() : Found " + numFound + " historical files to process. Estimated run time: " + estDays + " day(s), " + estHours + " hour(s), " + estMinutes + " min(s), " + estSeconds + " sec(s)");
+			if (bulkParse) {
+				Log.info(LOG_ID + ".findLogFiles() : Found " + numFound + " historical files to process across " + logFiles.size() + " server(s)");
+			} else if (!logFiles.isEmpty()) {
+				int estimatedSeconds = (int) (((numFound * ClientSettingsUtil.HISTORICAL_POLLING_INTERVAL) / logFiles.size()) * 1.5);
+				int estDays = estimatedSeconds / (3600 * 24);
+				int estHours = (estimatedSeconds / 3600) % 24;
+				int estMinutes = (estimatedSeconds % 3600) / 60;
+				int estSeconds = (estimatedSeconds % 60);
+				
+				Log.info(LOG_ID + ".findLogFiles() : Found " + numFound + " historical files to process. Estimated run time: " + estDays + " day(s), " + estHours + " hour(s), " + estMinutes + " min(s), " + estSeconds + " sec(s)");
+			}
 		} else if (foundFiles.isEmpty()) {
 			Log.warn(LOG_ID + ".findLogFiles() : All log files have been parsed. Process can be shut down");
 			ClientTaskUtil.stopTask(ClientTaskUtil.TASK_LOG_PROCESSOR);
 		}
 	}
 
+	@Override
+	public synchronized void processLogs(Collection<String> logIds) throws SQLException {
+		if (!bulkParse) {
+			super.processLogs(logIds);
+			return;
+		}
+
+		findLogFiles();
+		if (!logFiles.isEmpty()) {
+			bulkParseLogs();
+		}
+	}
+
+	/**
+	 * Parses every found log in one go. Each server's logs are parsed back-to-back on a thread from the parse pool, 
+	 * with servers being parsed at the same time. Every time a server finishes a parse, its data is handed to this thread, 
+	 * which stores whatever data is waiting from all servers together and then lets those servers continue parsing. <br>
+	 * A server will not continue parsing until its last data has been stored, since the next parse starts a new parsing session for it
+	 */
+	private void bulkParseLogs() {
+		long startMs = System.currentTimeMillis();
+		long nextReportMs = startMs + REPORT_INTERVAL;
+		int totalFiles = 0;
+		long totalBytes = 0;
+		AtomicInteger parsedFiles = new AtomicInteger();
+		AtomicLong parsedBytes = new AtomicLong();
+		BlockingQueue<Pair<ServerData, CompletableFuture<Boolean>>> toStore = new LinkedBlockingQueue<Pair<ServerData, CompletableFuture<Boolean>>>();
+		List<Future<?>> serverParses = new ArrayList<Future<?>>(logFiles.size());
+
+		for (String logId : logFiles.keySet()) {
+			totalFiles++;
+			totalBytes += logFiles.get(logId).length();
+			if (foundFiles.containsKey(logId)) {
+				for (String file : foundFiles.get(logId)) {
+					totalFiles++;
+					totalBytes += new File(file).length();
+				}
+			}
+		}
+		// Sizes are what the files take up on disk, so for compressed logs this is less than what is actually parsed
+		Log.info(LOG_ID + ".bulkParseLogs() : Starting bulk parse of " + totalFiles + " files (" + toMB(totalBytes) + " MB on disk)");
+
+		for (String logId : logFiles.keySet()) {
+			ServerData serverData = ServerDataCache.singleton().getServerData(logId);
+			serverParses.add(parsePool.submit(() -> bulkParseServer(logId, serverData, toStore, parsedFiles, parsedBytes)));
+		}
+
+		try {
+			while (!toStore.isEmpty() || serverParses.stream().anyMatch(parse -> !parse.isDone())) {
+				Pair<ServerData, CompletableFuture<Boolean>> next = toStore.poll(250, TimeUnit.MILLISECONDS);
+				if (next != null) {
+					List<Pair<ServerData, CompletableFuture<Boolean>>> batch = new ArrayList<Pair<ServerData, CompletableFuture<Boolean>>>();
+					batch.add(next);
+					toStore.drainTo(batch);
+
+					serverInfos.clear();
+					for (Pair<ServerData, CompletableFuture<Boolean>> data : batch) {
+						serverInfos.add(data.getKey());
+					}
+					boolean isStored = false;
+					try {
+						isStored = submitData();
+					} catch (SQLException e) {
+						Log.error(LOG_ID + ".bulkParseLogs() : Error storing data for " + batch.size() + " server(s) -> ", e);
+					} finally {
+						// A server whose data could not be stored is rolled back on its own, and will be marked as having an error
+						for (Pair<ServerData, CompletableFuture<Boolean>> data : batch) {
+							data.getValue().complete(isStored && !data.getKey().hasError());
+						}
+					}
+				}
+
+				if (System.currentTimeMillis() >= nextReportMs) {
+					reportProgress(startMs, parsedFiles.get(), totalFiles, parsedBytes.get());
+					nextReportMs += REPORT_INTERVAL;
+				}
+			}
+		} catch (InterruptedException e) {
+			Log.warn(LOG_ID + ".bulkParseLogs() : Interrupted while bulk parsing, will stop");
+			serverParses.forEach(parse -> parse.cancel(true));
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		reportProgress(startMs, parsedFiles.get(), totalFiles, parsedBytes.get());
+		numRuns++;
+		foundFiles.clear();
+		logFiles.clear();
+	}
+
+	/**
+	 * Parses all logs for the given server one after the other, handing off the data from each parse to be stored
+	 * and waiting for it to be stored before continuing
+	 * @param logId
+	 * @param serverData
+	 * @param toStore
+	 * @param parsedFiles
+	 * @param parsedBytes
+	 */
+	private void bulkParseServer(String logId, ServerData serverData, BlockingQueue<Pair<ServerData, CompletableFuture<Boolean>>> toStore, AtomicInteger parsedFiles, AtomicLong parsedBytes) {
+		Queue<String> nextFiles = foundFiles.get(logId);
+		File f = logFiles.get(logId);
+		int numFailures = 0;
+
+		try {
+			while (f != null) {
+				LogReadResult readResult = readLog(logId, f, serverData);
+				boolean isDone = readResult.reachedEnd();
+				boolean failed = !readResult.isIncluded(); // Includes a log that could not be read at all (e.g. server still marked as parsing, or no last position)
+				if (readResult.wasRead()) {
+					postProcessing(serverData);
+				} else {
+					isDone = false;
+					Thread.sleep(RETRY_DELAY);
+				}
+
+				if (readResult.isIncluded()) {
+					CompletableFuture<Boolean> stored = new CompletableFuture<Boolean>();
+					toStore.add(new Pair<ServerData, CompletableFuture<Boolean>>(serverData, stored));
+					if (!stored.get()) {
+						failed = true;
+						isDone = false; // Data was rolled back, so need to parse it again
+					}
+				}
+
+				numFailures = failed ? numFailures + 1 : 0;
+				if (numFailures >= MAX_FAILURES) {
+					Log.error(LOG_ID + ".bulkParseServer() : Failed to read, parse, or store " + f.getName() + " for logId " + logId + " " + numFailures + " times in a row, will skip it");
+					isDone = true;
+					numFailures = 0;
+				}
+
+				if (isDone) {
+					parsedFiles.incrementAndGet();
+					parsedBytes.addAndGet(f.length());
+					// logFiles is only changed by the processing thread, so the current file for this server is only tracked here
+					String nextFile = nextFiles == null ? null : nextFiles.poll();
+					f = MiscUtil.isEmpty(nextFile) ? null : new File(nextFile);
+				}
+			}
+		} catch (InterruptedException e) {
+			Log.warn(LOG_ID + ".bulkParseServer() : Interrupted while waiting for data to be stored for logId " + logId);
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Log.error(LOG_ID + ".bulkParseServer() : Error storing data for logId " + logId + ", will stop parsing it -> ", e.getCause());
+		}
+	}
+
+	private void reportProgress(long startMs, int parsedFiles, int totalFiles, long parsedBytes) {
+		double seconds = Math.max(System.currentTimeMillis() - startMs, 1) / 1000.0;
+		Log.info(LOG_ID + ".reportProgress() : Parsed " + parsedFiles + "/" + totalFiles + " files (" + toMB(parsedBytes) + " MB on disk) in " + String.format("%.1f", seconds) + "s -> " 
+				+ String.format("%.2f", parsedFiles / seconds) + " files/sec, " + String.format("%.2f", (parsedBytes / (1024.0 * 1024.0)) / seconds) + " MB/sec on disk");
+	}
+
+	private String toMB(long bytes) {
+		return String.format("%.1f", bytes / (1024.0 * 1024.0));
+	}
+
+	@Override
+	protected LogLineReader openReader(File f, FileChannel logChannel, long offset) throws IOException {
+		CompressionType compression = CompressionType.fileToType(f.getName());
+		if (CompressionType.NONE.equals(compression)) {
+			return new MappedLogLineReader(logChannel, offset); // Logs here are complete and won't be written to anymore
+		}
+
+		// Compressed logs are decompressed as they are read, so offsets are in terms of the decompressed log and can only be reached by reading up to them
+		LogLineReader reader = new LogLineReader(Channels.newChannel(compression.decompress(Channels.newInputStream(logChannel))), 0);
+		reader.seek(offset);
+		return reader;
+	}
+
 	@Override
 	protected GameDataType getDataType() {
 		return GameDataType.HISTORICAL_GAME_DATA;
@@ -1,9 +1,21 @@
 package wfDataManager.client.processor.logging;
 
 import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import jdtools.collection.Pair;
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
 import wfDataManager.client.cache.BanManagerCache;
@@ -14,7 +26,8 @@ import wfDataModel.model.data.ServerData;
 import wfDataModel.service.type.GameDataType;
 
 /**
- * Log parser for handling regular log files
+ * Log parser for handling regular log files. <br>
+ * If enabled, this will also watch the log directories so that new logs are found, and logs that have grown are parsed, as soon as they change
  * @author MatNova
  *
  */
@@ -23,6 +36,19 @@ public class NormalLogProcessor extends BaseLogProcessor {
 
 	private int logCheckInterval = ClientSettingsUtil.getLogCheckInterval();
 	private String[] logDirectories = ClientSettingsUtil.getServerLogsDirs();
+	private Thread watcher = null;
+
+	/**
+	 * Starts watching the log directories for changes, if enabled and not already started
+	 */
+	@Override
+	public synchronized void start() {
+		if (ClientSettingsUtil.watchLogs() && watcher == null) {
+			watcher = new Thread(this::watchLogs, LOG_ID + "-Watcher");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+	}
 
 	@Override
 	protected void findLogFiles() {
@@ -36,26 +62,121 @@ public class NormalLogProcessor extends BaseLogProcessor {
 					continue;
 				}
 				for (String f : new File(logDir).list()) {
-					if (LOG_PATTERN.reset(f).matches()) {
-						String logId = LOG_PATTERN.groupCount() == 0 ? null : LOG_PATTERN.group(1);
-						if (MiscUtil.isEmpty(logId)) {
-							logId = DEFAULT_SERVER_LOG_ID;
+					String logId = getLogId(LOG_PATTERN, i, f);
+					if (logId != null) {
+						addLogFile(logId, logDir, f);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the log ID for the given log file name in the given log directory index, or null if the file is not a server log
+	 * @param logPattern
+	 * @param dirIndex
+	 * @param fileName
+	 * @return
+	 */
+	private String getLogId(Matcher logPattern, int dirIndex, String fileName) {
+		String logId = null;
+		if (logPattern.reset(fileName).matches()) {
+			logId = logPattern.groupCount() == 0 ? null : logPattern.group(1);
+			if (MiscUtil.isEmpty(logId)) {
+				logId = DEFAULT_SERVER_LOG_ID;
+			}
+			if (logDirectories.length > 1) {
+				logId = dirIndex + "-" + logId;
+			}
+		}
+		return logId;
+	}
+
+	private void addLogFile(String logId, String logDir, String fileName) {
+		logFiles.put(logId,  new File(logDir + File.separator + fileName));
+
+		if (!ServerDataCache.singleton().hasServerData(logId)) {
+			Log.info(LOG_ID + ".addLogFile() : Found new log file " + fileName);
+			if (logId.endsWith(DEFAULT_SERVER_LOG_ID)) {
+				Log.info(LOG_ID + ".addLogFile() : No logId found in match, using default of " + DEFAULT_SERVER_LOG_ID + ", file=" + fileName);
+			}
+		}
+	}
+
+	/**
+	 * Watches the log directories for any new or changed log files. <br>
+	 * Once a change is seen, any other changes within the log watch window are collected with it, and then only the servers
+	 * whose logs were created or grew will be parsed. The log files are only looked at and updated while holding the processor's lock, 
+	 * the same as when logs are processed. This runs on its own thread until interrupted
+	 */
+	private void watchLogs() {
+		Matcher logPattern = Pattern.compile(ClientSettingsUtil.getServerLogPattern()).matcher(""); // Own matcher, since this is not on the processing thread
+		int watchWindow = ClientSettingsUtil.getLogWatchWindow();
+
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+			Map<WatchKey, Integer> dirKeys = new HashMap<WatchKey, Integer>(logDirectories.length);
+			for (int i = 0; i < logDirectories.length; i++) {
+				if (!MiscUtil.isEmpty(logDirectories[i]) && new File(logDirectories[i]).isDirectory()) {
+					dirKeys.put(Paths.get(logDirectories[i]).register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), i);
+				}
+			}
+			Log.info(LOG_ID + ".watchLogs() : Watching " + dirKeys.size() + " log directories for changes");
+
+			Map<String, Pair<Integer, String>> seenLogs = new HashMap<String, Pair<Integer, String>>(); // LogID -> dir index and file name
+			Set<String> createdLogs = new HashSet<String>();
+			Set<String> changedLogs = new HashSet<String>();
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watchService.take();
+				long windowEnd = System.currentTimeMillis() + watchWindow;
+				boolean isOverflow = false;
+				while (key != null) {
+					Integer dirIndex = dirKeys.get(key);
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (StandardWatchEventKinds.OVERFLOW.equals(event.kind())) {
+							isOverflow = true; // Events were lost, so just check everything
+							continue;
 						}
-						if (logDirectories.length > 1) {
-							logId = i + "-" + logId;
+						String fileName = event.context().toString();
+						String logId = dirIndex == null ? null : getLogId(logPattern, dirIndex, fileName);
+						if (logId != null) {
+							seenLogs.put(logId, new Pair<Integer, String>(dirIndex, fileName));
+							if (StandardWatchEventKinds.ENTRY_CREATE.equals(event.kind())) {
+								createdLogs.add(logId);
+							}
 						}
-						
-						logFiles.put(logId,  new File(logDir + File.separator + f));
+					}
+					key.reset();
 
-						if (!ServerDataCache.singleton().hasServerData(logId)) {
-							Log.info(LOG_ID + ".findLogFiles() : Found new log file " + f);
-							if (logId.endsWith(DEFAULT_SERVER_LOG_ID)) {
-								Log.info(LOG_ID + ".findLogFiles() : No logId found in match, using default of " + DEFAULT_SERVER_LOG_ID + ", file=" + f);
-							}
+					long remaining = windowEnd - System.currentTimeMillis();
+					key = remaining > 0 ? watchService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+				}
+
+				synchronized (this) {
+					for (String logId : seenLogs.keySet()) {
+						if (createdLogs.contains(logId) || !logFiles.containsKey(logId)) {
+							addLogFile(logId, logDirectories[seenLogs.get(logId).getKey()], seenLogs.get(logId).getValue());
+						}
+					}
+					changedLogs.addAll(isOverflow ? logFiles.keySet() : seenLogs.keySet());
+					// Only parse logs that actually grew (or shrunk, e.g. if the log was restarted), as modify events can be sent for other reasons
+					changedLogs.removeIf(logId -> logFiles.get(logId) == null || (ServerDataCache.singleton().hasServerData(logId) && logFiles.get(logId).length() == ServerDataCache.singleton().getServerData(logId).getLogPosition()));
+					if (!changedLogs.isEmpty()) {
+						Log.debug(LOG_ID + ".watchLogs() : Detected changes for logs " + changedLogs);
+						try {
+							processLogs(changedLogs);
+						} catch (Exception e) {
+							Log.error(LOG_ID + ".watchLogs() : Exception while processing changed logs -> ", e);
 						}
 					}
 				}
+				seenLogs.clear();
+				createdLogs.clear();
+				changedLogs.clear();
 			}
+		} catch (InterruptedException e) {
+			Log.info(LOG_ID + ".watchLogs() : Interrupted, will stop watching logs");
+		} catch (Exception e) {
+			Log.error(LOG_ID + ".watchLogs() : Exception while watching logs, will only poll logs from now on -> ", e);
 		}
 	}
 
@@ -1,6 +1,9 @@
 package wfDataManager.client.processor.logging;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -14,6 +17,9 @@ import java.util.regex.Pattern;
 
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
+import wfDataManager.client.processor.logging.reader.LogLineReader;
+import wfDataManager.client.processor.logging.reader.MappedLogLineReader;
+import wfDataManager.client.type.CompressionType;
 import wfDataManager.client.util.ClientSettingsUtil;
 import wfDataManager.client.util.ClientTaskUtil;
 import wfDataModel.model.data.PlayerData;
@@ -41,7 +47,7 @@ public class TestLogProcessor extends BaseLogProcessor {
 				}
 
 				for (String f : new File(logDir).list()) {
-					if (LOG_PATTERN.reset(f).matches()) {
+					if (LOG_PATTERN.reset(CompressionType.fileToType(f).stripExtension(f)).matches()) { // Archived logs may be compressed
 						String logId = LOG_PATTERN.groupCount() == 0 ? null : LOG_PATTERN.group(1);
 						String fullFile = logDir + File.separator + f;
 						if (MiscUtil.isEmpty(logId)) {
@@ -190,6 +196,19 @@ public class TestLogProcessor extends BaseLogProcessor {
 		}
 	}
 
+	@Override
+	protected LogLineReader openReader(File f, FileChannel logChannel, long offset) throws IOException {
+		CompressionType compression = CompressionType.fileToType(f.getName());
+		if (CompressionType.NONE.equals(compression)) {
+			return new MappedLogLineReader(logChannel, offset); // Logs here are complete and won't be written to anymore
+		}
+
+		// Compressed logs are decompressed as they are read, so offsets are in terms of the decompressed log and can only be reached by reading up to them
+		LogLineReader reader = new LogLineReader(Channels.newChannel(compression.decompress(Channels.newInputStream(logChannel))), 0);
+		reader.seek(offset);
+		return reader;
+	}
+
 	@Override
 	protected GameDataType getDataType() {
 		return GameDataType.HISTORICAL_GAME_DATA;
@@ -0,0 +1,328 @@
+package wfDataManager.client.processor.logging.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import wfDataManager.client.parser.logging.LogParserDispatcher;
+
+/**
+ * Line reader for log files that tracks exact byte offsets for every line it reads. <br>
+ * Bytes are read from the channel into a single reused direct buffer and each line is decoded as UTF-8 into a reused char buffer,
+ * so no per-line reader state (e.g. mark / reset) is needed. The direct buffer is kept per thread and handed back when the reader is closed, 
+ * so each parse thread allocates it once (along with any growth for long lines) rather than once per reader. <br>
+ * Only complete lines (i.e. ones terminated by a newline) are returned. Any trailing partial line is left unread so that it can be
+ * picked up on a later read once it has been fully written. Both LF and CRLF line endings are supported. <br>
+ * Lines can either be read directly as strings via {@link #readLine()}, or be moved to via {@link #nextLine()} and then checked
+ * against their raw bytes (e.g. {@link #getLineTime()}, {@link #getLineCandidates(LogParserDispatcher)}) before deciding to decode them via {@link #getLine()}.
+ * @author MatNova
+ *
+ */
+public class LogLineReader implements Closeable {
+
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final byte NEWLINE = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+	private static final byte TIME_SEPARATOR = '.';
+	private static final int MAX_TIME_DIGITS = 15; // Any more than this could overflow a long once in ms
+	private static final int MILLIS_DIGITS = 3;
+	private static final ThreadLocal<ByteBuffer> IDLE_BUFFERS = new ThreadLocal<ByteBuffer>(); // Direct buffer for each thread that is not currently in use by a reader
+
+	protected ReadableByteChannel channel;
+	protected ByteBuffer buffer; // Holds unread bytes between its position and limit
+	protected long bufferOffset; // Byte offset in the log of index 0 in the buffer
+	protected boolean reachedEOF;
+	protected int scanIndex; // Index in the buffer that the newline scan will continue from
+	private long lineStart = -1; // Byte offset of the start of the last read line
+	private int lineIndex = -1; // Index in the buffer of the start of the last read line
+	private int lineEndIndex = -1; // Index in the buffer of the end of the last read line's content, i.e. excluding its line terminator
+	private boolean hasLineTime; // If the time of the last read line has been parsed yet
+	private long lineTime = -1;
+	private long lineTimeMillis = -1;
+	private CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private CharBuffer lineChars = CharBuffer.allocate(1024);
+	private boolean isThreadBuffer; // If the buffer is this thread's buffer, and so should be handed back when closed
+
+	/**
+	 * Creates a reader for the given channel, which is expected to currently be positioned at the given byte offset
+	 * @param channel
+	 * @param startOffset
+	 */
+	public LogLineReader(ReadableByteChannel channel, long startOffset) {
+		this(channel, startOffset, DEFAULT_BUFFER_SIZE);
+	}
+
+	public LogLineReader(ReadableByteChannel channel, long startOffset, int bufferSize) {
+		this.channel = channel;
+		this.bufferOffset = startOffset;
+		this.buffer = IDLE_BUFFERS.get();
+		if (buffer != null && buffer.capacity() >= bufferSize) {
+			IDLE_BUFFERS.remove(); // In use until this reader is closed, so any other reader opened on this thread meanwhile gets its own
+			buffer.clear();
+		} else {
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+		this.isThreadBuffer = true;
+		this.buffer.flip(); // Start out empty
+	}
+
+	/**
+	 * Creates a reader that starts out with the given buffer, which is expected to hold the bytes at the given offset between its position and limit
+	 * @param channel
+	 * @param startOffset
+	 * @param buffer
+	 */
+	protected LogLineReader(ReadableByteChannel channel, long startOffset, ByteBuffer buffer) {
+		this.channel = channel;
+		this.bufferOffset = startOffset;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Reads the next complete line, without its line terminator. <br>
+	 * Returns null if there is no complete line left to read
+	 * @return
+	 * @throws IOException
+	 */
+	public String readLine() throws IOException {
+		return nextLine() ? getLine() : null;
+	}
+
+	/**
+	 * Moves to the next complete line without decoding it. <br>
+	 * Returns false if there is no complete line left to read
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean nextLine() throws IOException {
+		int newlineIndex = findNewline();
+		if (newlineIndex == -1) {
+			return false;
+		}
+
+		lineIndex = buffer.position();
+		lineEndIndex = newlineIndex > lineIndex && buffer.get(newlineIndex - 1) == CARRIAGE_RETURN ? newlineIndex - 1 : newlineIndex;
+		lineStart = bufferOffset + lineIndex;
+		hasLineTime = false;
+		buffer.position(newlineIndex + 1);
+		scanIndex = buffer.position();
+		return true;
+	}
+
+	/**
+	 * Decodes the line last moved to by {@link #nextLine()}, without its line terminator
+	 * @return
+	 */
+	public String getLine() {
+		decodeLine(lineIndex, lineEndIndex);
+		return lineChars.toString();
+	}
+
+	/**
+	 * Returns the leading number of seconds from the line last moved to by {@link #nextLine()}, 
+	 * i.e. the digits before the first '.' for a line like "123.456 ...". <br>
+	 * Returns -1 if the line does not start with such a time
+	 * @return
+	 */
+	public long getLineTime() {
+		parseLineTime();
+		return lineTime;
+	}
+
+	/**
+	 * Same as {@link #getLineTime()}, but in milliseconds and including the fractional part of the time, 
+	 * e.g. 123456 for a line like "123.456 ...". Any digits past milliseconds are ignored. <br>
+	 * Returns -1 if the line does not start with a time
+	 * @return
+	 */
+	public long getLineTimeMillis() {
+		parseLineTime();
+		return lineTimeMillis;
+	}
+
+	/**
+	 * Returns the bitmask of parsers from the given dispatcher that have a keyword in the line last moved to by {@link #nextLine()}. <br>
+	 * If this is 0, then no parser can parse the line and it does not need to be decoded
+	 * @param dispatcher
+	 * @return
+	 */
+	public long getLineCandidates(LogParserDispatcher dispatcher) {
+		return dispatcher.getCandidates(buffer, lineIndex, lineEndIndex);
+	}
+
+	/**
+	 * Returns the byte offset in the log for the start of the last line returned by {@link #readLine()}
+	 * @return
+	 */
+	public long getLineStart() {
+		return lineStart;
+	}
+
+	/**
+	 * Returns the byte offset in the log immediately after the last line returned by {@link #readLine()},
+	 * i.e. where the next line will start
+	 * @return
+	 */
+	public long getPosition() {
+		return bufferOffset + buffer.position();
+	}
+
+	/**
+	 * Moves this reader to the given byte offset in the log. <br>
+	 * If the underlying channel is not seekable, this can only move forward
+	 * @param offset
+	 * @throws IOException
+	 */
+	public void seek(long offset) throws IOException {
+		if (channel instanceof SeekableByteChannel) {
+			((SeekableByteChannel) channel).position(offset);
+		} else if (offset >= getPosition()) {
+			while (offset - bufferOffset > buffer.limit()) {
+				bufferOffset += buffer.limit();
+				buffer.clear();
+				if (channel.read(buffer) == -1) {
+					throw new IOException("Reached end of channel before offset " + offset);
+				}
+				buffer.flip();
+			}
+			buffer.position((int) (offset - bufferOffset));
+			scanIndex = buffer.position();
+			return;
+		} else {
+			throw new IOException("Cannot seek backwards to offset " + offset + " from " + getPosition() + " on a non-seekable channel");
+		}
+		buffer.clear();
+		buffer.flip();
+		bufferOffset = offset;
+		scanIndex = 0;
+		reachedEOF = false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			channel.close();
+		} finally {
+			if (isThreadBuffer) {
+				// Keep whichever is larger in case another reader was opened on this thread meanwhile, since it may have grown for a long line
+				ByteBuffer idle = IDLE_BUFFERS.get();
+				if (idle == null || idle.capacity() < buffer.capacity()) {
+					IDLE_BUFFERS.set(buffer);
+				}
+				isThreadBuffer = false;
+				buffer = ByteBuffer.allocate(0);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index in the buffer of the next newline, reading more from the channel as needed. <br>
+	 * Returns -1 if the end of the channel was reached without finding one
+	 * @return
+	 * @throws IOException
+	 */
+	private int findNewline() throws IOException {
+		while (true) {
+			for (int i = scanIndex; i < buffer.limit(); i++) {
+				if (buffer.get(i) == NEWLINE) {
+					return i;
+				}
+			}
+			scanIndex = buffer.limit();
+			if (reachedEOF || !fill()) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Reads more bytes from the channel into the buffer, keeping any unread bytes. <br>
+	 * Returns false if no more bytes could be read
+	 * @return
+	 * @throws IOException
+	 */
+	protected boolean fill() throws IOException {
+		int unreadStart = buffer.position();
+		if (unreadStart == 0 && buffer.limit() == buffer.capacity()) {
+			// Buffer is entirely one unfinished line, so grow it. The grown buffer replaces this thread's buffer once the reader is closed
+			ByteBuffer grown = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+			grown.put(buffer);
+			buffer = grown;
+		} else {
+			buffer.compact();
+		}
+		bufferOffset += unreadStart;
+		scanIndex -= unreadStart;
+
+		int numRead = channel.read(buffer);
+		buffer.flip();
+		if (numRead == -1) {
+			reachedEOF = true;
+		}
+		return numRead > 0;
+	}
+
+	/**
+	 * Parses the seconds and fractional milliseconds at the start of the current line, if not already done for it. 
+	 * This is done directly on the line's bytes, so nothing is allocated
+	 */
+	private void parseLineTime() {
+		if (hasLineTime) {
+			return;
+		}
+		hasLineTime = true;
+		lineTime = -1;
+		lineTimeMillis = -1;
+
+		long seconds = 0;
+		int i = lineIndex;
+		for (; i < lineEndIndex && i - lineIndex < MAX_TIME_DIGITS; i++) {
+			byte b = buffer.get(i);
+			if (b < '0' || b > '9') {
+				break;
+			}
+			seconds = seconds * 10 + (b - '0');
+		}
+		if (i == lineIndex || i >= lineEndIndex || buffer.get(i) != TIME_SEPARATOR) {
+			return;
+		}
+
+		long millis = 0;
+		int numDigits = 0;
+		for (i++; i < lineEndIndex && numDigits < MILLIS_DIGITS; i++, numDigits++) {
+			byte b = buffer.get(i);
+			if (b < '0' || b > '9') {
+				break;
+			}
+			millis = millis * 10 + (b - '0');
+		}
+		for (; numDigits < MILLIS_DIGITS; numDigits++) {
+			millis *= 10; // e.g. "123.4" is 400 ms
+		}
+		lineTime = seconds;
+		lineTimeMillis = seconds * 1000 + millis;
+	}
+
+	private void decodeLine(int start, int end) {
+		int position = buffer.position();
+		int limit = buffer.limit();
+		buffer.limit(end).position(start);
+		lineChars.clear();
+		decoder.reset();
+		while (decoder.decode(buffer, lineChars, true).isOverflow()) {
+			CharBuffer grown = CharBuffer.allocate(lineChars.capacity() * 2);
+			lineChars.flip();
+			grown.put(lineChars);
+			lineChars = grown;
+		}
+		decoder.flush(lineChars); // Nothing is buffered by the UTF-8 decoder, so this will not overflow
+		lineChars.flip();
+		buffer.limit(limit).position(position);
+	}
+}
@@ -0,0 +1,82 @@
+package wfDataManager.client.processor.logging.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Line reader for log files that are complete and will no longer be written to, such as historical logs. <br>
+ * Instead of copying bytes from the channel into a buffer, the file is memory-mapped and lines are scanned for directly in the mapped region. <br>
+ * Only a window of the file is mapped at a time, so files of any size (including over 2 GB) can be read. When the end of a window is reached,
+ * the next window is mapped starting from the first unread byte. <br>
+ * The size of the file is taken when the reader is created, so anything written to it afterwards will not be read.
+ * @author MatNova
+ *
+ */
+public class MappedLogLineReader extends LogLineReader {
+
+	private static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+	private final FileChannel fileChannel;
+	private final long fileSize;
+	private long windowSize;
+
+	/**
+	 * Creates a reader for the given file channel that starts reading at the given byte offset
+	 * @param fileChannel
+	 * @param startOffset
+	 * @throws IOException
+	 */
+	public MappedLogLineReader(FileChannel fileChannel, long startOffset) throws IOException {
+		this(fileChannel, startOffset, DEFAULT_WINDOW_SIZE);
+	}
+
+	public MappedLogLineReader(FileChannel fileChannel, long startOffset, long windowSize) throws IOException {
+		super(fileChannel, startOffset, ByteBuffer.allocate(0));
+		this.fileChannel = fileChannel;
+		this.fileSize = fileChannel.size();
+		this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void seek(long offset) throws IOException {
+		if (offset >= bufferOffset && offset <= bufferOffset + buffer.limit()) {
+			// Still within the current window, so no need to map it again
+			buffer.position((int) (offset - bufferOffset));
+			scanIndex = buffer.position();
+			return;
+		}
+		buffer = ByteBuffer.allocate(0);
+		bufferOffset = offset;
+		scanIndex = 0;
+		reachedEOF = false;
+	}
+
+	/**
+	 * Maps the next window of the file, starting at the first unread byte in the current one. <br>
+	 * If the unread bytes already fill an entire window (i.e. a single line is longer than the window), the window size is doubled
+	 */
+	@Override
+	protected boolean fill() throws IOException {
+		int unreadStart = buffer.position();
+		long windowStart = bufferOffset + unreadStart;
+		long unread = buffer.limit() - unreadStart;
+		if (windowStart + unread >= fileSize) {
+			reachedEOF = true;
+			return false;
+		}
+
+		if (unread >= windowSize) {
+			if (windowSize == Integer.MAX_VALUE) {
+				throw new IOException("Line starting at offset " + windowStart + " is too long to be mapped");
+			}
+			windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+		}
+
+		buffer = fileChannel.map(MapMode.READ_ONLY, windowStart, Math.min(windowSize, fileSize - windowStart));
+		bufferOffset = windowStart;
+		scanIndex -= unreadStart;
+		return true;
+	}
+}
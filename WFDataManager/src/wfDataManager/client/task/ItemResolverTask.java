@@ -0,0 +1,27 @@
+package wfDataManager.client.task;
+
+import jdtools.logging.Log;
+import wfDataManager.client.cache.ItemResolutionCache;
+
+/**
+ * Task for resolving any unknown items that were seen while parsing, so that this doesn't have to happen on the parse threads
+ * @author MatNova
+ *
+ */
+public class ItemResolverTask implements Runnable {
+
+	private static final String LOG_ID = ItemResolverTask.class.getSimpleName();
+	public static final int RESOLVE_INTERVAL = 5; // Seconds between checking for items to resolve
+
+	@Override
+	public void run() {
+		try {
+			if (ItemResolutionCache.singleton().hasPendingItems()) {
+				ItemResolutionCache.singleton().resolvePendingItems();
+			}
+		} catch (Throwable t) {
+			Log.error(LOG_ID + "() : Exception while processing -> ", t);
+		}
+	}
+
+}
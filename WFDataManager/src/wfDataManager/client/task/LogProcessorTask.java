@@ -18,6 +18,10 @@ public class LogProcessorTask implements Runnable {
 	private static BaseLogProcessor processor = ProcessModeType.NORMAL.equals(ClientSettingsUtil.getProcessMode()) ? new NormalLogProcessor()
 			: ProcessModeType.TEST.equals(ClientSettingsUtil.getProcessMode()) ? new TestLogProcessor() : new HistoricalLogProcessor();
 
+	public LogProcessorTask() {
+		processor.start();
+	}
+
 	@Override
 	public void run() {
 		try {
@@ -0,0 +1,75 @@
+package wfDataManager.client.type;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.tukaani.xz.XZInputStream;
+
+import lzma.sdk.lzma.Decoder;
+import lzma.streams.LzmaInputStream;
+
+/**
+ * The types of compression that archived log files may have, determined by their file extension
+ * @author MatNova
+ *
+ */
+public enum CompressionType {
+	GZIP(".gz"),
+	LZMA(".lzma"),
+	XZ(".xz"),
+	NONE("");
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private String extension;
+
+	private CompressionType(String extension) {
+		this.extension = extension;
+	}
+
+	public static CompressionType fileToType(String fileName) {
+		CompressionType theType = NONE;
+
+		for (CompressionType type : values()) {
+			if (!NONE.equals(type) && fileName.toLowerCase().endsWith(type.getExtension())) {
+				theType = type;
+				break;
+			}
+		}
+
+		return theType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * Returns the given file name without this compression's extension, e.g. "DedicatedServer.log.gz" -> "DedicatedServer.log"
+	 * @param fileName
+	 * @return
+	 */
+	public String stripExtension(String fileName) {
+		return fileName.substring(0, fileName.length() - extension.length());
+	}
+
+	/**
+	 * Wraps the given stream of compressed bytes in a stream that will decompress them as they are read
+	 * @param stream
+	 * @return
+	 * @throws IOException
+	 */
+	public InputStream decompress(InputStream stream) throws IOException {
+		InputStream decompressed = stream;
+		if (GZIP.equals(this)) {
+			decompressed = new GZIPInputStream(stream, BUFFER_SIZE);
+		} else if (LZMA.equals(this)) {
+			decompressed = new LzmaInputStream(new BufferedInputStream(stream, BUFFER_SIZE), new Decoder());
+		} else if (XZ.equals(this)) {
+			decompressed = new XZInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+		}
+		return decompressed;
+	}
+}
@@ -0,0 +1,38 @@
+package wfDataManager.client.type;
+
+/**
+ * The type of event a parser emitted for a line it parsed
+ * @author MatNova
+ *
+ */
+public enum ParseEventType {
+	KILL, // A player was killed. name/platform = victim, otherName/otherPlatform = killer, item = weapon if known
+	PLAYER_JOIN, // A player joined the squad. name/platform = player, uid = player UID
+	PLAYER_SPAWN, // A player (re)spawned. name/platform = player
+	PLAYER_LEAVE, // A player disconnected. name/platform = player, connHandle = their conn handle
+	PLAYER_REMOVE, // A player was removed from the squad. name/platform = player
+	CONN_REMOVE, // A connection was removed. connHandle = removed conn handle
+	CONN_HANDLE, // A connection was created or reused. ipAndPort = connection IP:Port, connHandle = conn handle, flag = if it was reused
+	CONN_PLAYER, // A player was created for a connection. name/platform = player, connHandle = conn handle
+	CONN_LOADOUT, // A player's loadout was received. name/platform = player
+	CONN_TIMEOUT, // A connection's timeout was set. connHandle = conn handle
+	CONN_CONTACT, // A contact request was received. name = player
+	ACCT_REQUEST, // A new request was received. acctId = account ID, ipAndPort = request IP:Port, flag = if it was a direct intro, proxy = if it was via proxy
+	ACCT_INTRO, // An introduction request was received. acctId = account ID, ipAndPort = request IP:Port
+	ACCT_PEER, // A squad peer was added. ipAndPort = peer IP:Port
+	ACCT_RELAY, // An introduction request was relayed. otherIPAndPort = relay IP:Port, ipAndPort = IP:Port it was on behalf of
+	MISSION_STAT, // A player's mission stats. name/platform = player, kills/deaths/mechanics = their stats
+	CAPTURE, // A player captured the Cephalon. name/platform = player
+	GOAL, // A player scored a Lunaro goal. name/platform = player
+	SERVER_PORT, // The server was bound to its local port. number = port
+	PROXY_BINDING, // The server was bound to a proxy. ipAndPort = proxy IP:Port
+	BUILD_ID, // The server's build was found. number = build ID
+	LAUNCH_DIR, // The server's launch directory was found. value = directory
+	PROFILE_DIR, // The server's profile directory was found. value = directory
+	NRS_STATUS, // An NRS server was found or failed. flag = if there's an NRS issue
+	GAME_SETTINGS, // The server's game settings were set. value = settings JSON
+	LEVEL, // The server's level was changed. value = internal level name
+	MATCH_START, // A match started at the event's log time
+	MATCH_END, // The current match ended
+	ACTIVITY; // The server's activity should be sampled at this point
+}
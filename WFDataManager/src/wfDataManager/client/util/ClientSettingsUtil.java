@@ -165,6 +165,30 @@ public class ClientSettingsUtil {
 		return singleton().getLogCheckInterval();
 	}
 	
+	public static int getParseThreads() {
+		return singleton().getParseThreads();
+	}
+	
+	public static boolean bulkHistorical() {
+		return singleton().bulkHistorical();
+	}
+	
+	public static boolean watchLogs() {
+		return singleton().watchLogs();
+	}
+	
+	public static int getLogWatchWindow() {
+		return singleton().getLogWatchWindow();
+	}
+	
+	public static boolean enableParseJournal() {
+		return singleton().enableParseJournal();
+	}
+	
+	public static String getJournalDir() {
+		return singleton().getJournalDir();
+	}
+	
 	public static int getBanCheckInterval() {
 		return singleton().getBanCheckInterval();
 	}
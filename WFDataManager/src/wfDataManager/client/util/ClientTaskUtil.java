@@ -9,6 +9,7 @@ import wfDataManager.client.util.data.ClientTaskManager;
  * <blockquote><pre>
  *  - {@link #TASK_BAN_CHECKER} > Task for periodically checking existing bans for expiration
  *  - {@link #TASK_BAN_FETCHER} > Task for periodically checking the service for any new bans
+ *  - {@link #TASK_ITEM_RESOLVER} > Task for periodically resolving any unknown items seen while parsing
  *  - {@link #TASK_LOG_PROCESSOR} > Task for periodically processing the logs
  *  - {@link #TASK_RETRY_FAILED} > Task for periodically retrying any failed service data requests 
  * </pre></blockquote>
@@ -23,6 +24,7 @@ public final class ClientTaskUtil {
 	public static final String TASK_BAN_CHECKER = "Ban Checker";
 	public static final String TASK_BAN_FETCHER = "Ban Fetcher";
 	public static final String TASK_RETRY_FAILED = "Failed Request Retry";
+	public static final String TASK_ITEM_RESOLVER = "Item Resolver";
 	
 	private static synchronized ClientTaskManager singleton() {
 		if (singleton == null) {
@@ -85,6 +85,18 @@ public class ClientSettingsCfg extends SettingsCfg {
 	private int jamThreshold = 5;
 	@SettingData(cfgName="logCheckInterval", wrapper=Integer.class)
 	private int logCheckInterval = 4;
+	@SettingData(cfgName="parseThreads", wrapper=Integer.class, minValue=1.0)
+	private int parseThreads = 4;
+	@SettingData(cfgName="bulkHistorical", wrapper=Boolean.class)
+	private boolean bulkHistorical = true;
+	@SettingData(cfgName="watchLogs", wrapper=Boolean.class)
+	private boolean watchLogs = false;
+	@SettingData(cfgName="logWatchWindow", wrapper=Integer.class, minValue=100.0)
+	private int logWatchWindow = 1000;
+	@SettingData(cfgName="enableParseJournal", wrapper=Boolean.class)
+	private boolean enableParseJournal = false;
+	@SettingData(cfgName="journalDir")
+	private String journalDir = getUserDir() + "data" + File.separator + "journal" + File.separator;
 	@SettingData(cfgName="banCheckInterval", wrapper=Integer.class, minValue=1.0)
 	private int banCheckInterval = 15;
 	@SettingData(cfgName="banFetchInterval", wrapper=Integer.class, minValue=15.0)
@@ -273,6 +285,30 @@ public class ClientSettingsCfg extends SettingsCfg {
 		return logCheckInterval;
 	}
 	
+	public int getParseThreads() {
+		return parseThreads;
+	}
+	
+	public boolean bulkHistorical() {
+		return bulkHistorical;
+	}
+	
+	public boolean watchLogs() {
+		return watchLogs;
+	}
+	
+	public int getLogWatchWindow() {
+		return logWatchWindow;
+	}
+	
+	public boolean enableParseJournal() {
+		return enableParseJournal;
+	}
+	
+	public String getJournalDir() {
+		return journalDir;
+	}
+	
 	public int getBanCheckInterval() {
 		return banCheckInterval;
 	}
@@ -3,6 +3,7 @@ package wfDataManager.client.util.data;
 import jdtools.logging.Log;
 import wfDataManager.client.task.BanFetcherTask;
 import wfDataManager.client.task.BanProcessorTask;
+import wfDataManager.client.task.ItemResolverTask;
 import wfDataManager.client.task.LogProcessorTask;
 import wfDataManager.client.task.RetryDataTask;
 import wfDataManager.client.util.ClientSettingsUtil;
@@ -51,6 +52,10 @@ public class ClientTaskManager extends TaskManager {
 			// Also add a bit of a buffer time onto it as well
 			period = ClientSettingsUtil.getServiceTimeout() * (RetryDataTask.GAME_DATA_RETRY_COUNT) + (ClientSettingsUtil.getServiceTimeout() * 2);
 			task = new RetryDataTask();
+		} else if (ClientTaskUtil.TASK_ITEM_RESOLVER.equals(taskName)) {
+			period = ItemResolverTask.RESOLVE_INTERVAL;
+			delay = ItemResolverTask.RESOLVE_INTERVAL;
+			task = new ItemResolverTask();
 		} else {
 			Log.warn(LOG_ID + ".getTask() : Unknown taskName provided -> " + taskName);
 		}
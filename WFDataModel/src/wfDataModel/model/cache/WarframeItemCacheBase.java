@@ -1,13 +1,26 @@
 package wfDataModel.model.cache;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -27,7 +40,9 @@ import wfDataModel.service.codes.JSONField;
 import wfDataModel.service.type.WeaponType;
 
 /**
- * Base implementation for WF item caching classes
+ * Base implementation for WF item caching classes. <br>
+ * Items are held in an immutable snapshot that is only ever replaced as a whole, so lookups never lock and always see either the
+ * items from before or after a refresh, never a partially built set. Refreshes build the new snapshot on the side and then swap it in
  * @author MatNova
  *
  */
@@ -38,16 +53,66 @@ public abstract class WarframeItemCacheBase implements HTTPRequestListener {
 	private static final String BASE_MANIFEST_URL = "https://content.warframe.com/PublicExport/Manifest/";
 	protected static final String TAG_WEAPONS = "Weapons";
 	protected static final String TAG_WARFRAMES = "Warframes";
+	private static final int SNAPSHOT_MAGIC = 0x57464943; // "WFIC"
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int SNAPSHOT_HEADER_SIZE = 20; // Magic, version, data ID, number of items
 
 	private Map<String, WeaponData> customItems = new HashMap<String, WeaponData>(2); // Custom item key -> custom item definitions. Will be merged into warframeItems, but stored separately to survive through cache refreshes
-	private Map<String, WeaponData> warframeItems = new HashMap<String, WeaponData>(); // Item internal name, info about weapon
+	private Map<String, WeaponData> addedItems = new ConcurrentHashMap<String, WeaponData>(); // Item key -> items added while running. Stored separately to survive through cache refreshes
+	private volatile Map<String, WeaponData> warframeItems = Collections.emptyMap(); // Item internal name, info about weapon. Immutable snapshot, replaced as a whole on init or when an item is added
+	private Map<String, WeaponData> buildItems = null; // The snapshot currently being built, only set during init
 	private Map<String, String> manifests = new HashMap<String, String>(); // key = tag (e.g. weapons), value = manifest file name
-	protected boolean hasInit = false;
-	protected long cacheID = -1;
+	private AtomicBoolean isRefreshing = new AtomicBoolean(false);
+	private final Object buildLock = new Object(); // Held while the cache is built, so only one build happens at a time. Lookups and cache ID checks never wait on this
+	protected volatile boolean hasInit = false;
+	protected final AtomicLong cacheID = new AtomicLong(-1);
 
-	protected void init(boolean isRefresh) {
+	/**
+	 * Builds the cache if it has not been built yet. <br>
+	 * This should be called at startup so that the first lookup does not have to build the cache (and possibly fetch it) itself
+	 */
+	public void warmUp() {
+		initIfNeeded();
+	}
+
+	/**
+	 * Rebuilds the cache on a separate thread, if a rebuild is not already in progress. <br>
+	 * Lookups will continue to use the current items until the rebuilt items are ready
+	 */
+	protected void refreshInBackground() {
+		if (isRefreshing.compareAndSet(false, true)) {
+			Thread refreshThread = new Thread(() -> {
+				try {
+					build(true);
+				} catch (Throwable t) {
+					Log.error(LOG_ID + ".refreshInBackground() : Error refreshing cache -> ", t);
+				} finally {
+					isRefreshing.set(false);
+				}
+			}, getClass().getSimpleName() + "-Refresh");
+			refreshThread.setDaemon(true);
+			refreshThread.start();
+		}
+	}
+
+	/**
+	 * Builds the cache, waiting for any other build in progress to finish first
+	 * @param isRefresh
+	 */
+	protected void build(boolean isRefresh) {
+		synchronized (buildLock) {
+			init(isRefresh);
+		}
+	}
+
+	/**
+	 * Builds the cache. Callers should hold the build lock, so only one build happens at a time
+	 * @param isRefresh
+	 */
+	private void init(boolean isRefresh) {
 		long startMs = System.currentTimeMillis();
 
+		buildItems = new HashMap<String, WeaponData>(warframeItems); // Start from the current items, so that a refresh that fails to fetch anything keeps them
 		buildData(TAG_WEAPONS, isRefresh);
 		buildData(TAG_WARFRAMES, isRefresh);
 
@@ -71,15 +136,23 @@ public abstract class WarframeItemCacheBase implements HTTPRequestListener {
 			}
 		}
 
-		hasInit = true;
-
 		// If we already have an item for this key in our warframeItems cache, don't override it
 		for (String itemKey : getCustomItems().keySet()) {
-			if (!hasItemName(itemKey)) {
-				WeaponData custData =  getCustomItem(itemKey);
-				addWarframeItem(itemKey, custData.getRealName(), custData.getType());
+			if (!hasItemName(buildItems.get(itemKey))) {
+				buildItems.put(itemKey, getCustomItem(itemKey));
 			}
 		}
+		// Done while holding the lock for added items so that nothing added while this was building is lost
+		synchronized (addedItems) {
+			for (String itemKey : addedItems.keySet()) {
+				if (!hasItemName(buildItems.get(itemKey))) {
+					buildItems.put(itemKey, addedItems.get(itemKey));
+				}
+			}
+			warframeItems = Collections.unmodifiableMap(buildItems);
+		}
+		buildItems = null;
+		hasInit = true;
 
 		Log.info(LOG_ID + ".init() : Cache built in " + ((System.currentTimeMillis() - startMs)/1000.0) + " seconds");
 
@@ -102,47 +175,159 @@ public abstract class WarframeItemCacheBase implements HTTPRequestListener {
 					Log.warn(LOG_ID + ".buildCache() : Could not get manifest files, will not make / parse " + type + " cache");
 				}
 			}
-		} else {
+		} else if (!readSnapshot(cacheFile, type)) {
 			try {
 				String cacheData = new String(Files.readAllBytes(cacheFile.toPath()));
 				JsonObject cacheObj = JsonParser.parseString(cacheData).getAsJsonObject();
-				if (cacheObj.has(JSONField.DATA_ID) && cacheID == -1) {
-					cacheID = cacheObj.get(JSONField.DATA_ID).getAsLong();
+				if (cacheObj.has(JSONField.DATA_ID)) {
+					cacheID.compareAndSet(-1, cacheObj.get(JSONField.DATA_ID).getAsLong());
 				}
-				parseItems(JsonParser.parseString(cacheData).getAsJsonObject(), type);
+				List<WeaponData> items = parseItems(cacheObj, type);
+				writeSnapshot(cacheFile, items, cacheObj.has(JSONField.DATA_ID) ? cacheObj.get(JSONField.DATA_ID).getAsLong() : -1); // So that the next start can use the snapshot instead
 			} catch (Exception e) {
 				Log.error(LOG_ID + ".buildCache() : Error parsing file for " + type + " cache -> ", e);
 			}
 		}
 	}
 
-	public String getItemName(String itemKey) {
-		if (!hasInit) {
-			init(false);
+	/**
+	 * Returns the snapshot file for the given cache file, which is the same file but with a .bin extension
+	 * @param cacheFile
+	 * @return
+	 */
+	private File getSnapshotFile(File cacheFile) {
+		String name = cacheFile.getName();
+		return new File(cacheFile.getParentFile(), (name.lastIndexOf('.') > 0 ? name.substring(0, name.lastIndexOf('.')) : name) + ".bin");
+	}
+
+	/**
+	 * Reads the items for the given type from the binary snapshot of the given cache file. <br>
+	 * Returns false if there is no usable snapshot (i.e. it doesn't exist, is older than the cache file, or is from a different version),
+	 * in which case the cache file itself should be read instead
+	 * @param cacheFile
+	 * @param type
+	 * @return
+	 */
+	private boolean readSnapshot(File cacheFile, String type) {
+		File snapshotFile = getSnapshotFile(cacheFile);
+		boolean isRead = false;
+		if (snapshotFile.exists() && snapshotFile.lastModified() >= cacheFile.lastModified()) {
+			try {
+				// Read fully rather than mapped, since a mapping would keep the file locked on Windows until it is garbage collected and so block the snapshot from being replaced
+				ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath()));
+				if (buffer.remaining() >= SNAPSHOT_HEADER_SIZE && buffer.getInt() == SNAPSHOT_MAGIC && buffer.getInt() == SNAPSHOT_VERSION) {
+					long dataId = buffer.getLong();
+					int numItems = buffer.getInt();
+					Map<String, WeaponData> items = new HashMap<String, WeaponData>(numItems * 2);
+					for (int i = 0; i < numItems; i++) {
+						WeaponData wepData = new WeaponData(readString(buffer));
+						wepData.setRealName(readString(buffer));
+						wepData.setType(WeaponType.valueOf(readString(buffer)));
+						items.put(wepData.getInternalName(), wepData);
+					}
+					if (dataId != -1) {
+						cacheID.compareAndSet(-1, dataId);
+					}
+					buildItems.putAll(items);
+					isRead = true;
+				} else {
+					Log.warn(LOG_ID + ".readSnapshot() : Snapshot for " + type + " cache is not a known format, will read cache file instead");
+				}
+			} catch (Exception e) {
+				Log.warn(LOG_ID + ".readSnapshot() : Could not read snapshot for " + type + " cache, will read cache file instead -> " + e);
+			}
 		}
+		return isRead;
+	}
+
+	/**
+	 * Writes the given items to a binary snapshot of the given cache file. <br>
+	 * The snapshot contains only the internal name, real name, and type of each item, so it is much quicker to load than the cache file
+	 * @param cacheFile
+	 * @param items
+	 * @param dataId
+	 */
+	private void writeSnapshot(File cacheFile, List<WeaponData> items, long dataId) {
+		File snapshotFile = getSnapshotFile(cacheFile);
+		File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeLong(dataId);
+			out.writeInt(items.size());
+			for (WeaponData item : items) {
+				writeString(out, item.getInternalName());
+				writeString(out, item.getRealName());
+				writeString(out, item.getType().name());
+			}
+		} catch (Exception e) {
+			Log.warn(LOG_ID + ".writeSnapshot() : Could not write snapshot for cache file " + cacheFile.getName() + " -> " + e);
+			tmpFile.delete();
+			return;
+		}
+
+		try {
+			Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (Exception e) {
+			Log.warn(LOG_ID + ".writeSnapshot() : Could not replace snapshot for cache file " + cacheFile.getName() + " -> " + e);
+			tmpFile.delete();
+		}
+	}
+
+	private void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public String getItemName(String itemKey) {
+		initIfNeeded();
 		WeaponData data = warframeItems.get(itemKey);
 		return data == null ? null : data.getRealName();
 	}
 	
 	public WeaponData getItemInfo(String itemKey) {
-		if (!hasInit) {
-			init(false);
-		}
+		initIfNeeded();
 		return warframeItems.get(itemKey);
 	}
 
 	public boolean hasItemName(String itemKey) {
+		initIfNeeded();
+		return hasItemName(warframeItems.get(itemKey));
+	}
+
+	private boolean hasItemName(WeaponData data) {
+		return data != null && !MiscUtil.isEmpty(data.getRealName());
+	}
+
+	private void initIfNeeded() {
 		if (!hasInit) {
-			init(false);
+			synchronized (buildLock) {
+				if (!hasInit) {
+					init(false);
+				}
+			}
 		}
-		return warframeItems.get(itemKey) != null && !MiscUtil.isEmpty(warframeItems.get(itemKey).getRealName());
 	}
 
 	protected void addWarframeItem(String itemKey, String itemName, WeaponType type) {
 		WeaponData wepData = new WeaponData(itemKey);
 		wepData.setRealName(itemName);
 		wepData.setType(type);
-		warframeItems.put(itemKey, wepData);
+
+		// Added items are rare, so the whole snapshot is just copied with the item included
+		synchronized (addedItems) {
+			addedItems.put(itemKey, wepData);
+			Map<String, WeaponData> items = new HashMap<String, WeaponData>(warframeItems);
+			items.put(itemKey, wepData);
+			warframeItems = Collections.unmodifiableMap(items);
+		}
 	}
 
 	protected void addCustomItem(String itemKey, String itemName, WeaponType type) {
@@ -160,8 +345,9 @@ public abstract class WarframeItemCacheBase implements HTTPRequestListener {
 		return customItems.get(itemKey);
 	}
 
-	private void parseItems(JsonObject baseObj, String type) {
+	private List<WeaponData> parseItems(JsonObject baseObj, String type) {
 		JsonArray dataArr = TAG_WEAPONS.equals(type) ? baseObj.getAsJsonArray("ExportWeapons") : baseObj.getAsJsonArray("ExportWarframes");
+		List<WeaponData> items = new ArrayList<WeaponData>(dataArr.size());
 
 		for (JsonElement itemElement : dataArr) {
 			JsonObject item = itemElement.getAsJsonObject();
@@ -171,8 +357,10 @@ public abstract class WarframeItemCacheBase implements HTTPRequestListener {
 			WeaponData wepData = new WeaponData(itemKey.substring(itemKey.lastIndexOf("/") +1 ));
 			wepData.setRealName(itemName);
 			wepData.setType(itemType);
-			warframeItems.put(wepData.getInternalName(), wepData);
+			buildItems.put(wepData.getInternalName(), wepData);
+			items.add(wepData);
 		}
+		return items;
 	}
 
 	private void fetchManifests() {
@@ -199,13 +387,15 @@ public abstract class WarframeItemCacheBase implements HTTPRequestListener {
 			String response = result.getResponse();
 			try {
 				JsonObject respObj = JsonParser.parseString(response).getAsJsonObject();
-				parseItems(respObj, (String)tag);
+				List<WeaponData> items = parseItems(respObj, (String)tag);
 				File cacheFile = getCacheFile((String)tag);
 				if (cacheFile != null) {
-					respObj.addProperty(JSONField.DATA_ID, cacheID);
+					long dataId = cacheID.get();
+					respObj.addProperty(JSONField.DATA_ID, dataId);
 					try (BufferedWriter writer = new BufferedWriter(new FileWriter(cacheFile))) {
 						writer.write(respObj.toString());
 					}
+					writeSnapshot(cacheFile, items, dataId);
 				}
 			} catch (Exception e) {
 				Log.error(LOG_ID + ".onRequestCompleted() : Exception trying to parse response for tag " + tag + " -> ", e);
@@ -0,0 +1,416 @@
+package wfDataModel.model.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jdtools.collection.Pair;
+
+/**
+ * Store for the accountID candidates of a server, i.e. which accountIDs might belong to which IP:Ports. <br>
+ * Candidates are kept in buckets by how confident the mapping is, and then by IP:Port, with the most recent accountID for an IP:Port first. <br>
+ * Candidates are also indexed by accountID, so that finding or removing an accountID doesn't need to look through every IP:Port. <br>
+ * Candidates that have not been referenced for the expire time (in log time) are removed by a timing wheel as log time moves forward,
+ * rather than being left for every lookup to skip over. If the most recent candidate for an IP:Port expires, whichever of its remaining candidates was added to it first takes its place
+ * @author MatNova
+ *
+ */
+public class AccountIDCandidateStore {
+
+	private static final int WHEEL_SLOTS = 256; // One slot per second of log time. Should be more than the expire time so most candidates expire on the first pass of their slot
+
+	private Map<Integer, Map<String, List<Pair<String, Long>>>> candidates = new HashMap<Integer, Map<String, List<Pair<String, Long>>>>(); // Mapping confidence -> IP:Ports -> potential acctIds, most recent first
+	private Map<String, Map<Integer, Set<String>>> acctIndex = new HashMap<String, Map<Integer, Set<String>>>(); // AcctId -> mapping confidence -> IP:Ports that have the acctId as a candidate
+	private List<List<WheelEntry>> wheel = new ArrayList<List<WheelEntry>>(Collections.nCopies(WHEEL_SLOTS, (List<WheelEntry>) null)); // Log time the candidate expires at % slots -> candidates expiring then
+	private long wheelTime = -1; // Log time the wheel has been advanced to
+	private Map<Pair<String, Long>, Long> insertTicks = new IdentityHashMap<Pair<String, Long>, Long>(); // Candidate -> order it was added to its IP:Port in
+	private long nextTick;
+	private long expireTime;
+
+	/**
+	 * Creates a store whose candidates expire once they have not been referenced for the given log time
+	 * @param expireTime
+	 */
+	public AccountIDCandidateStore(long expireTime) {
+		this.expireTime = expireTime;
+	}
+
+	/**
+	 * Adds the given accountID as the most recent candidate for the given IP:Port under the given mapping confidence
+	 * @param candidateKey
+	 * @param ipAndPort
+	 * @param accountId
+	 * @param logTime
+	 */
+	public void add(int candidateKey, String ipAndPort, String accountId, long logTime) {
+		expire(logTime);
+		List<Pair<String, Long>> ipCandidates = candidates.computeIfAbsent(candidateKey, k -> new HashMap<String, List<Pair<String, Long>>>()).computeIfAbsent(ipAndPort, k -> new ArrayList<Pair<String, Long>>(2));
+		Pair<String, Long> previous = removeFromList(ipCandidates, accountId);
+		if (previous != null) {
+			unschedule(candidateKey, ipAndPort, previous);
+		}
+		Pair<String, Long> candidate = new Pair<String, Long>(accountId, logTime);
+		ipCandidates.add(0, candidate);
+		index(candidateKey, ipAndPort, candidate);
+	}
+
+	/**
+	 * Returns the most recent candidate for the given IP:Port under the given mapping confidence, or null if none
+	 * @param candidateKey
+	 * @param ipAndPort
+	 * @param logTime
+	 * @return
+	 */
+	public Pair<String, Long> getCandidate(int candidateKey, String ipAndPort, long logTime) {
+		expire(logTime);
+		return getTopCandidate(candidateKey, ipAndPort);
+	}
+
+	/**
+	 * Returns all IP:Ports whose most recent candidate is the given accountID and was referenced within the given time of the given log time
+	 * @param accountId
+	 * @param logTime
+	 * @param maxAge
+	 * @return
+	 */
+	public List<String> getIPAndPorts(String accountId, long logTime, long maxAge) {
+		expire(logTime);
+		List<String> ipAndPorts = new ArrayList<String>();
+		Map<Integer, Set<String>> acctLocations = acctIndex.get(accountId);
+		if (acctLocations != null) {
+			for (Integer candidateKey : acctLocations.keySet()) {
+				for (String ipAndPort : acctLocations.get(candidateKey)) {
+					Pair<String, Long> top = getTopCandidate(candidateKey, ipAndPort);
+					if (top != null && top.getKey().equals(accountId) && logTime - top.getValue() < maxAge) {
+						ipAndPorts.add(ipAndPort);
+					}
+				}
+			}
+		}
+		return ipAndPorts;
+	}
+
+	/**
+	 * Removes all candidates for the given IP:Port
+	 * @param ipAndPort
+	 */
+	public void removeIPAndPort(String ipAndPort) {
+		for (Integer candidateKey : candidates.keySet()) {
+			List<Pair<String, Long>> ipCandidates = candidates.get(candidateKey).remove(ipAndPort);
+			if (ipCandidates != null) {
+				for (Pair<String, Long> candidate : ipCandidates) {
+					unindex(candidateKey, ipAndPort, candidate.getKey());
+					unschedule(candidateKey, ipAndPort, candidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the given accountID as a candidate for every IP:Port, returning each mapping confidence and IP:Port it was removed from. <br>
+	 * Any IP:Port left with no candidates is removed as well
+	 * @param accountId
+	 * @return
+	 */
+	public List<Pair<Integer, String>> removeAccountID(String accountId) {
+		List<Pair<Integer, String>> removed = new ArrayList<Pair<Integer, String>>();
+		Map<Integer, Set<String>> acctLocations = acctIndex.get(accountId);
+		if (acctLocations != null) {
+			for (Integer candidateKey : new ArrayList<Integer>(acctLocations.keySet())) {
+				Map<String, List<Pair<String, Long>>> keyCandidates = candidates.get(candidateKey);
+				for (String ipAndPort : new ArrayList<String>(acctLocations.get(candidateKey))) {
+					List<Pair<String, Long>> ipCandidates = keyCandidates.get(ipAndPort);
+					Pair<String, Long> candidate = removeFromList(ipCandidates, accountId);
+					if (candidate != null) {
+						unschedule(candidateKey, ipAndPort, candidate);
+						removed.add(new Pair<Integer, String>(candidateKey, ipAndPort));
+					}
+					if (!containsAccountID(ipCandidates, accountId)) {
+						unindex(candidateKey, ipAndPort, accountId);
+					}
+					if (ipCandidates.isEmpty()) {
+						keyCandidates.remove(ipAndPort);
+					}
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * For each mapping confidence, moves any other candidates of the given IP:Port over to every other IP:Port that has the given accountID as a candidate. <br>
+	 * This is done when the given IP:Port is mapped to the given accountID, since the other candidates may have been for the other IP:Ports all along
+	 * @param ipAndPort
+	 * @param accountId
+	 */
+	public void redistribute(String ipAndPort, String accountId) {
+		Map<Integer, Set<String>> acctLocations = acctIndex.get(accountId);
+		if (acctLocations == null) {
+			return;
+		}
+		for (Integer candidateKey : new ArrayList<Integer>(acctLocations.keySet())) {
+			List<Pair<String, Long>> ipCandidates = candidates.get(candidateKey).get(ipAndPort);
+			if (ipCandidates == null) {
+				continue;
+			}
+			List<Pair<String, Long>> distributes = new ArrayList<Pair<String, Long>>();
+			for (Pair<String, Long> candidate : ipCandidates) {
+				if (!candidate.getKey().equals(accountId)) {
+					distributes.add(candidate);
+				}
+			}
+			if (!distributes.isEmpty()) {
+				for (String cndIP : new ArrayList<String>(acctLocations.get(candidateKey))) {
+					if (!cndIP.equals(ipAndPort)) {
+						for (Pair<String, Long> candidate : distributes) {
+							Pair<String, Long> copy = new Pair<String, Long>(candidate.getKey(), candidate.getValue()); // Each IP:Port gets its own entry, since when it was added differs for each
+							candidates.get(candidateKey).get(cndIP).add(copy);
+							index(candidateKey, cndIP, copy);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns all candidates, by mapping confidence and then IP:Port. This should not be modified
+	 * @return
+	 */
+	public Map<Integer, Map<String, List<Pair<String, Long>>>> getCandidates() {
+		return Collections.unmodifiableMap(candidates);
+	}
+
+	/**
+	 * Replaces all candidates with the given candidates, i.e. as read back in from the DB. <br>
+	 * Any of these that have already expired are removed as soon as log time is next given to the store
+	 * @param newCandidates
+	 */
+	public void setCandidates(Map<Integer, Map<String, List<Pair<String, Long>>>> newCandidates) {
+		clear();
+		if (newCandidates != null) {
+			for (Integer candidateKey : newCandidates.keySet()) {
+				for (String ipAndPort : newCandidates.get(candidateKey).keySet()) {
+					List<Pair<String, Long>> ipCandidates = new ArrayList<Pair<String, Long>>(newCandidates.get(candidateKey).get(ipAndPort));
+					if (!ipCandidates.isEmpty()) {
+						candidates.computeIfAbsent(candidateKey, k -> new HashMap<String, List<Pair<String, Long>>>()).put(ipAndPort, ipCandidates);
+						for (Pair<String, Long> candidate : ipCandidates) {
+							index(candidateKey, ipAndPort, candidate);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		for (Map<String, List<Pair<String, Long>>> keyCandidates : candidates.values()) {
+			if (!keyCandidates.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void clear() {
+		candidates.clear();
+		acctIndex.clear();
+		Collections.fill(wheel, null);
+		wheelTime = -1;
+		insertTicks.clear();
+	}
+
+	/**
+	 * Advances the timing wheel up to the given log time, removing any candidates that have expired by then. <br>
+	 * If the wheel has not been started yet (e.g. candidates were just read back in), every slot is checked since anything could have expired already. 
+	 * If log time has gone backwards (e.g. a new log), the wheel just starts again from the given time
+	 * @param logTime
+	 */
+	private void expire(long logTime) {
+		if (wheelTime == -1) {
+			for (int slot = 0; slot < WHEEL_SLOTS; slot++) {
+				expireSlot(slot, logTime);
+			}
+			wheelTime = logTime;
+			return;
+		} else if (logTime < wheelTime) {
+			wheelTime = logTime;
+			return;
+		}
+
+		// If more time has passed than the wheel covers, every slot only needs to be looked at once
+		long endTime = Math.min(logTime, wheelTime + WHEEL_SLOTS);
+		for (long time = wheelTime + 1; time <= endTime; time++) {
+			expireSlot((int) (time % WHEEL_SLOTS), logTime);
+		}
+		wheelTime = logTime;
+	}
+
+	/**
+	 * Removes any candidates in the given slot of the timing wheel that have expired by the given log time
+	 * @param slot
+	 * @param logTime
+	 */
+	private void expireSlot(int slot, long logTime) {
+		List<WheelEntry> entries = wheel.get(slot);
+		if (entries != null) {
+			Iterator<WheelEntry> it = entries.iterator();
+			while (it.hasNext()) {
+				WheelEntry entry = it.next();
+				if (entry.expireAt <= logTime) {
+					it.remove();
+					expireCandidate(entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the candidate for the given wheel entry, but only if it has not been referenced again since the entry was made. <br>
+	 * If it was the most recent candidate for its IP:Port, the remaining candidate that was added first is moved up to replace it, 
+	 * so that candidates moved over by {@link #redistribute(String, String)} in a later cycle don't jump ahead of ones that were there before them
+	 * @param entry
+	 */
+	private void expireCandidate(WheelEntry entry) {
+		Map<String, List<Pair<String, Long>>> keyCandidates = candidates.get(entry.candidateKey);
+		List<Pair<String, Long>> ipCandidates = keyCandidates != null ? keyCandidates.get(entry.ipAndPort) : null;
+		if (ipCandidates != null) {
+			for (int i = 0; i < ipCandidates.size(); i++) {
+				Pair<String, Long> candidate = ipCandidates.get(i);
+				if (candidate.getKey().equals(entry.accountId) && candidate.getValue() + expireTime <= entry.expireAt) {
+					ipCandidates.remove(i);
+					insertTicks.remove(candidate);
+					if (!containsAccountID(ipCandidates, entry.accountId)) {
+						unindex(entry.candidateKey, entry.ipAndPort, entry.accountId);
+					}
+					if (i == 0 && ipCandidates.size() > 1) {
+						promoteFirstAdded(ipCandidates);
+					}
+					break;
+				}
+			}
+			if (ipCandidates.isEmpty()) {
+				keyCandidates.remove(entry.ipAndPort);
+			}
+		}
+	}
+
+	private Pair<String, Long> getTopCandidate(int candidateKey, String ipAndPort) {
+		Map<String, List<Pair<String, Long>>> keyCandidates = candidates.get(candidateKey);
+		List<Pair<String, Long>> ipCandidates = keyCandidates != null ? keyCandidates.get(ipAndPort) : null;
+		return ipCandidates == null || ipCandidates.isEmpty() ? null : ipCandidates.get(0);
+	}
+
+	/**
+	 * Moves whichever of the given candidates was added first to the top of them
+	 * @param ipCandidates
+	 */
+	private void promoteFirstAdded(List<Pair<String, Long>> ipCandidates) {
+		int firstIndex = 0;
+		long firstTick = Long.MAX_VALUE;
+		for (int i = 0; i < ipCandidates.size(); i++) {
+			Long tick = insertTicks.get(ipCandidates.get(i));
+			if (tick != null && tick < firstTick) {
+				firstIndex = i;
+				firstTick = tick;
+			}
+		}
+		if (firstIndex != 0) {
+			ipCandidates.add(0, ipCandidates.remove(firstIndex));
+		}
+	}
+
+	private void index(int candidateKey, String ipAndPort, Pair<String, Long> candidate) {
+		acctIndex.computeIfAbsent(candidate.getKey(), k -> new HashMap<Integer, Set<String>>(2)).computeIfAbsent(candidateKey, k -> new HashSet<String>(2)).add(ipAndPort);
+		insertTicks.put(candidate, nextTick++);
+		long expireAt = candidate.getValue() + expireTime;
+		int slot = getSlot(expireAt);
+		if (wheel.get(slot) == null) {
+			wheel.set(slot, new ArrayList<WheelEntry>(4));
+		}
+		wheel.get(slot).add(new WheelEntry(candidateKey, ipAndPort, candidate.getKey(), expireAt));
+	}
+
+	/**
+	 * Removes the timing wheel entry and insert order for the given candidate, since it has been removed from the store and so no longer needs to expire
+	 * @param candidateKey
+	 * @param ipAndPort
+	 * @param candidate
+	 */
+	private void unschedule(int candidateKey, String ipAndPort, Pair<String, Long> candidate) {
+		insertTicks.remove(candidate);
+		long expireAt = candidate.getValue() + expireTime;
+		List<WheelEntry> entries = wheel.get(getSlot(expireAt));
+		if (entries != null) {
+			Iterator<WheelEntry> it = entries.iterator();
+			while (it.hasNext()) {
+				WheelEntry entry = it.next();
+				if (entry.expireAt == expireAt && entry.candidateKey == candidateKey && entry.ipAndPort.equals(ipAndPort) && entry.accountId.equals(candidate.getKey())) {
+					it.remove();
+					break;
+				}
+			}
+		}
+	}
+
+	private int getSlot(long expireAt) {
+		return (int) (Math.max(expireAt, 0) % WHEEL_SLOTS);
+	}
+
+	private void unindex(int candidateKey, String ipAndPort, String accountId) {
+		Map<Integer, Set<String>> acctLocations = acctIndex.get(accountId);
+		if (acctLocations != null && acctLocations.containsKey(candidateKey)) {
+			acctLocations.get(candidateKey).remove(ipAndPort);
+			if (acctLocations.get(candidateKey).isEmpty()) {
+				acctLocations.remove(candidateKey);
+			}
+			if (acctLocations.isEmpty()) {
+				acctIndex.remove(accountId);
+			}
+		}
+	}
+
+	private Pair<String, Long> removeFromList(List<Pair<String, Long>> ipCandidates, String accountId) {
+		Iterator<Pair<String, Long>> it = ipCandidates.iterator();
+		while (it.hasNext()) {
+			Pair<String, Long> candidate = it.next();
+			if (candidate.getKey().equals(accountId)) {
+				it.remove();
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private boolean containsAccountID(List<Pair<String, Long>> ipCandidates, String accountId) {
+		for (Pair<String, Long> candidate : ipCandidates) {
+			if (candidate.getKey().equals(accountId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A candidate waiting in the timing wheel to expire
+	 */
+	private static class WheelEntry {
+		private int candidateKey;
+		private String ipAndPort;
+		private String accountId;
+		private long expireAt;
+
+		private WheelEntry(int candidateKey, String ipAndPort, String accountId, long expireAt) {
+			this.candidateKey = candidateKey;
+			this.ipAndPort = ipAndPort;
+			this.accountId = accountId;
+			this.expireAt = expireAt;
+		}
+	}
+}
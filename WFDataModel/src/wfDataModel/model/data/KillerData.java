@@ -51,6 +51,18 @@ public class KillerData {
 		}
 	}
 	
+	/**
+	 * Moves any kills for the given weapon over to the new weapon name
+	 * @param weapon
+	 * @param newWeapon
+	 */
+	public void renameWeapon(String weapon, String newWeapon) {
+		Integer kills = weaponKills.remove(weapon);
+		if (kills != null) {
+			addToWeaponKills(newWeapon, kills);
+		}
+	}
+	
 	public int getWeaponKills(String weapon) {
 		return weaponKills.getOrDefault(weapon, 0);
 	}
@@ -224,6 +224,21 @@ public class PlayerData {
 		return weapons;
 	}
 
+	/**
+	 * Moves any kills with, and deaths by, the given weapon over to the new weapon name
+	 * @param weapon
+	 * @param newWeapon
+	 */
+	public void renameWeapon(String weapon, String newWeapon) {
+		Integer kills = weapons.remove(weapon);
+		if (kills != null) {
+			addWeaponKill(newWeapon, kills);
+		}
+		for (KillerData killer : killers.values()) {
+			killer.renameWeapon(weapon, newWeapon);
+		}
+	}
+
 	/**
 	 * Resets all currently parsed data for this player (i.e. kills, deaths, total time, etc)
 	 * This will also mark the player as currently being in the server. <br>
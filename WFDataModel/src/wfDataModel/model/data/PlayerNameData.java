@@ -0,0 +1,25 @@
+package wfDataModel.model.data;
+
+/**
+ * Data model for a player name as it appears in a log, split into the player's actual name and the platform code that was appended to it
+ * @author MatNova
+ *
+ */
+public class PlayerNameData {
+
+	private String name;
+	private int platform;
+
+	public PlayerNameData(String name, int platform) {
+		this.name = name;
+		this.platform = platform;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPlatform() {
+		return platform;
+	}
+}
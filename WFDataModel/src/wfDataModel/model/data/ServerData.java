@@ -1,13 +1,18 @@
 package wfDataModel.model.data;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -21,6 +26,8 @@ import com.google.gson.reflect.TypeToken;
 import jdtools.collection.Pair;
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
+import wfDataModel.model.util.data.TaggedDataReader;
+import wfDataModel.model.util.data.TaggedDataWriter;
 import wfDataModel.service.codes.JSONField;
 import wfDataModel.service.type.LevelType;
 
@@ -45,10 +52,38 @@ public class ServerData {
 	private static final int MAPPING_PRIMARY = 2;
 	private static final int MAPPING_SECONDARY = 3;
 
+	// Binary format for storing server data. The version only needs to change if the meaning of an existing field changes
+	// Field tags must never be reused or changed once in use, so that older data can always be read
+	private static final int BINARY_MAGIC = 0x57465344; // "WFSD". Never starts with '{', so can be told apart from the older JSON format
+	private static final int BINARY_VERSION = 1;
+	private static final int TAG_POSITION = 1;
+	private static final int TAG_REPEAT = 2;
+	private static final int TAG_MISS = 3;
+	private static final int TAG_PROFILE = 4;
+	private static final int TAG_DIR = 5;
+	private static final int TAG_PORT = 6;
+	private static final int TAG_LAST_CONN = 7;
+	private static final int TAG_LEVEL = 8;
+	private static final int TAG_TIME_STATS = 9;
+	private static final int TAG_CONN_HANDLES = 10;
+	private static final int TAG_ACCOUNT_IDS = 11;
+	private static final int TAG_ACCOUNT_ID_CANDIDATES = 12;
+	private static final int TAG_ACCOUNT_IDS_FOR_CONN = 13;
+	private static final int TAG_GUESS = 14;
+	private static final int TAG_SETTINGS = 15;
+	private static final int TAG_PLAYERS = 16;
+	private static final int TAG_PROXIES = 17;
+
 
 	@Expose()
 	@SerializedName(JSONField.PLAYERS)
 	private Map<String, PlayerData> parsedPlayers = new HashMap<String, PlayerData>(10); // UID -> player
+	@Expose (serialize = false, deserialize = false) 
+	private Map<Integer, Map<String, PlayerData>> playerNameIndex; // Platform -> player name -> player. Built lazily, so use getPlayerNameIndex()
+	@Expose (serialize = false, deserialize = false) 
+	private Map<String, PlayerData> connectedPlayers; // UID -> player for players still in the server. Built lazily, so use getConnectedPlayerIndex()
+	@Expose (serialize = false, deserialize = false) 
+	private Collection<PlayerData> connectedPlayersView; // Read-only view of connectedPlayers
 	@Expose()
 	@SerializedName(JSONField.SETTINGS)
 	private JsonObject gameSettings;
@@ -71,6 +106,8 @@ public class ServerData {
 	@Expose (serialize = false, deserialize = false) 
 	private long startLogPosition; // The log position at the start of this parsing session
 	@Expose (serialize = false, deserialize = false) 
+	private boolean isCharLogPosition; // If the log position was loaded from the older DB format, where it was a count of characters instead of bytes
+	@Expose (serialize = false, deserialize = false) 
 	private long buildId = -1; // The current build ID
 	@Expose (serialize = false, deserialize = false) 
 	private Map<String, Map<String, Integer>> playerItems = new HashMap<String, Map<String, Integer>>(8); // UID -> Item -> kill count. Stored until player leaves
@@ -98,7 +135,7 @@ public class ServerData {
 	private Map<String, Pair<String, Long>> acctIds = new HashMap<String, Pair<String, Long>>(); //IP:Port -> AcctID, time checked (or Long.MAX_VALUE if we've fully assigned to a player). Remains set until associated player disconnects
 
 	@Expose (serialize = false, deserialize = false) 
-	private Map<Integer, Map<String, List<Pair<String, Long>>>> accountIDCandidates = new HashMap<Integer, Map<String, List<Pair<String, Long>>>>(); // Mapping confidence -> IP:Ports -> potential acctId. Used to map possible accountID candidates
+	private AccountIDCandidateStore accountIDCandidates = new AccountIDCandidateStore(ACCOUNT_ID_EXPIRE); // Mapping confidence -> IP:Ports -> potential acctId, indexed by acctId. Used to map possible accountID candidates
 	@Expose (serialize = false, deserialize = false) 
 	private int lastConnHandle = -1; // The last parsed connHandle from the SET_TIMEOUT_PATTERN parse
 	@Expose (serialize = false, deserialize = false) 
@@ -108,6 +145,10 @@ public class ServerData {
 
 	@Expose (serialize = false, deserialize = false) 
 	private Map<String, String> relayIPMapping = new HashMap<String, String>(2);
+	@Expose (serialize = false, deserialize = false) 
+	private boolean isStateChanged = true; // If the stored state of this server has changed since it was last stored. Players and time stats only change while parsing lines, which also moves the log position
+	@Expose (serialize = false, deserialize = false) 
+	private boolean isStorePending; // If the state of this server is in the middle of being stored
 
 	public ServerData(String id, long logPosition) {
 		this.id = id;
@@ -119,6 +160,18 @@ public class ServerData {
 		buildFromDB(dataObj);
 	}
 
+	public ServerData(String id, byte[] data) throws ParseException {
+		this.id = id;
+		try {
+			buildFromBinary(data);
+			isStateChanged = false; // Same as what's stored
+		} catch (IOException | RuntimeException e) {
+			ParseException pe = new ParseException("Could not read binary server data for ID " + id + " -> " + e, 0);
+			pe.initCause(e);
+			throw pe;
+		}
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -153,6 +206,9 @@ public class ServerData {
 	}
 
 	public void setServerPort(int serverPort) {
+		if (this.serverPort != serverPort) {
+			markStateChanged();
+		}
 		this.serverPort = serverPort;
 	}
 
@@ -165,10 +221,26 @@ public class ServerData {
 	}
 
 	public void setLogPosition(long logPosition) {
+		if (this.logPosition != logPosition) {
+			markStateChanged();
+		}
 		this.logPosition = logPosition;
+		this.isCharLogPosition = false;
+	}
+
+	/**
+	 * Returns true if the log position was loaded from the older DB format, where it was a count of the characters read 
+	 * (plus a line separator for each line) rather than a byte offset. Such a position needs to be converted before it can be used
+	 * @return
+	 */
+	public boolean isCharLogPosition() {
+		return isCharLogPosition;
 	}
 
 	public void setLevel(LevelType level) {
+		if (this.level != level) {
+			markStateChanged();
+		}
 		this.level = level;
 	}
 	
@@ -215,14 +287,60 @@ public class ServerData {
 	public void addPlayer(PlayerData player) {
 		if (!parsedPlayers.containsKey(player.getUID())) {
 			parsedPlayers.put(player.getUID(), player);
+			indexPlayer(player);
+			if (!player.leftServer()) {
+				getConnectedPlayerIndex().put(player.getUID(), player);
+				markStateChanged();
+			}
 		}
 	}
 
 	public void removePlayer(PlayerData player) {
-		parsedPlayers.remove(player.getUID());
+		if (parsedPlayers.remove(player.getUID()) != null) {
+			unindexPlayer(player);
+			if (getConnectedPlayerIndex().remove(player.getUID(), player)) {
+				markStateChanged();
+			}
+		}
 		playerItems.remove(player.getUID());
 	}
 
+	/**
+	 * Changes the name of the given player. This should be used instead of setting the name on the player directly
+	 * for any player in this server, so that they can still be found by {@link #getPlayerByNameAndPlatform(String, int)}
+	 * @param player
+	 * @param playerName
+	 */
+	public void renamePlayer(PlayerData player, String playerName) {
+		boolean isParsed = parsedPlayers.get(player.getUID()) == player;
+		if (isParsed) {
+			unindexPlayer(player);
+		}
+		player.setPlayerName(playerName);
+		if (isParsed) {
+			indexPlayer(player);
+		}
+	}
+
+	/**
+	 * Marks the given player as having left or rejoined the server. This should be used instead of setting it on the player directly
+	 * for any player in this server, so that {@link #getConnectedPlayers()} stays up to date
+	 * @param player
+	 * @param leftServer
+	 * @param lastLogTime
+	 */
+	public void setPlayerLeftServer(PlayerData player, boolean leftServer, long lastLogTime) {
+		player.setLeftServer(leftServer, lastLogTime);
+		if (parsedPlayers.get(player.getUID()) == player) {
+			if (leftServer) {
+				getConnectedPlayerIndex().remove(player.getUID(), player);
+			} else {
+				getConnectedPlayerIndex().put(player.getUID(), player);
+			}
+			markStateChanged();
+		}
+	}
+
 	public void removeDisconnectedPlayers() {
 		for(Iterator<Map.Entry<String, PlayerData>> it = parsedPlayers.entrySet().iterator(); it.hasNext(); ) {
 			Map.Entry<String, PlayerData> entry = it.next();
@@ -245,6 +363,7 @@ public class ServerData {
 					removeAccountIDMapping(entry.getValue().getAccountID());
 				}
 				it.remove();
+				unindexPlayer(entry.getValue());
 			}
 		}
 	}
@@ -269,8 +388,36 @@ public class ServerData {
 		miscKills.clear();
 	}
 
+	/**
+	 * Moves all kills recorded for the given item over to the new item name, for every player and misc kill. <br>
+	 * This is used when an item was recorded as-is while it was still unknown, and has since been resolved to a different name
+	 * @param item
+	 * @param newItem
+	 */
+	public void renameItem(String item, String newItem) {
+		for (PlayerData player : getParsedPlayers()) {
+			player.renameWeapon(item, newItem);
+		}
+		for (Map<String, Integer> items : playerItems.values()) {
+			Integer kills = items.remove(item);
+			if (kills != null) {
+				items.merge(newItem, kills, Integer::sum);
+			}
+		}
+		Integer kills = miscKills.remove(item);
+		if (kills != null) {
+			miscKills.merge(newItem, kills, Integer::sum);
+		}
+	}
+
 	public void clearPlayers() {
+		if (!getConnectedPlayerIndex().isEmpty()) {
+			markStateChanged();
+		}
 		parsedPlayers.clear();
+		playerNameIndex = null;
+		connectedPlayers = null;
+		connectedPlayersView = null;
 		playerItems.clear();
 	}
 
@@ -279,10 +426,10 @@ public class ServerData {
 	}
 
 	public void markServerActivity() {
-		List<PlayerData> curPlayers = getConnectedPlayers();
-		if (!MiscUtil.isEmpty(curPlayers)) {
+		int numPlayers = getNumConnectedPlayers();
+		if (numPlayers > 0) {
 			ActivityData actData = new ActivityData(timeStats.getServerActivityTime());
-			actData.addToPlayerCount(curPlayers.size());
+			actData.addToPlayerCount(numPlayers);
 			serverActivity.add(actData);
 		}
 		timeStats.markNextActivityTime();
@@ -328,7 +475,11 @@ public class ServerData {
 			removeDisconnectedPlayers();
 			resetParse(false);
 		}
+		long rolloverTime = timeStats.getRolloverTime();
 		timeStats.startNewParse(freshLog);
+		if (freshLog || timeStats.getRolloverTime() != rolloverTime) {
+			markStateChanged();
+		}
 	}
 
 	/**
@@ -370,10 +521,11 @@ public class ServerData {
 			}
 
 			player.resetParse(isError);
+			getConnectedPlayerIndex().put(player.getUID(), player);
 		}
 
 		if (isError) {
-			logPosition = startLogPosition;
+			setLogPosition(startLogPosition);
 			hasError = true;
 		}
 		timeStats.reset(isError);
@@ -384,12 +536,37 @@ public class ServerData {
 	}
 
 	public PlayerData getPlayerByNameAndPlatform(String name, int platform) {
-		for (PlayerData data : getParsedPlayers()) {
-			if (data.getPlayerName().equals(name) && data.getPlatform() == platform) {
-				return data;
+		Map<String, PlayerData> platformPlayers = getPlayerNameIndex().get(platform);
+		return platformPlayers != null ? platformPlayers.get(name) : null;
+	}
+
+	private Map<Integer, Map<String, PlayerData>> getPlayerNameIndex() {
+		if (playerNameIndex == null) {
+			playerNameIndex = new HashMap<Integer, Map<String, PlayerData>>(4);
+			for (PlayerData player : parsedPlayers.values()) {
+				indexPlayer(player);
+			}
+		}
+		return playerNameIndex;
+	}
+
+	private void indexPlayer(PlayerData player) {
+		if (player.getPlayerName() != null) {
+			getPlayerNameIndex().computeIfAbsent(player.getPlatform(), k -> new HashMap<String, PlayerData>(10)).put(player.getPlayerName(), player);
+		}
+	}
+
+	private void unindexPlayer(PlayerData player) {
+		Map<String, PlayerData> platformPlayers = getPlayerNameIndex().get(player.getPlatform());
+		if (player.getPlayerName() != null && platformPlayers != null && platformPlayers.remove(player.getPlayerName(), player)) {
+			// Not expected, but if another player has the same name and platform, make sure they can still be found
+			for (PlayerData other : parsedPlayers.values()) {
+				if (other != player && player.getPlayerName().equals(other.getPlayerName()) && other.getPlatform() == player.getPlatform()) {
+					platformPlayers.put(other.getPlayerName(), other);
+					break;
+				}
 			}
 		}
-		return null;
 	}
 
 	/**
@@ -401,11 +578,31 @@ public class ServerData {
 	}
 
 	/**
-	 * Returns all players that are currently connected to the server
+	 * Returns a read-only view of all players that are currently connected to the server. <br>
+	 * The view is kept up to date as players join and leave, so it should only be iterated by the thread parsing this server or while the server is not being parsed (e.g. when submitting its data). 
+	 * Copy it first if players may be added or removed while iterating
 	 * @return
 	 */
-	public List<PlayerData> getConnectedPlayers() {
-		return parsedPlayers.values().stream().filter(p -> !p.leftServer()).collect(Collectors.toList());
+	public Collection<PlayerData> getConnectedPlayers() {
+		getConnectedPlayerIndex();
+		return connectedPlayersView;
+	}
+
+	public int getNumConnectedPlayers() {
+		return getConnectedPlayerIndex().size();
+	}
+
+	private Map<String, PlayerData> getConnectedPlayerIndex() {
+		if (connectedPlayers == null) {
+			connectedPlayers = new LinkedHashMap<String, PlayerData>(10);
+			connectedPlayersView = Collections.unmodifiableCollection(connectedPlayers.values());
+			for (PlayerData player : parsedPlayers.values()) {
+				if (!player.leftServer()) {
+					connectedPlayers.put(player.getUID(), player);
+				}
+			}
+		}
+		return connectedPlayers;
 	}
 
 	public JsonArray getConnectedPlayersDB() {
@@ -430,7 +627,7 @@ public class ServerData {
 	}
 
 	public void clearGameSettings() {
-		gameSettings = null;
+		setGameSettings((JsonObject) null);
 	}
 
 	public void setGameSettings(String gameSettings) {
@@ -440,6 +637,9 @@ public class ServerData {
 	}
 
 	public void setGameSettings(JsonObject gameSettings) {
+		if (this.gameSettings != null || gameSettings != null) {
+			markStateChanged();
+		}
 		this.gameSettings = gameSettings;
 	}
 
@@ -497,10 +697,15 @@ public class ServerData {
 	}
 
 	public void addProxyServer(String ipAndPort) {
-		proxyServers.add(ipAndPort);
+		if (proxyServers.add(ipAndPort)) {
+			markStateChanged();
+		}
 	}
 
 	public void clearProxyServers() {
+		if (!proxyServers.isEmpty()) {
+			markStateChanged();
+		}
 		proxyServers.clear();
 	}
 
@@ -527,14 +732,20 @@ public class ServerData {
 
 	public void addConnHandle(int handle, String ipAndPort) {
 		connHandles.put(handle, ipAndPort);
+		markStateChanged();
 	}
 
 	private void clearConnHandles() {
+		if (!connHandles.isEmpty()) {
+			markStateChanged();
+		}
 		connHandles.clear();
 	}
 
 	public void removeConnHandle(int handle) {
-		connHandles.remove(handle);
+		if (connHandles.remove(handle) != null) {
+			markStateChanged();
+		}
 	}
 
 	public String getIPAndPort(int handle) {
@@ -565,27 +776,19 @@ public class ServerData {
 	 */
 	public void addAccountIDCandidate(String ipAndPort, String accountId, long logTime, boolean isPrimaryCandidate, boolean isDirect) {
 		int candidateKey = isDirect ? MAPPING_PRIMARY_DIRECT : isPrimaryCandidate ? MAPPING_PRIMARY : MAPPING_SECONDARY;
-		accountIDCandidates.computeIfAbsent(candidateKey, k -> new HashMap<String, List<Pair<String, Long>>>()).computeIfAbsent(ipAndPort, k -> new ArrayList<Pair<String, Long>>());
-
-		Pair<String, Long> existing = null;
-		for (Pair<String, Long> acctCandidate : accountIDCandidates.get(candidateKey).get(ipAndPort)) {
-			if (acctCandidate.getKey().equals(accountId)) {
-				existing = acctCandidate;
-				break;
-			}
-		}
-		if (existing != null) {
-			accountIDCandidates.get(candidateKey).get(ipAndPort).remove(existing);
-		}
 		// For each ipAndPort, we bump the acctId that last referenced it to the top
 		// This will be our candidate that we use for mapping
 		// This is a instead of a 1:1 mapping because when multiple people with the same IP join at once,
 		// several mismatched requests of acctIds and IP:Port are found
-		accountIDCandidates.get(candidateKey).get(ipAndPort).add(0, new Pair<String, Long>(accountId, logTime));
+		accountIDCandidates.add(candidateKey, ipAndPort, accountId, logTime);
+		markStateChanged();
 		Log.info("ADD ACCTID CANDIDATE " + ipAndPort + ", " + accountId + ", key=" + candidateKey + ", logtime=" + logTime);
 	}
 
 	private void clearAccountIDCandidates() {
+		if (!accountIDCandidates.isEmpty()) {
+			markStateChanged();
+		}
 		accountIDCandidates.clear();
 	}
 
@@ -594,9 +797,8 @@ public class ServerData {
 	 * @param ipAndPort
 	 */
 	public void removeAccountIDCandidates(String ipAndPort) {
-		for (Integer candidateKey : accountIDCandidates.keySet()) {
-			accountIDCandidates.get(candidateKey).remove(ipAndPort);
-		}
+		accountIDCandidates.removeIPAndPort(ipAndPort);
+		markStateChanged();
 	}
 
 	/**
@@ -606,69 +808,46 @@ public class ServerData {
 	 * @param acctId
 	 */
 	public void removeAccountIDCandidate(String acctId) {
-		List<String> toRemove = new ArrayList<>();
-		for (Integer candidateKey : accountIDCandidates.keySet()) {
-			for (String ipAndPort : accountIDCandidates.get(candidateKey).keySet()) {
-				Pair<String, Long> existing = null;
-				for (Pair<String, Long> acctCandidate : accountIDCandidates.get(candidateKey).get(ipAndPort)) {
-					if (acctCandidate.getKey().equals(acctId)) {
-						existing = acctCandidate;
-						break;
-					}
-				}
-
-				if (existing != null && accountIDCandidates.get(candidateKey).get(ipAndPort).remove(existing)) {
-					Log.info("REMOVE ACCT CANDIDATE " + ipAndPort + ", " + acctId + ", key=" + candidateKey);
-					/*String relayIP = getRelayReverseIPMapping(ipAndPort);
-					if (!MiscUtil.isEmpty(relayIP)) {
-						relayIPMapping.remove(relayIP);
-						Log.info("REMOVE RELAY IP " + relayIP);
-					}*/
-				}
-				if (accountIDCandidates.get(candidateKey).get(ipAndPort).isEmpty()) {
-					toRemove.add(ipAndPort);
-				}
-			}
-			for (String ipAndPort : toRemove) {
-				accountIDCandidates.get(candidateKey).remove(ipAndPort);
-			}
+		for (Pair<Integer, String> removed : accountIDCandidates.removeAccountID(acctId)) {
+			Log.info("REMOVE ACCT CANDIDATE " + removed.getValue() + ", " + acctId + ", key=" + removed.getKey());
+			markStateChanged();
 		}
 	}
 
 	public String getAccountIDCandidate(String ipAndPort, long logTime) {
-		if (accountIDCandidates.containsKey(MAPPING_PRIMARY_DIRECT) && !MiscUtil.isEmpty(accountIDCandidates.get(MAPPING_PRIMARY_DIRECT).get(ipAndPort)) && logTime - accountIDCandidates.get(MAPPING_PRIMARY_DIRECT).get(ipAndPort).get(0).getValue() < ACCOUNT_ID_EXPIRE) {
-			return accountIDCandidates.get(MAPPING_PRIMARY_DIRECT).get(ipAndPort).get(0).getKey();
-		} 
-		if (accountIDCandidates.containsKey(MAPPING_PRIMARY) && !MiscUtil.isEmpty(accountIDCandidates.get(MAPPING_PRIMARY).get(ipAndPort)) && logTime - accountIDCandidates.get(MAPPING_PRIMARY).get(ipAndPort).get(0).getValue() < ACCOUNT_ID_EXPIRE) {
-			return accountIDCandidates.get(MAPPING_PRIMARY).get(ipAndPort).get(0).getKey();
+		Pair<String, Long> candidate = accountIDCandidates.getCandidate(MAPPING_PRIMARY_DIRECT, ipAndPort, logTime);
+		if (isValidCandidate(candidate, logTime, ACCOUNT_ID_EXPIRE)) {
+			return candidate.getKey();
+		}
+		candidate = accountIDCandidates.getCandidate(MAPPING_PRIMARY, ipAndPort, logTime);
+		if (isValidCandidate(candidate, logTime, ACCOUNT_ID_EXPIRE)) {
+			return candidate.getKey();
 		} else {
 			String relayIP = getRelayReverseIPMapping(ipAndPort);
-			if (!MiscUtil.isEmpty(relayIP) && accountIDCandidates.containsKey(MAPPING_PRIMARY) && !MiscUtil.isEmpty(accountIDCandidates.get(MAPPING_PRIMARY).get(relayIP)) && logTime - accountIDCandidates.get(MAPPING_PRIMARY).get(relayIP).get(0).getValue() < ACCOUNT_ID_RELAY_EXPIRE) {
+			Pair<String, Long> relayCandidate = MiscUtil.isEmpty(relayIP) ? null : accountIDCandidates.getCandidate(MAPPING_PRIMARY, relayIP, logTime);
+			if (isValidCandidate(relayCandidate, logTime, ACCOUNT_ID_RELAY_EXPIRE)) {
 				Log.info("USING PRIMARY RELAY CANDIDATE FOR " + ipAndPort + "(RELAY=" + relayIP+")");
-				return accountIDCandidates.get(MAPPING_PRIMARY).get(relayIP).get(0).getKey();
-			} else if (accountIDCandidates.containsKey(MAPPING_SECONDARY) && !MiscUtil.isEmpty(accountIDCandidates.get(MAPPING_SECONDARY).get(ipAndPort)) && logTime - accountIDCandidates.get(MAPPING_SECONDARY).get(ipAndPort).get(0).getValue() < ACCOUNT_ID_EXPIRE) {
+				return relayCandidate.getKey();
+			}
+			candidate = accountIDCandidates.getCandidate(MAPPING_SECONDARY, ipAndPort, logTime);
+			relayCandidate = MiscUtil.isEmpty(relayIP) ? null : accountIDCandidates.getCandidate(MAPPING_SECONDARY, relayIP, logTime);
+			if (isValidCandidate(candidate, logTime, ACCOUNT_ID_EXPIRE)) {
 				Log.info("USING SECONDARY CANDIDATE FOR " + ipAndPort);
-				return accountIDCandidates.get(MAPPING_SECONDARY).get(ipAndPort).get(0).getKey();
-			} else if (!MiscUtil.isEmpty(relayIP) && accountIDCandidates.containsKey(MAPPING_SECONDARY) && !MiscUtil.isEmpty(accountIDCandidates.get(MAPPING_SECONDARY).get(relayIP)) && logTime - accountIDCandidates.get(MAPPING_SECONDARY).get(relayIP).get(0).getValue() < ACCOUNT_ID_RELAY_EXPIRE) {
+				return candidate.getKey();
+			} else if (isValidCandidate(relayCandidate, logTime, ACCOUNT_ID_RELAY_EXPIRE)) {
 				Log.info("USING SECONDARY RELAY CANDIDATE FOR " + ipAndPort + "(RELAY=" + relayIP+")");
-				return accountIDCandidates.get(MAPPING_SECONDARY).get(relayIP).get(0).getKey();
+				return relayCandidate.getKey();
 			}
 		}
 		return null;
 	}
 
-	public List<String> getIPAndPortsForAccountIDCandidates(String acctId, long logTime) {
-		List<String> ipAndPorts = new ArrayList<String>();
-		for (Integer candidateKey : accountIDCandidates.keySet()) {
-			for (String ipAndPort : accountIDCandidates.get(candidateKey).keySet()) {
-				if (!accountIDCandidates.get(candidateKey).get(ipAndPort).isEmpty() && accountIDCandidates.get(candidateKey).get(ipAndPort).get(0).getKey().equals(acctId) && logTime - accountIDCandidates.get(candidateKey).get(ipAndPort).get(0).getValue() < ACCOUNT_ID_EXPIRE) {
-					ipAndPorts.add(ipAndPort);
-				}
-			}
-		}
-
+	private boolean isValidCandidate(Pair<String, Long> candidate, long logTime, long expireTime) {
+		return candidate != null && logTime - candidate.getValue() < expireTime;
+	}
 
-		return ipAndPorts;
+	public List<String> getIPAndPortsForAccountIDCandidates(String acctId, long logTime) {
+		return accountIDCandidates.getIPAndPorts(acctId, logTime, ACCOUNT_ID_EXPIRE);
 	}
 
 	private JsonElement getAccountIDCandidatesDB() {
@@ -684,39 +863,23 @@ public class ServerData {
 			}
 		}
 		return accts;*/
-		return new GsonBuilder().disableHtmlEscaping().create().toJsonTree(accountIDCandidates);
+		return new GsonBuilder().disableHtmlEscaping().create().toJsonTree(accountIDCandidates.getCandidates());
 	}
 
 	public void addAccountIDMapping(String ipAndPort, String accountID, long logTime, boolean redistribute) {
 		Log.info("ADD ACCT MAPPING " + ipAndPort + ", " + accountID + ", " + logTime);
 		acctIds.put(ipAndPort, new Pair<String, Long>(accountID, logTime));
+		markStateChanged();
 
 		if (redistribute) {
-			for (Integer candidateKey : accountIDCandidates.keySet()) {
-				List<String> ips = new ArrayList<String>();
-				List<Pair<String, Long>> distributes = new ArrayList<Pair<String,Long>>();
-
-				for (String cndIP : accountIDCandidates.get(candidateKey).keySet()) {
-					for (Pair<String, Long> acctCandidate : accountIDCandidates.get(candidateKey).get(cndIP)) {
-						if (cndIP.equals(ipAndPort) && !acctCandidate.getKey().equals(accountID)) {
-							distributes.add(acctCandidate);
-						} else if (!cndIP.equals(ipAndPort) && acctCandidate.getKey().equals(accountID)) {
-							ips.add(cndIP);
-							break;
-						}
-					}
-				}
-
-				if (!MiscUtil.isEmpty(distributes)) {
-					for (String cndIP : ips) {
-						accountIDCandidates.get(candidateKey).get(cndIP).addAll(distributes);
-					}
-				}
-			}
+			accountIDCandidates.redistribute(ipAndPort, accountID);
 		}
 	}
 
 	public void clearAccountIDMappings() {
+		if (!acctIds.isEmpty()) {
+			markStateChanged();
+		}
 		acctIds.clear();
 	}
 
@@ -730,6 +893,7 @@ public class ServerData {
 		}
 		if (!MiscUtil.isEmpty(targetIPPort)) {
 			acctIds.remove(targetIPPort);
+			markStateChanged();
 		}
 	}
 
@@ -772,6 +936,7 @@ public class ServerData {
 		String targetIPPort = connToAcctId.get(connId) != null ? connToAcctId.get(connId).getValue() : null;
 		if (!MiscUtil.isEmpty(targetIPPort) && acctIds.get(targetIPPort) != null) {
 			acctIds.put(targetIPPort, new Pair<String, Long>(acctIds.get(targetIPPort).getKey(), Long.MAX_VALUE));
+			markStateChanged();
 			removeAcctIdForConn(connId);
 			removeAccountIDCandidate(acctIds.get(targetIPPort).getKey());
 		} else {
@@ -792,6 +957,9 @@ public class ServerData {
 	}
 
 	public void setLastConnHandle(int lastConnHandle) {
+		if (this.lastConnHandle != lastConnHandle) {
+			markStateChanged();
+		}
 		this.lastConnHandle = lastConnHandle;
 	}
 
@@ -801,6 +969,7 @@ public class ServerData {
 
 	public void addGuessConnMapping(int connHandle, String playerName) {
 		guessConnMapping.put(playerName, connHandle);
+		markStateChanged();
 	}
 
 	public Integer getGuessConnMapping(String playerName) {
@@ -808,10 +977,15 @@ public class ServerData {
 	}
 
 	public void removeGuessConnMapping(String playerName) {
-		guessConnMapping.remove(playerName);
+		if (guessConnMapping.remove(playerName) != null) {
+			markStateChanged();
+		}
 	}
 
 	private void clearGuessConnMappings() {
+		if (!guessConnMapping.isEmpty()) {
+			markStateChanged();
+		}
 		guessConnMapping.clear();
 	}
 
@@ -825,6 +999,7 @@ public class ServerData {
 
 	public void setAcctIdForConn(int connHandle, String acctId, String ipAndPort) {
 		connToAcctId.put(connHandle, new Pair<String, String>(acctId, ipAndPort));
+		markStateChanged();
 	}
 
 	public String getAcctIdForConn(int connHandle) {
@@ -832,10 +1007,15 @@ public class ServerData {
 	}
 
 	public void removeAcctIdForConn(int connHandle) {
-		connToAcctId.remove(connHandle);
+		if (connToAcctId.remove(connHandle) != null) {
+			markStateChanged();
+		}
 	}
 
 	private void clearConnToAcctMappings() {
+		if (!connToAcctId.isEmpty()) {
+			markStateChanged();
+		}
 		connToAcctId.clear();
 	}
 
@@ -850,6 +1030,9 @@ public class ServerData {
 	}
 
 	public void setCurrentProfileDir(String currentProfileDir) {
+		if (!Objects.equals(this.currentProfileDir, currentProfileDir)) {
+			markStateChanged();
+		}
 		this.currentProfileDir = currentProfileDir;
 	}
 
@@ -858,6 +1041,9 @@ public class ServerData {
 	}
 
 	public void setCurrentLaunchDir(String currentLaunchDir) {
+		if (!Objects.equals(this.currentLaunchDir, currentLaunchDir)) {
+			markStateChanged();
+		}
 		this.currentLaunchDir = currentLaunchDir;
 	}
 
@@ -868,6 +1054,7 @@ public class ServerData {
 	private void buildFromDB(JsonObject dataObj) throws ParseException {
 		if (dataObj.has(JSONField.POSITION)) {
 			setLogPosition(dataObj.get(JSONField.POSITION).getAsLong());
+			isCharLogPosition = logPosition > 0;
 		}
 		if (dataObj.has(JSONField.REPEAT)) {
 			setNumRepeat(dataObj.get(JSONField.REPEAT).getAsInt());
@@ -922,7 +1109,7 @@ public class ServerData {
 					addAccountIDCandidate(ipAndPort, acctArr.get(i).getAsString());
 				}
 			}*/
-			accountIDCandidates = new GsonBuilder().create().fromJson(dataObj.get(JSONField.ACCOUNT_ID_TMP), new TypeToken<Map<Integer, Map<String, List<Pair<String, Long>>>>>(){}.getType());
+			accountIDCandidates.setCandidates(new GsonBuilder().create().fromJson(dataObj.get(JSONField.ACCOUNT_ID_TMP), new TypeToken<Map<Integer, Map<String, List<Pair<String, Long>>>>>(){}.getType()));
 		}
 
 		if (dataObj.has(JSONField.GUESS)) {
@@ -978,27 +1165,331 @@ public class ServerData {
 
 	// Note we do not store buildId here because that is guaranteed to be parsed every time
 	// from the log, as it comes before the current time
+	/**
+	 * Reads in the data that was stored in the binary format. This is the same data as is read by {@link #buildFromDB(JsonObject)}
+	 * @param data
+	 * @throws ParseException
+	 * @throws IOException
+	 */
+	private void buildFromBinary(byte[] data) throws ParseException, IOException {
+		TaggedDataReader reader = new TaggedDataReader(data);
+		int version = reader.readHeader(BINARY_MAGIC);
+		if (version > BINARY_VERSION) {
+			throw new IOException("Unknown version " + version);
+		}
+
+		List<PlayerData> players = new ArrayList<PlayerData>();
+		while (reader.nextField()) {
+			int tag = reader.getTag();
+			ByteBuffer field = reader.getField();
+			if (tag == TAG_POSITION) {
+				setLogPosition(field.getLong());
+			} else if (tag == TAG_REPEAT) {
+				setNumRepeat(field.getInt());
+			} else if (tag == TAG_MISS) {
+				setNumMiss(field.getInt());
+			} else if (tag == TAG_PROFILE) {
+				setCurrentProfileDir(TaggedDataReader.readString(field));
+			} else if (tag == TAG_DIR) {
+				setCurrentLaunchDir(TaggedDataReader.readString(field));
+			} else if (tag == TAG_PORT) {
+				setServerPort(field.getInt());
+			} else if (tag == TAG_LAST_CONN) {
+				setLastConnHandle(field.getInt());
+			} else if (tag == TAG_LEVEL) {
+				String levelStr = TaggedDataReader.readString(field);
+				try {
+					setLevel(LevelType.valueOf(levelStr));
+				} catch (Exception e) {
+					Log.warn(LOG_ID, ".buildFromBinary() : Unknown level type in server data -> ", levelStr);
+					setLevel(LevelType.UNKNOWN);
+				}
+			} else if (tag == TAG_TIME_STATS) {
+				timeStats = new ServerTimeStats(field);
+			} else if (tag == TAG_CONN_HANDLES) {
+				for (int i = field.getInt(); i > 0; i--) {
+					addConnHandle(field.getInt(), TaggedDataReader.readString(field));
+				}
+			} else if (tag == TAG_ACCOUNT_IDS) {
+				for (int i = field.getInt(); i > 0; i--) {
+					addAccountIDMapping(TaggedDataReader.readString(field), TaggedDataReader.readString(field), field.getLong(), false);
+				}
+			} else if (tag == TAG_ACCOUNT_ID_CANDIDATES) {
+				Map<Integer, Map<String, List<Pair<String, Long>>>> allCandidates = new HashMap<Integer, Map<String, List<Pair<String, Long>>>>();
+				for (int i = field.getInt(); i > 0; i--) {
+					Map<String, List<Pair<String, Long>>> candidates = allCandidates.computeIfAbsent(field.getInt(), k -> new HashMap<String, List<Pair<String, Long>>>());
+					for (int j = field.getInt(); j > 0; j--) {
+						List<Pair<String, Long>> ipCandidates = candidates.computeIfAbsent(TaggedDataReader.readString(field), k -> new ArrayList<Pair<String, Long>>());
+						for (int k = field.getInt(); k > 0; k--) {
+							ipCandidates.add(new Pair<String, Long>(TaggedDataReader.readString(field), field.getLong()));
+						}
+					}
+				}
+				accountIDCandidates.setCandidates(allCandidates);
+			} else if (tag == TAG_ACCOUNT_IDS_FOR_CONN) {
+				for (int i = field.getInt(); i > 0; i--) {
+					setAcctIdForConn(field.getInt(), TaggedDataReader.readString(field), TaggedDataReader.readString(field));
+				}
+			} else if (tag == TAG_GUESS) {
+				for (int i = field.getInt(); i > 0; i--) {
+					String playerName = TaggedDataReader.readString(field);
+					addGuessConnMapping(field.getInt(), playerName);
+				}
+			} else if (tag == TAG_SETTINGS) {
+				setGameSettings(TaggedDataReader.readString(field));
+			} else if (tag == TAG_PLAYERS) {
+				for (int i = field.getInt(); i > 0; i--) {
+					PlayerData player = new PlayerData();
+					player.setPlayerName(TaggedDataReader.readString(field));
+					player.setLogID(id);
+					player.setUID(TaggedDataReader.readString(field));
+					String accountID = TaggedDataReader.readString(field);
+					if (accountID != null) {
+						player.setAccountID(accountID);
+					}
+					String ipAndPort = TaggedDataReader.readString(field);
+					int connHandle = field.getInt();
+					if (ipAndPort != null) {
+						player.setIPAndPort(ipAndPort);
+						player.setConnHandle(connHandle);
+					}
+					player.setPlatform(field.getInt());
+					player.setLastLogTime(field.getLong());
+					player.setHasParticipated(field.get() != 0);
+					players.add(player);
+				}
+			} else if (tag == TAG_PROXIES) {
+				for (int i = field.getInt(); i > 0; i--) {
+					addProxyServer(TaggedDataReader.readString(field));
+				}
+			}
+		}
+
+		// Players are added last, since they take on the ELO and game mode from the game settings
+		for (PlayerData player : players) {
+			player.setEloRating(getEloRating());
+			player.setGameMode(getGameModeId());
+			addPlayer(player);
+		}
+	}
+
+	/**
+	 * Returns all data for this server in the JSON format that older rows were stored in, e.g. for exporting or debugging it. <br>
+	 * Data is only stored in the binary format now (see {@link #getChangedServerDataBinary()}). Unlike in older rows, the log position in this is a byte offset
+	 * @return
+	 */
 	public String getServerDataDB() {
+		JsonObject dataObj = getServerStateDB();
+		addCountersDB(dataObj);
+		return dataObj.toString();
+	}
+
+	/**
+	 * Returns the data to store for this server, in the binary format, if its state has changed since it was last stored, or null if it hasn't. <br>
+	 * The repeat and miss counts are stored along with the state, but changes to them on their own are not counted since they go up every time an idle server is parsed. 
+	 * See {@link #markStateChanged()} for when they should be. <br>
+	 * Once the returned data has been stored (or failed to be), {@link #markPersisted(boolean)} should be called
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] getChangedServerDataBinary() throws IOException {
+		if (!isStateChanged) {
+			return null;
+		}
+		TaggedDataWriter writer = new TaggedDataWriter(BINARY_MAGIC, BINARY_VERSION);
+		writeServerStateBinary(writer);
+		writeCountersBinary(writer);
+		isStateChanged = false;
+		isStorePending = true;
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Marks the state of this server as changed, so that it is stored on the next {@link #getChangedServerDataBinary()}. <br>
+	 * This is done by everything here that changes the stored state, but can also be called when something that normally isn't counted
+	 * should be stored, e.g. the repeat count once it sets off the jam alert
+	 */
+	public void markStateChanged() {
+		isStateChanged = true;
+	}
+
+	/**
+	 * Returns true if the given stored data is in the binary format, or false if it is in the older JSON format
+	 * @param data
+	 * @return
+	 */
+	public static boolean isBinaryDB(byte[] data) {
+		return TaggedDataReader.hasMagic(data, BINARY_MAGIC);
+	}
+
+	private void writeServerStateBinary(TaggedDataWriter writer) throws IOException {
+		writer.writeLong(TAG_POSITION, logPosition);
+		if (currentProfileDir != null) {
+			writer.writeString(TAG_PROFILE, currentProfileDir);
+		}
+		if (currentLaunchDir != null) {
+			writer.writeString(TAG_DIR, currentLaunchDir);
+		}
+		writer.writeInt(TAG_PORT, serverPort);
+		if (lastConnHandle != -1) {
+			writer.writeInt(TAG_LAST_CONN, lastConnHandle);
+		}
+		writer.writeString(TAG_LEVEL, level.name());
+		writer.writeBytes(TAG_TIME_STATS, timeStats.getTimeStatBinary());
+
+		if (!connHandles.isEmpty()) {
+			DataOutputStream out = writer.startField(TAG_CONN_HANDLES);
+			out.writeInt(connHandles.size());
+			for (int connHandle : connHandles.keySet()) {
+				out.writeInt(connHandle);
+				TaggedDataWriter.writeString(out, connHandles.get(connHandle));
+			}
+			writer.endField();
+		}
+		if (!acctIds.isEmpty()) {
+			DataOutputStream out = writer.startField(TAG_ACCOUNT_IDS);
+			out.writeInt(acctIds.size());
+			for (String ipAndPort : acctIds.keySet()) {
+				TaggedDataWriter.writeString(out, ipAndPort);
+				TaggedDataWriter.writeString(out, acctIds.get(ipAndPort).getKey());
+				out.writeLong(acctIds.get(ipAndPort).getValue());
+			}
+			writer.endField();
+		}
+		if (!accountIDCandidates.isEmpty()) {
+			Map<Integer, Map<String, List<Pair<String, Long>>>> allCandidates = accountIDCandidates.getCandidates();
+			DataOutputStream out = writer.startField(TAG_ACCOUNT_ID_CANDIDATES);
+			out.writeInt(allCandidates.size());
+			for (Integer candidateKey : allCandidates.keySet()) {
+				Map<String, List<Pair<String, Long>>> candidates = allCandidates.get(candidateKey);
+				out.writeInt(candidateKey);
+				out.writeInt(candidates.size());
+				for (String ipAndPort : candidates.keySet()) {
+					TaggedDataWriter.writeString(out, ipAndPort);
+					out.writeInt(candidates.get(ipAndPort).size());
+					for (Pair<String, Long> candidate : candidates.get(ipAndPort)) {
+						TaggedDataWriter.writeString(out, candidate.getKey());
+						out.writeLong(candidate.getValue());
+					}
+				}
+			}
+			writer.endField();
+		}
+		if (!connToAcctId.isEmpty()) {
+			DataOutputStream out = writer.startField(TAG_ACCOUNT_IDS_FOR_CONN);
+			out.writeInt(connToAcctId.size());
+			for (int connId : connToAcctId.keySet()) {
+				out.writeInt(connId);
+				TaggedDataWriter.writeString(out, connToAcctId.get(connId).getKey());
+				TaggedDataWriter.writeString(out, connToAcctId.get(connId).getValue());
+			}
+			writer.endField();
+		}
+		if (!guessConnMapping.isEmpty()) {
+			DataOutputStream out = writer.startField(TAG_GUESS);
+			out.writeInt(guessConnMapping.size());
+			for (String playerName : guessConnMapping.keySet()) {
+				TaggedDataWriter.writeString(out, playerName);
+				out.writeInt(guessConnMapping.get(playerName));
+			}
+			writer.endField();
+		}
+		if (gameSettings != null) {
+			writer.writeString(TAG_SETTINGS, gameSettings.toString());
+		}
+		Collection<PlayerData> connectedPlayers = getConnectedPlayers();
+		if (!connectedPlayers.isEmpty()) {
+			DataOutputStream out = writer.startField(TAG_PLAYERS);
+			out.writeInt(connectedPlayers.size());
+			for (PlayerData player : connectedPlayers) {
+				TaggedDataWriter.writeString(out, player.getPlayerName());
+				TaggedDataWriter.writeString(out, player.getUID());
+				TaggedDataWriter.writeString(out, MiscUtil.isEmpty(player.getAccountID()) ? null : player.getAccountID());
+				TaggedDataWriter.writeString(out, MiscUtil.isEmpty(player.getIPAndPort()) ? null : player.getIPAndPort());
+				out.writeInt(player.getConnHandle());
+				out.writeInt(player.getPlatform());
+				out.writeLong(player.getLastLogTime());
+				out.writeBoolean(player.hasData());
+			}
+			writer.endField();
+		}
+		if (!proxyServers.isEmpty()) {
+			DataOutputStream out = writer.startField(TAG_PROXIES);
+			out.writeInt(proxyServers.size());
+			for (String proxy : proxyServers) {
+				TaggedDataWriter.writeString(out, proxy);
+			}
+			writer.endField();
+		}
+	}
+
+	private void writeCountersBinary(TaggedDataWriter writer) throws IOException {
+		if (numRepeats != 0) {
+			writer.writeInt(TAG_REPEAT, numRepeats);
+		}
+		if (missCount != 0) {
+			writer.writeInt(TAG_MISS, missCount);
+		}
+	}
+
+	/**
+	 * Marks whether the data last returned by {@link #getChangedServerDataBinary()} was stored. <br>
+	 * If it was, this server will not be considered changed until its state changes again
+	 * @param isPersisted
+	 */
+	public void markPersisted(boolean isPersisted) {
+		if (isStorePending && !isPersisted) {
+			isStateChanged = true;
+		}
+		isStorePending = false;
+	}
+
+	/**
+	 * Returns the stored state of this server, minus the repeat and miss counts. <br>
+	 * Anything that is empty or unset is left out, since it will be left empty or unset when read back in
+	 * @return
+	 */
+	private JsonObject getServerStateDB() {
 		JsonObject dataObj = new JsonObject();
 		dataObj.addProperty(JSONField.POSITION, logPosition);
-		dataObj.addProperty(JSONField.REPEAT, numRepeats);
-		dataObj.addProperty(JSONField.MISS, missCount);
-		dataObj.addProperty(JSONField.PROFILE, currentProfileDir);
-		dataObj.addProperty(JSONField.DIR, currentLaunchDir);
+		if (currentProfileDir != null) {
+			dataObj.addProperty(JSONField.PROFILE, currentProfileDir);
+		}
+		if (currentLaunchDir != null) {
+			dataObj.addProperty(JSONField.DIR, currentLaunchDir);
+		}
 		dataObj.addProperty(JSONField.PORT, serverPort);
-		dataObj.addProperty(JSONField.LAST_CONN, lastConnHandle);
+		if (lastConnHandle != -1) {
+			dataObj.addProperty(JSONField.LAST_CONN, lastConnHandle);
+		}
 		dataObj.addProperty(JSONField.LEVEL, level.name());
 		dataObj.add(JSONField.TIMESTAMP, timeStats.getTimeStatDB());
-		dataObj.add(JSONField.CONN_HANDLE, getConnHandlesDB());
-		dataObj.add(JSONField.ACCOUNT_ID, getAccountIDMappingsDB());
-		dataObj.add(JSONField.ACCOUNT_ID_TMP, getAccountIDCandidatesDB());
-		dataObj.add(JSONField.CONN_HANDLE_TMP, getAccountIDsForConnDB());
-		dataObj.add(JSONField.GUESS, getGuessConnMappingDB());
-		dataObj.add(JSONField.SETTINGS, gameSettings);
-		dataObj.add(JSONField.PLAYERS, getConnectedPlayersDB());
-		dataObj.add(JSONField.PROXIES, getProxiesDB());
+		addIfNotEmptyDB(dataObj, JSONField.CONN_HANDLE, getConnHandlesDB());
+		addIfNotEmptyDB(dataObj, JSONField.ACCOUNT_ID, getAccountIDMappingsDB());
+		addIfNotEmptyDB(dataObj, JSONField.ACCOUNT_ID_TMP, getAccountIDCandidatesDB());
+		addIfNotEmptyDB(dataObj, JSONField.CONN_HANDLE_TMP, getAccountIDsForConnDB());
+		addIfNotEmptyDB(dataObj, JSONField.GUESS, getGuessConnMappingDB());
+		if (gameSettings != null) {
+			dataObj.add(JSONField.SETTINGS, gameSettings);
+		}
+		addIfNotEmptyDB(dataObj, JSONField.PLAYERS, getConnectedPlayersDB());
+		addIfNotEmptyDB(dataObj, JSONField.PROXIES, getProxiesDB());
+		return dataObj;
+	}
 
-		return dataObj.toString();
+	private void addCountersDB(JsonObject dataObj) {
+		if (numRepeats != 0) {
+			dataObj.addProperty(JSONField.REPEAT, numRepeats);
+		}
+		if (missCount != 0) {
+			dataObj.addProperty(JSONField.MISS, missCount);
+		}
+	}
+
+	private void addIfNotEmptyDB(JsonObject dataObj, String field, JsonElement data) {
+		if (data != null && !data.isJsonNull() && !(data.isJsonObject() && data.getAsJsonObject().size() == 0) && !(data.isJsonArray() && data.getAsJsonArray().size() == 0)) {
+			dataObj.add(field, data);
+		}
 	}
 
 	public JsonObject getServerInfo() {
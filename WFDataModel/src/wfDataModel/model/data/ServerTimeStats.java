@@ -1,5 +1,7 @@
 package wfDataModel.model.data;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -13,6 +15,8 @@ import com.google.gson.annotations.Expose;
 
 import jdtools.util.MiscUtil;
 import wfDataModel.model.util.DateUtil;
+import wfDataModel.model.util.data.TaggedDataReader;
+import wfDataModel.model.util.data.TaggedDataWriter;
 import wfDataModel.service.codes.JSONField;
 
 /**
@@ -22,6 +26,13 @@ import wfDataModel.service.codes.JSONField;
  */
 public class ServerTimeStats {
 	private static final int ACTIVITY_TIME_INTERVAL = 300; // Time in seconds that server activity should be gathered
+	// Field tags for the binary format. These must never be reused or changed once in use
+	private static final int TAG_ACTIVITY = 1;
+	private static final int TAG_ROLLOVER = 2;
+	private static final int TAG_LOG_TIME = 3;
+	private static final int TAG_START_TIME = 4;
+	private static final int TAG_START_TIME_UTC = 5;
+	private static final int TAG_MATCH_START = 6;
 
 	@Expose (serialize = false, deserialize = false) 
 	private String serverStartTime; // Readable time of when this log started
@@ -30,6 +41,8 @@ public class ServerTimeStats {
 	@Expose () 
 	private long logTime; // The current log-time
 	@Expose () 
+	private long logTimeMillis; // The current log-time in ms, including the fractional part of the log-time. May be 0 if not known (e.g. from older clients)
+	@Expose () 
 	private long serverStartTimeEpoch; // Epoch time of when this log started
 	@Expose (serialize = false, deserialize = false)
 	private ZoneOffset zoneOffset; // The offset of this server vs UTC (e.g. -04:00)
@@ -46,6 +59,8 @@ public class ServerTimeStats {
 	@Expose (serialize = false, deserialize = false) 
 	private long startLogTime; // Log-time at the start of this parsing session. Used in case of rolling back
 	@Expose (serialize = false, deserialize = false) 
+	private long startLogTimeMillis; // Log-time in ms at the start of this parsing session. Used in case of rolling back
+	@Expose (serialize = false, deserialize = false) 
 	private long startActivityTime; // Log-time for next interval of 5 at the start of this parsing session. Used in case of rolling back
 	@Expose (serialize = false, deserialize = false) 
 	private long startRolloverTime; // Log-time that is when a new day will have started at the start of this parsing session. Used in case of rolling back
@@ -61,6 +76,10 @@ public class ServerTimeStats {
 		buildFromDBData(dataObj);
 	}
 
+	public ServerTimeStats(ByteBuffer data) throws ParseException, IOException {
+		buildFromBinaryData(data);
+	}
+
 	public void setStartTime(String serverStartTime, String serverStartTimeUTC) throws ParseException {
 		this.serverStartTime = serverStartTime;
 		this.serverStartTimeUTC = serverStartTimeUTC;
@@ -113,6 +132,14 @@ public class ServerTimeStats {
 		this.logTime = logTime;
 	}
 
+	public long getLogTimeMillis() {
+		return logTimeMillis;
+	}
+
+	public void setLogTimeMillis(long logTimeMillis) {
+		this.logTimeMillis = logTimeMillis;
+	}
+
 	public long getRolloverTime() {
 		return rolloverTime;
 	}
@@ -163,7 +190,7 @@ public class ServerTimeStats {
 	}
 
 	public long getServerTime() {
-		return serverStartTimeEpoch + (logTime * 1000);
+		return serverStartTimeEpoch + (logTimeMillis > 0 ? logTimeMillis : logTime * 1000);
 	}
 
 	public OffsetDateTime getDailyDate() {
@@ -177,6 +204,7 @@ public class ServerTimeStats {
 	public void startNewParse(boolean freshLog) {
 		if (freshLog) {
 			logTime = 0;
+			logTimeMillis = 0;
 			serverStartTime = null;
 			serverStartTimeUTC = null;
 			zoneOffset = null;
@@ -191,6 +219,7 @@ public class ServerTimeStats {
 			}
 		}
 		startLogTime = logTime;
+		startLogTimeMillis = logTimeMillis;
 		startActivityTime = activityTime;
 		startRolloverTime = rolloverTime;
 		startingMatchStartTime = matchStartTime;
@@ -207,6 +236,7 @@ public class ServerTimeStats {
 	public void reset(boolean isError) {
 		if (isError) {
 			logTime = startLogTime;
+			logTimeMillis = startLogTimeMillis;
 			matchStartTime = startingMatchStartTime;
 		}
 	}
@@ -231,6 +261,57 @@ public class ServerTimeStats {
 		setDates(false);
 	}
 
+	private void buildFromBinaryData(ByteBuffer data) throws ParseException, IOException {
+		String startTime = null;
+		String startTimeUTC = null;
+		TaggedDataReader reader = new TaggedDataReader(data);
+		while (reader.nextField()) {
+			ByteBuffer field = reader.getField();
+			if (reader.getTag() == TAG_ACTIVITY) {
+				setActivityTime(field.getLong());
+			} else if (reader.getTag() == TAG_ROLLOVER) {
+				setRolloverTime(field.getLong());
+			} else if (reader.getTag() == TAG_LOG_TIME) {
+				setLogTime(field.getLong());
+			} else if (reader.getTag() == TAG_START_TIME) {
+				startTime = TaggedDataReader.readString(field);
+			} else if (reader.getTag() == TAG_START_TIME_UTC) {
+				startTimeUTC = TaggedDataReader.readString(field);
+			} else if (reader.getTag() == TAG_MATCH_START) {
+				matchStartTime = field.getLong();
+			}
+		}
+		// As with the DB data, the server start time is set after everything else
+		if (startTime != null) {
+			setStartTime(startTime, startTimeUTC);
+		}
+		setDates(false);
+	}
+
+	/**
+	 * Returns the time stats to store for the server, in the binary format read by {@link #ServerTimeStats(ByteBuffer)}
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] getTimeStatBinary() throws IOException {
+		TaggedDataWriter writer = new TaggedDataWriter();
+		writer.writeLong(TAG_ACTIVITY, activityTime);
+		writer.writeLong(TAG_ROLLOVER, rolloverTime);
+		writer.writeLong(TAG_LOG_TIME, logTime);
+		if (serverStartTime != null) {
+			writer.writeString(TAG_START_TIME, serverStartTime);
+		}
+		if (serverStartTimeUTC != null) {
+			writer.writeString(TAG_START_TIME_UTC, serverStartTimeUTC);
+		}
+		writer.writeLong(TAG_MATCH_START, matchStartTime);
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Returns the same data as {@link #getTimeStatBinary()}, but in the JSON format, e.g. for exporting or debugging it
+	 * @return
+	 */
 	public JsonObject getTimeStatDB() {
 		JsonObject dataObj = new JsonObject();
 		dataObj.addProperty(JSONField.ACTIVITY, activityTime);
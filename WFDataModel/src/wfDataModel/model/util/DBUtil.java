@@ -18,6 +18,23 @@ public final class DBUtil {
 
 	public static final String DEFAULT_VER = "1.0.0";
 	
+	/**
+	 * Returns the given number of JDBC parameter placeholders separated by commas, for use in an IN (...) clause. <br/>
+	 * e.g. 3 would return "?,?,?"
+	 * @param count
+	 * @return
+	 */
+	public static String createPlaceholders(int count) {
+		StringBuilder placeholders = new StringBuilder(Math.max(count * 2 - 1, 0));
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				placeholders.append(',');
+			}
+			placeholders.append('?');
+		}
+		return placeholders.toString();
+	}
+
 	/**
 	 * Given a Collection, will return it as a String represented in JSON format. <br/>
 	 * If the Collection is null, this will return null.
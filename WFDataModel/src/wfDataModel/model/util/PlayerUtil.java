@@ -1,11 +1,8 @@
 package wfDataModel.model.util;
 
-import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import jdtools.logging.Log;
 import jdtools.util.MiscUtil;
+import wfDataModel.model.data.PlayerNameData;
 import wfDataModel.service.type.PlatformType;
 
 /**
@@ -16,7 +13,10 @@ import wfDataModel.service.type.PlatformType;
 public final class PlayerUtil {
 
 	public static final String NON_PLAYERNAME_REGEX = "[^\\x20-\\x7E]+";
-	private static final Matcher NON_PLAYERNAME_PATTERN = Pattern.compile("(" + NON_PLAYERNAME_REGEX + ")", Pattern.CASE_INSENSITIVE).matcher("");
+	private static final char FIRST_NAME_CHAR = 0x20;
+	private static final char LAST_NAME_CHAR = 0x7E;
+	private static final int INVALID_CHAR_BYTE = '?'; // What an unpaired surrogate char is encoded as in UTF-8
+	private static final int NO_PLATFORM = -1;
 	
 	/**
 	 * Given a raw player name, will return it without any platform codes appended
@@ -24,7 +24,7 @@ public final class PlayerUtil {
 	 * @return
 	 */
 	public static final String cleanPlayerName(String name) {
-		return name.replaceAll(NON_PLAYERNAME_REGEX, "");
+		return scanPlayerName(name).getName();
 	}
 	
 	/**
@@ -33,29 +33,80 @@ public final class PlayerUtil {
 	 * @param playerName
 	 * @return
 	 */
-	public static synchronized int getPlatform(String playerName) {
-		int platformCode = PlatformType.UNKNOWN.getCode();
-		if (!MiscUtil.isEmpty(playerName)) {
-			Matcher match = NON_PLAYERNAME_PATTERN.reset(playerName);
-			if (match.find()) {
-				String platformStr = match.group(1);
-				for (byte c : platformStr.getBytes(StandardCharsets.UTF_8)) {
-					platformCode += (c & 0xff);
+	public static int getPlatform(String playerName) {
+		return parsePlayerName(playerName).getPlatform();
+	}
+	
+	/**
+	 * Given a raw player name (i.e. with platform code appended), will return both the cleaned name (see {@link #cleanPlayerName(String)}) 
+	 * and the platform code (see {@link #getPlatform(String)}) from a single pass over the name
+	 * @param playerName
+	 * @return
+	 */
+	public static PlayerNameData parsePlayerName(String playerName) {
+		PlayerNameData nameData = scanPlayerName(playerName);
+		int platformCode = nameData.getPlatform();
+		if (MiscUtil.isEmpty(playerName)) {
+			Log.warn("PlayerUtil.getPlatform() : Given playerName is null or empty, defaulting platform to UNKNOWN");
+			platformCode = PlatformType.UNKNOWN.getCode();
+		} else if (platformCode == NO_PLATFORM) {
+			// This makes an assumption that if no platform byte is provided on the provided playername, it is an old log file and they're PC
+			Log.warn("PlayerUtil.getPlatform() : No platform code provided for player " + playerName + ", assuming platform is PC");
+			platformCode = PlatformType.PC.getCode();
+		} else if (PlatformType.UNKNOWN.equals(PlatformType.codeToType(platformCode))) {
+			Log.warn("PlayerUtil.getPlatform() : Unknown platform for " + playerName + ", code=" + platformCode);
+		}
+		return platformCode == nameData.getPlatform() ? nameData : new PlayerNameData(nameData.getName(), platformCode);
+	}
+	
+	/**
+	 * Scans the given raw player name once, removing any chars outside of printable ASCII (i.e. {@link #NON_PLAYERNAME_REGEX}) from it. <br>
+	 * The platform code is the UNKNOWN platform code plus the sum of the UTF-8 bytes of the first run of removed chars, or {@link #NO_PLATFORM} if there were none
+	 * @param playerName
+	 * @return
+	 */
+	private static PlayerNameData scanPlayerName(String playerName) {
+		if (playerName == null) {
+			return new PlayerNameData(null, NO_PLATFORM);
+		}
+
+		StringBuilder name = null; // Only created if there's actually something to remove
+		int platformCode = NO_PLATFORM;
+		boolean inFirstRun = false;
+		for (int i = 0; i < playerName.length(); i++) {
+			char c = playerName.charAt(i);
+			if (c >= FIRST_NAME_CHAR && c <= LAST_NAME_CHAR) {
+				if (name != null) {
+					name.append(c);
 				}
-				PlatformType type = PlatformType.codeToType(platformCode);
-				if (PlatformType.UNKNOWN.equals(type)) {
-					Log.warn("PlayerUtil.getPlatform() : Unknown platform for " + playerName + ", code=" + platformCode);
+				inFirstRun = false;
+				continue;
+			}
+
+			if (name == null) {
+				name = new StringBuilder(playerName.length()).append(playerName, 0, i);
+				platformCode = PlatformType.UNKNOWN.getCode();
+				inFirstRun = true;
+			}
+			if (inFirstRun) {
+				// Sum the bytes that this char would be encoded as in UTF-8
+				if (Character.isHighSurrogate(c) && i + 1 < playerName.length() && Character.isLowSurrogate(playerName.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, playerName.charAt(++i));
+					platformCode += (0xF0 | (codePoint >> 18)) + (0x80 | ((codePoint >> 12) & 0x3F)) + (0x80 | ((codePoint >> 6) & 0x3F)) + (0x80 | (codePoint & 0x3F));
+				} else if (Character.isSurrogate(c)) {
+					platformCode += INVALID_CHAR_BYTE;
+				} else if (c < 0x80) {
+					platformCode += c;
+				} else if (c < 0x800) {
+					platformCode += (0xC0 | (c >> 6)) + (0x80 | (c & 0x3F));
+				} else {
+					platformCode += (0xE0 | (c >> 12)) + (0x80 | ((c >> 6) & 0x3F)) + (0x80 | (c & 0x3F));
 				}
-			} else {
-				// This makes an assumption that if no platform byte is provided on the provided playername, it is an old log file and they're PC
-				Log.warn("PlayerUtil.getPlatform() : No platform code provided for player " + playerName + ", assuming platform is PC");
-				platformCode = PlatformType.PC.getCode();
+			} else if (Character.isHighSurrogate(c) && i + 1 < playerName.length() && Character.isLowSurrogate(playerName.charAt(i + 1))) {
+				i++; // Skip the rest of this char, since it's removed as well
 			}
-		} else {
-			Log.warn("PlayerUtil.getPlatform() : Given playerName is null or empty, defaulting platform to UNKNOWN");
 		}
-		
-		return platformCode;
+		return new PlayerNameData(name != null ? name.toString() : playerName, platformCode);
 	}
 	
 }
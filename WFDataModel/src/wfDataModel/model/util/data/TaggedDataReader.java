@@ -0,0 +1,104 @@
+package wfDataModel.model.util.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader for data written by {@link TaggedDataWriter}. <br>
+ * Fields are read one at a time in the order they were written, and any fields that the caller does not know about can just be skipped
+ * @author MatNova
+ *
+ */
+public class TaggedDataReader {
+
+	private ByteBuffer buffer;
+	private int fieldTag = -1;
+	private ByteBuffer field = null;
+
+	public TaggedDataReader(byte[] data) {
+		this(ByteBuffer.wrap(data));
+	}
+
+	public TaggedDataReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Returns true if the given data starts with the given magic number
+	 * @param data
+	 * @param magic
+	 * @return
+	 */
+	public static boolean hasMagic(byte[] data, int magic) {
+		return data != null && data.length >= 6 && ByteBuffer.wrap(data).getInt() == magic;
+	}
+
+	/**
+	 * Reads the header of the data, returning its version. <br>
+	 * An exception is thrown if the data does not start with the given magic number
+	 * @param magic
+	 * @return
+	 * @throws IOException
+	 */
+	public int readHeader(int magic) throws IOException {
+		if (buffer.remaining() < 6 || buffer.getInt() != magic) {
+			throw new IOException("Data is not in the expected format");
+		}
+		return buffer.getShort();
+	}
+
+	/**
+	 * Moves to the next field, returning false if there are no more fields
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean nextField() throws IOException {
+		boolean hasField = false;
+		fieldTag = -1;
+		field = null;
+		if (buffer.hasRemaining()) {
+			if (buffer.remaining() < 5) {
+				throw new IOException("Data ends in the middle of a field");
+			}
+			fieldTag = buffer.get() & 0xFF;
+			int length = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IOException("Field " + fieldTag + " has an invalid length of " + length);
+			}
+			field = buffer.slice();
+			field.limit(length);
+			buffer.position(buffer.position() + length);
+			hasField = true;
+		}
+		return hasField;
+	}
+
+	public int getTag() {
+		return fieldTag;
+	}
+
+	/**
+	 * Returns the data for the current field
+	 * @return
+	 */
+	public ByteBuffer getField() {
+		return field;
+	}
+
+	/**
+	 * Reads a string that was written by {@link TaggedDataWriter#writeString(java.io.DataOutput, String)}
+	 * @param buffer
+	 * @return
+	 */
+	public static String readString(ByteBuffer buffer) {
+		String value = null;
+		int length = buffer.getInt();
+		if (length >= 0) {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,104 @@
+package wfDataModel.model.util.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer for a compact binary format made up of tagged fields. <br>
+ * Each field is written as its tag (1 byte), the length of its data (4 bytes), and then its data,
+ * so that readers can skip any fields they do not know about. <br>
+ * Use {@link TaggedDataReader} to read the data back in
+ * @author MatNova
+ *
+ */
+public class TaggedDataWriter {
+
+	private ByteArrayOutputStream dataBytes = new ByteArrayOutputStream(256);
+	private DataOutputStream data = new DataOutputStream(dataBytes);
+	private ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream(64);
+	private DataOutputStream field = new DataOutputStream(fieldBytes);
+	private int fieldTag = -1;
+
+	/**
+	 * Creates a writer for data that is nested in another writer's field, and so has no header
+	 */
+	public TaggedDataWriter() {
+	}
+
+	/**
+	 * Creates a writer whose data starts with the given magic number and version, so that readers can tell what it is
+	 * @param magic
+	 * @param version
+	 * @throws IOException
+	 */
+	public TaggedDataWriter(int magic, int version) throws IOException {
+		data.writeInt(magic);
+		data.writeShort(version);
+	}
+
+	/**
+	 * Starts a new field with the given tag, returning the output to write the field's data to. <br>
+	 * {@link #endField()} must be called once the field's data is written
+	 * @param tag
+	 * @return
+	 */
+	public DataOutputStream startField(int tag) {
+		fieldTag = tag;
+		fieldBytes.reset();
+		return field;
+	}
+
+	public void endField() throws IOException {
+		data.writeByte(fieldTag);
+		data.writeInt(fieldBytes.size());
+		fieldBytes.writeTo(data);
+		fieldTag = -1;
+	}
+
+	public void writeInt(int tag, int value) throws IOException {
+		startField(tag).writeInt(value);
+		endField();
+	}
+
+	public void writeLong(int tag, long value) throws IOException {
+		startField(tag).writeLong(value);
+		endField();
+	}
+
+	public void writeString(int tag, String value) throws IOException {
+		writeString(startField(tag), value);
+		endField();
+	}
+
+	public void writeBytes(int tag, byte[] value) throws IOException {
+		startField(tag).write(value);
+		endField();
+	}
+
+	/**
+	 * Returns all data written so far
+	 * @return
+	 */
+	public byte[] toByteArray() {
+		return dataBytes.toByteArray();
+	}
+
+	/**
+	 * Writes the given string as its length in bytes followed by its UTF-8 bytes, or a length of -1 if null
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	public static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+}
@@ -21,17 +21,29 @@ public class WarframeItemCache extends WarframeItemCacheBase {
 	public static WarframeItemCache singleton() {
 		if (singleton == null) {
 			singleton = new WarframeItemCache();
-			singleton.cacheID = System.currentTimeMillis();
-		} else {
+			singleton.cacheID.set(System.currentTimeMillis());
+		} else if (System.currentTimeMillis() - singleton.cacheID.get() >= REFRESH_INTERVAL) {
 			singleton.updateCacheIfNeeded(false);
 		}
 		return singleton;
 	}
 
-	public synchronized boolean updateCacheIfNeeded(boolean forceRefresh) {
-		if (forceRefresh || System.currentTimeMillis() - cacheID >= REFRESH_INTERVAL) {
-			cacheID = System.currentTimeMillis();
-			init(true);
+	/**
+	 * Refreshes the cache if forced to or if it is older than the refresh interval. <br>
+	 * A forced refresh happens right away, otherwise it happens in the background while the current items continue to be used. <br>
+	 * Checking whether a refresh is needed never waits on a refresh in progress, and only the first caller to see the cache is stale will start the refresh
+	 * @param forceRefresh
+	 * @return
+	 */
+	public boolean updateCacheIfNeeded(boolean forceRefresh) {
+		long curId = cacheID.get();
+		long now = System.currentTimeMillis();
+		if (forceRefresh) {
+			cacheID.set(now);
+			build(true);
+			return true;
+		} else if (now - curId >= REFRESH_INTERVAL && cacheID.compareAndSet(curId, now)) {
+			refreshInBackground();
 			return true;
 		}
 		return false;
@@ -10,6 +10,7 @@ import jdtools.exception.ProcessingException;
 import jdtools.logging.Log;
 import wfDataModel.model.processor.commands.CommandProcessor;
 import wfDataModel.service.type.RequestType;
+import wfDataService.service.cache.WarframeItemCache;
 import wfDataService.service.db.DBManagementDao;
 import wfDataService.service.handler.AddBanHandler;
 import wfDataService.service.handler.AddDataHandler;
@@ -41,6 +42,9 @@ public class WFDataService {
 			
 			// Perform any DB upgrades that may be necessary before we start any processing
 			DBManagementDao.upgradeDB();
+
+			// Build the item cache before any requests come in, so the request threads never have to
+			WarframeItemCache.singleton().warmUp();
 			
 			HttpServer server = HttpServer.create(new InetSocketAddress(ServiceSettingsUtil.getServicePort()), 0);
 			server.createContext(RequestType.REGISTER.getEndPoint(), new RegisterHandler());